@@ -0,0 +1,80 @@
+package com.xchange.platform.repository;
+
+import co.elastic.clients.json.JsonpSerializable;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.xchange.platform.dto.ProductSearchDTO;
+import jakarta.json.stream.JsonGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 普通分页搜索请求的客户端开销：查询DSL（每次构建完整查询对象并序列化）对比存储模板（只构建并序列化模板id与参数）。
+ * 只测应用侧构建 + 序列化，不含网络与ES执行；main 方法先输出两种请求体的字节数。
+ * 运行：mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.xchange.platform.repository.SearchRequestBuildBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchRequestBuildBenchmark {
+
+    // 查询结构：关键词 + 校区 + 价格区间，按最新或综合排序
+    @Param({"latest", "popular"})
+    private String sort;
+
+    private final ProductESRepository repository = new ProductESRepository(null, null, null, null, null, null);
+    private final JacksonJsonpMapper mapper = new JacksonJsonpMapper();
+    private ProductSearchDTO dto;
+
+    @Setup
+    public void setUp() {
+        dto = new ProductSearchDTO();
+        dto.setKeyword("二手 机械键盘");
+        dto.setCampusLocation("东校区");
+        dto.setMinPrice(50.0);
+        dto.setMaxPrice(300.0);
+        dto.setPageNum(3);
+        dto.setSort(sort);
+    }
+
+    @Benchmark
+    public String queryDsl() {
+        return serialize(repository.pageRequest(dto, 20, "东校区"));
+    }
+
+    @Benchmark
+    public String storedTemplate() {
+        return serialize(repository.templateRequest(dto, 20, "东校区"));
+    }
+
+    private String serialize(JsonpSerializable request) {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = mapper.jsonProvider().createGenerator(writer)) {
+            request.serialize(generator, mapper);
+        }
+        return writer.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        SearchRequestBuildBenchmark sample = new SearchRequestBuildBenchmark();
+        for (String sort : new String[]{"latest", "popular"}) {
+            sample.sort = sort;
+            sample.setUp();
+            System.out.printf("bodyBytes[%s]: queryDsl=%d, storedTemplate=%d%n", sort,
+                    sample.queryDsl().getBytes(StandardCharsets.UTF_8).length,
+                    sample.storedTemplate().getBytes(StandardCharsets.UTF_8).length);
+        }
+        new Runner(new OptionsBuilder()
+                .include(SearchRequestBuildBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -1,28 +1,44 @@
 package com.xchange.platform.component;
 
-import com.xchange.platform.utils.ElasticsearchUtil;
+import com.xchange.platform.repository.ProductESRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * Elasticsearch初始化组件
- * 应用启动时自动创建索引
+ * 应用启动时自动创建索引（物理索引 xchange_products_v1 + 别名 xchange_products），
+ * 并比对线上映射与 ProductESRepository 中的映射定义
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "search", name = "backend", havingValue = "elasticsearch", matchIfMissing = true)
 @RequiredArgsConstructor
 public class ElasticsearchInitializer {
 
-    private final ElasticsearchUtil elasticsearchUtil;
+    private final ProductESRepository productESRepository;
 
     @EventListener(ApplicationReadyEvent.class)
     public void initializeElasticsearch() {
         try {
             log.info("开始初始化 Elasticsearch 索引...");
-            elasticsearchUtil.createProductIndex();
+            productESRepository.createIndex();
+
+            // 映射只能通过重建迁移：新版本索引按当前定义创建，校验后切换别名
+            List<String> differences = productESRepository.verifyMapping();
+            if (differences.isEmpty()) {
+                log.info("【索引映射】线上映射与定义一致: version={}", ProductESRepository.MAPPING_VERSION);
+            } else {
+                log.warn("【索引映射】线上映射与定义不一致，请执行 POST /api/search/rebuild 重建迁移: {}", differences);
+            }
+
+            // 普通分页搜索的存储模板，id 带映射版本；注册失败时搜索继续使用查询DSL
+            productESRepository.registerSearchTemplates();
             log.info("Elasticsearch 初始化完成！");
         } catch (Exception e) {
             log.error("Elasticsearch 初始化失败: {}", e.getMessage());
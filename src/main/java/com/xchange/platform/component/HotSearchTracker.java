@@ -0,0 +1,224 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.vo.HotSearchVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 热门搜索统计
+ * 搜索请求只更新本地 Space-Saving 计数器（固定容量，只保留高频关键词），不触达Redis：
+ * 1. 每分钟将本地计数器以一次 pipeline 的 HINCRBY 合并到Redis当前分钟桶，各实例的计数在桶内相加；
+ * 2. 合并后读取最近一小时的分钟桶，按时间指数衰减加权求和，取前K个保存在内存，热搜接口只读内存快照
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotSearchTracker {
+
+    static final String BUCKET_KEY_PREFIX = "search:hot:";
+
+    // 每个实例每分钟跟踪的关键词数，超出时替换计数最小的关键词
+    private static final int SKETCH_CAPACITY = 500;
+
+    // 滑动窗口（分钟）与热度半衰期（分钟）：15分钟前的一次搜索只算半次
+    private static final int WINDOW_MINUTES = 60;
+    private static final double HALF_LIFE_MINUTES = 15.0;
+
+    // 分钟桶保留时间，略长于窗口
+    private static final long BUCKET_TTL_SECONDS = (WINDOW_MINUTES + 5) * 60L;
+
+    // 内存中保留的热搜条数与关键词最大长度
+    private static final int TOP_K = 50;
+    private static final int MAX_KEYWORD_LENGTH = 32;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 当前分钟的本地计数器，合并时整体替换
+    private volatile SpaceSaving sketch = new SpaceSaving(SKETCH_CAPACITY);
+
+    // 合并后的热搜快照
+    private volatile List<HotSearchVO> top = Collections.emptyList();
+
+    /**
+     * 记录一次搜索（搜索接口调用，只做内存操作）
+     */
+    public void record(String keyword) {
+        String normalized = normalize(keyword);
+        if (normalized != null) {
+            sketch.offer(normalized, 1);
+        }
+    }
+
+    /**
+     * 热门搜索（读取内存快照）
+     */
+    public List<HotSearchVO> top(int limit) {
+        List<HotSearchVO> snapshot = top;
+        return snapshot.subList(0, Math.min(Math.max(limit, 0), snapshot.size()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            refresh(currentMinute());
+        } catch (Exception e) {
+            log.warn("【热门搜索】启动加载失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 本地计数器合并到Redis分钟桶后，重新计算热搜快照
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void mergeAndRefresh() {
+        long minute = currentMinute();
+        try {
+            publish(minute);
+            refresh(minute);
+        } catch (Exception e) {
+            log.warn("【热门搜索】合并失败: {}", e.getMessage());
+        }
+    }
+
+    private void publish(long minute) {
+        SpaceSaving publishing = sketch;
+        sketch = new SpaceSaving(SKETCH_CAPACITY);
+        Map<String, Long> counts = publishing.counts();
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        byte[] bucketKey = (BUCKET_KEY_PREFIX + minute).getBytes(StandardCharsets.UTF_8);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                counts.forEach((keyword, count) -> connection.hashCommands()
+                        .hIncrBy(bucketKey, keyword.getBytes(StandardCharsets.UTF_8), count));
+                connection.keyCommands().expire(bucketKey, BUCKET_TTL_SECONDS);
+                return null;
+            });
+            log.debug("【热门搜索】已合并到Redis: minute={}, 关键词数={}", minute, counts.size());
+        } catch (Exception e) {
+            // Redis不可用时并回下一周期
+            SpaceSaving current = sketch;
+            counts.forEach(current::offer);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void refresh(long minute) {
+        List<Object> buckets = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int age = 0; age < WINDOW_MINUTES; age++) {
+                readBucket(connection, minute - age);
+            }
+            return null;
+        });
+
+        Map<String, Double> heat = new HashMap<>();
+        for (int age = 0; age < buckets.size(); age++) {
+            if (!(buckets.get(age) instanceof Map<?, ?> bucket) || bucket.isEmpty()) {
+                continue;
+            }
+            double weight = Math.pow(0.5, age / HALF_LIFE_MINUTES);
+            ((Map<String, String>) bucket).forEach((keyword, count) ->
+                    heat.merge(keyword, Long.parseLong(count) * weight, Double::sum));
+        }
+
+        top = heat.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(TOP_K)
+                .map(entry -> HotSearchVO.builder()
+                        .keyword(entry.getKey())
+                        .heat(Math.round(entry.getValue() * 100) / 100.0)
+                        .build())
+                .toList();
+    }
+
+    private static void readBucket(RedisConnection connection, long minute) {
+        connection.hashCommands().hGetAll((BUCKET_KEY_PREFIX + minute).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long currentMinute() {
+        return System.currentTimeMillis() / 60000;
+    }
+
+    /**
+     * 关键词归一化：去除首尾及连续空白、统一小写，过长的输入不计入热搜
+     */
+    static String normalize(String keyword) {
+        if (StringUtils.isBlank(keyword)) {
+            return null;
+        }
+        String normalized = StringUtils.normalizeSpace(keyword).toLowerCase(Locale.ROOT);
+        return normalized.length() > MAX_KEYWORD_LENGTH ? null : normalized;
+    }
+
+    /**
+     * Space-Saving 计数器：最多跟踪 capacity 个关键词，已满时新关键词替换计数最小者并继承其计数，
+     * 计数只会高估（误差不超过被替换者的计数），真实频次超过 总数/capacity 的关键词一定被保留。
+     * 计数按 (count, keyword) 有序保存，累加与替换最小者都是 O(log capacity)，持锁时间与容量无关
+     */
+    static final class SpaceSaving {
+
+        private static final Comparator<Counter> ORDER = Comparator
+                .comparingLong((Counter counter) -> counter.count)
+                .thenComparing(counter -> counter.keyword);
+
+        private final int capacity;
+        private final Map<String, Counter> counters;
+        private final TreeSet<Counter> byCount = new TreeSet<>(ORDER);
+
+        SpaceSaving(int capacity) {
+            this.capacity = capacity;
+            this.counters = new HashMap<>(capacity * 2);
+        }
+
+        synchronized void offer(String keyword, long count) {
+            Counter counter = counters.get(keyword);
+            if (counter != null) {
+                // 先移出再修改计数，保证有序集合的排序键不变
+                byCount.remove(counter);
+                counter.count += count;
+                byCount.add(counter);
+                return;
+            }
+            long inherited = 0;
+            if (counters.size() >= capacity) {
+                // 已满：替换计数最小的关键词
+                Counter min = byCount.pollFirst();
+                counters.remove(min.keyword);
+                inherited = min.count;
+            }
+            counter = new Counter(keyword, inherited + count);
+            counters.put(keyword, counter);
+            byCount.add(counter);
+        }
+
+        synchronized Map<String, Long> counts() {
+            Map<String, Long> counts = new HashMap<>(counters.size() * 2);
+            counters.forEach((keyword, counter) -> counts.put(keyword, counter.count));
+            return counts;
+        }
+
+        private static final class Counter {
+            private final String keyword;
+            private long count;
+
+            Counter(String keyword, long count) {
+                this.keyword = keyword;
+                this.count = count;
+            }
+        }
+    }
+}
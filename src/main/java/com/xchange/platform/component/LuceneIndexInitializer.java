@@ -0,0 +1,38 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.repository.ProductSearchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 嵌入式Lucene索引初始化组件
+ * 应用启动时本地索引为空（首次部署或索引目录被清理）则从MySQL全量导入
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "search", name = "backend", havingValue = "lucene")
+@RequiredArgsConstructor
+public class LuceneIndexInitializer {
+
+    private final ProductSearchRepository productSearchRepository;
+    private final ProductReindexJob productReindexJob;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeLucene() {
+        try {
+            if (productSearchRepository.count() > 0) {
+                log.info("Lucene 索引已存在，跳过全量导入");
+                return;
+            }
+            log.info("Lucene 索引为空，开始全量导入...");
+            productReindexJob.start(false);
+        } catch (Exception e) {
+            log.error("Lucene 初始化失败: {}", e.getMessage());
+            // 初始化失败不影响应用启动
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.xchange.platform.component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xchange.platform.entity.OrderEvent;
+import com.xchange.platform.event.OrderStatusChangedEvent;
+import com.xchange.platform.mapper.OrderEventMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单事件日志写入器（异步组提交）
+ * 事务提交后入队，由单个后台线程批量取出并用一条多值INSERT写入，
+ * 状态流转本身不等待日志落库
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderEventLogWriter implements InitializingBean, DisposableBean {
+
+    private final OrderEventMapper orderEventMapper;
+    private final ObjectMapper objectMapper;
+
+    // 队列容量（满时降级为同步写入）
+    private static final int QUEUE_CAPACITY = 10000;
+
+    // 单批最大条数
+    private static final int MAX_BATCH_SIZE = 200;
+
+    // 首条事件等待超时（毫秒）
+    private static final long POLL_TIMEOUT_MS = 200;
+
+    private final BlockingQueue<OrderEvent> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        worker = new Thread(this::runLoop, "order-event-writer");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("【订单事件日志】组提交写入线程已启动");
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        log.info("【订单事件日志】写入线程已停止, 剩余未写入={}", queue.size());
+    }
+
+    /**
+     * 事务提交后入队（事务回滚的流转不记录）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        OrderEvent record = toRecord(event);
+        if (!queue.offer(record)) {
+            log.warn("【订单事件日志】队列已满，同步写入: orderId={}, event={}", event.getOrderId(), event.getEvent());
+            flush(new ArrayList<>(List.of(record)));
+        }
+    }
+
+    private void runLoop() {
+        List<OrderEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderEvent first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // 组提交：把等待期间积压的事件一并写入
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 关闭时被中断：继续循环把队列写完
+                if (running) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            } catch (Exception e) {
+                log.error("【订单事件日志】写入线程异常: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<OrderEvent> batch) {
+        try {
+            orderEventMapper.insertBatch(batch);
+            log.debug("【订单事件日志】批量写入成功: count={}", batch.size());
+        } catch (Exception e) {
+            // 重试一次，仍失败则记录日志（事件日志不影响主流程）
+            log.warn("【订单事件日志】批量写入失败，重试: count={}, error={}", batch.size(), e.getMessage());
+            try {
+                orderEventMapper.insertBatch(batch);
+            } catch (Exception retryError) {
+                log.error("【订单事件日志】批量写入失败，丢弃: count={}, orderIds={}, error={}",
+                        batch.size(), batch.stream().map(OrderEvent::getOrderId).toList(), retryError.getMessage());
+            }
+        }
+    }
+
+    private OrderEvent toRecord(OrderStatusChangedEvent event) {
+        OrderEvent record = new OrderEvent();
+        record.setOrderId(event.getOrderId());
+        record.setEvent(event.getEvent().name());
+        record.setFromStatus(event.getFromState() != null ? event.getFromState().ordinal() : null);
+        record.setToStatus(event.getToState().ordinal());
+        record.setActorId(event.getActorId());
+        record.setCreateTime(event.getOccurredAt());
+
+        if (event.getMetadata() != null && !event.getMetadata().isEmpty()) {
+            try {
+                record.setMetadata(objectMapper.writeValueAsString(event.getMetadata()));
+            } catch (Exception e) {
+                log.warn("【订单事件日志】metadata序列化失败: orderId={}, error={}", event.getOrderId(), e.getMessage());
+            }
+        }
+        return record;
+    }
+}
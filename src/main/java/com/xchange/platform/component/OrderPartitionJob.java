@@ -0,0 +1,183 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.config.OrderPartitionProperties;
+import com.xchange.platform.mapper.OrderPartitionMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单表分区维护定时任务
+ * tb_order 按 create_time 月度 RANGE COLUMNS 分区（p202501 ... p_max），
+ * 提前拆出未来分区，并将超出保留期的分区交换到归档表或直接删除
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderPartitionJob {
+
+    static final String TABLE = "tb_order";
+    static final String MAX_PARTITION = "p_max";
+
+    // 分区DDL锁：分区维护与在线迁移共用，多实例部署时同一时刻只有一个实例修改 tb_order 结构
+    static final String LOCK_KEY = "order:partition:lock";
+    static final long LOCK_TTL_MINUTES = 30;
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    // 未分区时重新检查的间隔：在线迁移可能在运行期间完成（已分区后不再检查）
+    private static final long PARTITION_CHECK_INTERVAL_MS = 10 * 60 * 1000;
+
+    private final OrderPartitionMapper partitionMapper;
+    private final OrderPartitionProperties partitionProperties;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String lockOwner = UUID.randomUUID().toString();
+
+    private volatile boolean partitioned;
+    private volatile long partitionCheckedAt;
+
+    @Scheduled(cron = "${order.partition.cron}")
+    public void maintainPartitions() {
+        if (!partitionProperties.getEnabled()) {
+            log.info("========== 订单分区维护任务已禁用 ==========");
+            return;
+        }
+
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(LOCK_KEY, lockOwner, LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.info("【订单分区】其他实例正在修改分区，跳过");
+            return;
+        }
+
+        log.info("========== 开始执行订单分区维护任务 ==========");
+        try {
+            // 取锁后读取分区列表，不会基于其他实例修改前的结构执行DDL
+            List<String> partitions = partitionMapper.selectPartitionNames(TABLE);
+            if (partitions.isEmpty()) {
+                log.warn("【订单分区】{} 未分区，跳过（请先执行在线迁移）", TABLE);
+                return;
+            }
+            createFuturePartitions(partitions);
+            retireExpiredPartitions(partitions);
+        } catch (Exception e) {
+            log.error("【订单分区】维护失败: {}", e.getMessage(), e);
+        } finally {
+            releaseLock(stringRedisTemplate, lockOwner);
+        }
+        log.info("========== 订单分区维护任务结束 ==========");
+    }
+
+    /**
+     * 分区已启用且 tb_order 已完成分区迁移（列表查询据此决定是否默认按保留期裁剪）
+     */
+    public boolean isPartitioned() {
+        if (!partitionProperties.getEnabled()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (!partitioned && now - partitionCheckedAt >= PARTITION_CHECK_INTERVAL_MS) {
+            partitionCheckedAt = now;
+            try {
+                partitioned = !partitionMapper.selectPartitionNames(TABLE).isEmpty();
+            } catch (Exception e) {
+                log.warn("【订单分区】读取分区信息失败: {}", e.getMessage());
+            }
+        }
+        return partitioned;
+    }
+
+    /**
+     * 释放分区DDL锁（只释放自己持有的锁）
+     */
+    static void releaseLock(StringRedisTemplate stringRedisTemplate, String owner) {
+        try {
+            if (owner.equals(stringRedisTemplate.opsForValue().get(LOCK_KEY))) {
+                stringRedisTemplate.delete(LOCK_KEY);
+            }
+        } catch (Exception e) {
+            log.warn("【订单分区】释放锁失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从 p_max 中拆出缺失的未来分区（p_max 平时为空，拆分不移动数据）
+     */
+    private void createFuturePartitions(List<String> partitions) {
+        YearMonth target = YearMonth.now().plusMonths(partitionProperties.getFutureMonths());
+        YearMonth last = partitions.stream()
+                .filter(p -> !MAX_PARTITION.equals(p))
+                .map(OrderPartitionJob::monthOf)
+                .max(YearMonth::compareTo)
+                .orElse(YearMonth.now().minusMonths(1));
+
+        for (YearMonth month = last.plusMonths(1); !month.isAfter(target); month = month.plusMonths(1)) {
+            partitionMapper.executeDdl("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + MAX_PARTITION + " INTO (" +
+                    partitionDefinition(month) + ", " + maxPartitionDefinition() + ")");
+            log.info("【订单分区】已创建分区: {}", partitionName(month));
+        }
+    }
+
+    /**
+     * 处理超出保留期的分区：上界不晚于保留下界的分区整体移出
+     */
+    private void retireExpiredPartitions(List<String> partitions) {
+        YearMonth floor = YearMonth.from(retentionFloor(partitionProperties.getRetentionMonths()));
+
+        for (String partition : partitions) {
+            if (MAX_PARTITION.equals(partition) || !monthOf(partition).isBefore(floor)) {
+                continue;
+            }
+
+            if (partitionProperties.getArchive()) {
+                // EXCHANGE 仅交换元数据，不逐行复制
+                String archiveTable = TABLE + "_archive_" + partition.substring(1);
+                if (partitionMapper.countTable(archiveTable) == 0) {
+                    partitionMapper.executeDdl("CREATE TABLE " + archiveTable + " LIKE " + TABLE);
+                    partitionMapper.executeDdl("ALTER TABLE " + archiveTable + " REMOVE PARTITIONING");
+                }
+                partitionMapper.executeDdl("ALTER TABLE " + TABLE + " EXCHANGE PARTITION " + partition +
+                        " WITH TABLE " + archiveTable);
+                log.info("【订单分区】分区已归档: {} -> {}", partition, archiveTable);
+            }
+
+            partitionMapper.executeDdl("ALTER TABLE " + TABLE + " DROP PARTITION " + partition);
+            log.info("【订单分区】已删除分区: {}", partition);
+        }
+    }
+
+    /**
+     * 在线数据的最早时间（当月1日往前推 retentionMonths 个月）
+     */
+    public static LocalDateTime retentionFloor(int retentionMonths) {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(retentionMonths).atStartOfDay();
+    }
+
+    static String partitionName(YearMonth month) {
+        return "p" + month.format(NAME_FORMAT);
+    }
+
+    static String partitionDefinition(YearMonth month) {
+        return "PARTITION " + partitionName(month) +
+                " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + " 00:00:00')";
+    }
+
+    static String maxPartitionDefinition() {
+        return "PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE)";
+    }
+
+    private static YearMonth monthOf(String partition) {
+        return YearMonth.parse(partition.substring(1), NAME_FORMAT);
+    }
+}
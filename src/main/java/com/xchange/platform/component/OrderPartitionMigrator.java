@@ -0,0 +1,194 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.config.OrderPartitionProperties;
+import com.xchange.platform.mapper.OrderPartitionMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * tb_order 在线分区迁移工具（影子表 + 触发器 + 分批复制 + 原子改名）
+ * 1. 按 tb_order 结构建影子表，主键改为 (id, create_time)，唯一索引补充分区列，按月分区
+ * 2. 在原表上建触发器，迁移期间的增删改同步写入影子表
+ * 3. 按ID区间分批复制存量数据，INSERT IGNORE 不覆盖触发器写入的新版本
+ * 4. RENAME TABLE 原子切换，原表保留为 tb_order_old_时间戳 备查
+ * 多实例同时启动时只有取得分区DDL锁的实例执行，其余跳过（锁在每批复制后续期）
+ * 注意：分区表不支持外键；开启binlog时建触发器需要 log_bin_trust_function_creators 或相应权限
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderPartitionMigrator {
+
+    private static final String SHADOW_TABLE = "tb_order_new";
+    private static final String[] TRIGGERS = {"trg_order_migrate_ins", "trg_order_migrate_upd", "trg_order_migrate_del"};
+
+    private final OrderPartitionMapper partitionMapper;
+    private final OrderPartitionProperties partitionProperties;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String lockOwner = UUID.randomUUID().toString();
+
+    @Async("asyncExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (partitionProperties.getMigration().getEnabled()) {
+            migrate();
+        }
+    }
+
+    /**
+     * 执行迁移（已分区时直接返回）
+     */
+    public void migrate() {
+        if (!partitionMapper.selectPartitionNames(OrderPartitionJob.TABLE).isEmpty()) {
+            log.info("【订单分区迁移】{} 已分区，无需迁移", OrderPartitionJob.TABLE);
+            return;
+        }
+
+        // 清理上次遗留会删除影子表与触发器，必须确保没有其他实例正在迁移
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(OrderPartitionJob.LOCK_KEY, lockOwner,
+                OrderPartitionJob.LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.info("【订单分区迁移】其他实例正在迁移或维护分区，跳过");
+            return;
+        }
+
+        log.info("========== 开始在线迁移 {} 为分区表 ==========", OrderPartitionJob.TABLE);
+        long start = System.currentTimeMillis();
+
+        try {
+            // 取锁后复查：其他实例可能刚刚完成迁移
+            if (!partitionMapper.selectPartitionNames(OrderPartitionJob.TABLE).isEmpty()) {
+                log.info("【订单分区迁移】{} 已分区，无需迁移", OrderPartitionJob.TABLE);
+                return;
+            }
+
+            // 清理上次失败遗留
+            dropTriggers();
+            partitionMapper.executeDdl("DROP TABLE IF EXISTS " + SHADOW_TABLE);
+
+            createShadowTable();
+            List<String> columns = partitionMapper.selectColumns(OrderPartitionJob.TABLE);
+            createTriggers(columns);
+
+            long copied = copyRows(String.join(", ", columns));
+
+            String backupTable = "tb_order_old_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmm"));
+            partitionMapper.executeDdl("RENAME TABLE " + OrderPartitionJob.TABLE + " TO " + backupTable + ", " +
+                    SHADOW_TABLE + " TO " + OrderPartitionJob.TABLE);
+            dropTriggers();
+
+            log.info("【订单分区迁移】完成: 复制{}行, 原表保留为{}, 耗时{}ms",
+                    copied, backupTable, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            log.warn("【订单分区迁移】复制期间被中断，放弃本次迁移");
+            abort();
+            // 清理完成后恢复中断标记，交由调用方处理
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("【订单分区迁移】失败: {}", e.getMessage(), e);
+            abort();
+        } finally {
+            OrderPartitionJob.releaseLock(stringRedisTemplate, lockOwner);
+        }
+    }
+
+    private void createShadowTable() {
+        partitionMapper.executeDdl("CREATE TABLE " + SHADOW_TABLE + " LIKE " + OrderPartitionJob.TABLE);
+
+        // 分区列必须包含在每个唯一键中
+        List<String> alters = new ArrayList<>();
+        alters.add("MODIFY create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP");
+        alters.add("DROP PRIMARY KEY");
+        alters.add("ADD PRIMARY KEY (id, create_time)");
+        for (String index : partitionMapper.selectUniqueIndexes(SHADOW_TABLE)) {
+            String[] parts = index.split(":", 2);
+            alters.add("DROP INDEX " + parts[0]);
+            alters.add("ADD UNIQUE INDEX " + parts[0] + " (" + parts[1] + ", create_time)");
+        }
+        partitionMapper.executeDdl("ALTER TABLE " + SHADOW_TABLE + " " + String.join(", ", alters));
+
+        // 从最早订单所在月份到未来 futureMonths 个月
+        LocalDateTime minCreateTime = partitionMapper.selectMinCreateTime();
+        YearMonth from = minCreateTime != null ? YearMonth.from(minCreateTime) : YearMonth.now();
+        YearMonth to = YearMonth.now().plusMonths(partitionProperties.getFutureMonths());
+
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            definitions.add(OrderPartitionJob.partitionDefinition(month));
+        }
+        definitions.add(OrderPartitionJob.maxPartitionDefinition());
+
+        partitionMapper.executeDdl("ALTER TABLE " + SHADOW_TABLE +
+                " PARTITION BY RANGE COLUMNS(create_time) (" + String.join(", ", definitions) + ")");
+        log.info("【订单分区迁移】影子表已创建: 分区数={}", definitions.size());
+    }
+
+    private void createTriggers(List<String> columns) {
+        String columnList = String.join(", ", columns);
+        String newValues = columns.stream().map(c -> "NEW." + c).collect(Collectors.joining(", "));
+        String replaceNew = "REPLACE INTO " + SHADOW_TABLE + " (" + columnList + ") VALUES (" + newValues + ")";
+
+        partitionMapper.executeDdl("CREATE TRIGGER " + TRIGGERS[0] + " AFTER INSERT ON " +
+                OrderPartitionJob.TABLE + " FOR EACH ROW " + replaceNew);
+        partitionMapper.executeDdl("CREATE TRIGGER " + TRIGGERS[1] + " AFTER UPDATE ON " +
+                OrderPartitionJob.TABLE + " FOR EACH ROW " + replaceNew);
+        partitionMapper.executeDdl("CREATE TRIGGER " + TRIGGERS[2] + " AFTER DELETE ON " +
+                OrderPartitionJob.TABLE + " FOR EACH ROW DELETE FROM " + SHADOW_TABLE + " WHERE id = OLD.id");
+        log.info("【订单分区迁移】同步触发器已创建");
+    }
+
+    /**
+     * 分批复制：只复制迁移开始时已存在的ID，之后的新订单由插入触发器写入
+     */
+    private long copyRows(String columns) throws InterruptedException {
+        OrderPartitionProperties.Migration config = partitionProperties.getMigration();
+        long maxId = partitionMapper.selectMaxId();
+        long lastId = 0;
+        long copied = 0;
+
+        while (lastId < maxId) {
+            Long upper = partitionMapper.selectChunkUpperId(lastId, config.getChunkSize() - 1);
+            long toId = upper == null ? maxId : Math.min(upper, maxId);
+
+            copied += partitionMapper.copyChunk(SHADOW_TABLE, columns, lastId, toId);
+            lastId = toId;
+
+            stringRedisTemplate.expire(OrderPartitionJob.LOCK_KEY, OrderPartitionJob.LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+            log.debug("【订单分区迁移】进度: {}/{}", lastId, maxId);
+            Thread.sleep(config.getChunkPauseMs());
+        }
+        return copied;
+    }
+
+    /**
+     * 切换前失败不影响原表，清理触发器避免继续写影子表
+     */
+    private void abort() {
+        try {
+            dropTriggers();
+        } catch (Exception e) {
+            log.error("【订单分区迁移】清理触发器失败: {}", e.getMessage());
+        }
+    }
+
+    private void dropTriggers() {
+        for (String trigger : TRIGGERS) {
+            partitionMapper.executeDdl("DROP TRIGGER IF EXISTS " + trigger);
+        }
+    }
+}
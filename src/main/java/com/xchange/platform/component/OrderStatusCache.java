@@ -0,0 +1,214 @@
+package com.xchange.platform.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xchange.platform.entity.Order;
+import com.xchange.platform.event.OrderStatusChangedEvent;
+import com.xchange.platform.mapper.OrderMapper;
+import com.xchange.platform.orderstate.OrderEvents;
+import com.xchange.platform.orderstate.OrderStates;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单状态缓存（本地近缓存 + Redis Hash）
+ * orderId -> (status, version, buyerId, sellerId)，状态轮询命中时不访问MySQL。
+ * 状态流转只会让 status 序号单调递增（CANCELLED 为最大终态），
+ * Redis 写入以“序号只增不减”为条件，乱序到达的旧值不会覆盖新值
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatusCache {
+
+    private static final String KEY_PREFIX = "order:status:";
+
+    // Redis 条目有效期（流转时续期）
+    private static final long REDIS_TTL_SECONDS = 3600;
+
+    // 不存在的订单ID在Redis中的负缓存有效期
+    private static final long NEGATIVE_TTL_SECONDS = 30;
+
+    // 本地近缓存：容量上限与有效期（其他节点的流转最多延迟此时长可见）
+    private static final int LOCAL_MAX_SIZE = 10000;
+    private static final Duration LOCAL_TTL = Duration.ofSeconds(2);
+
+    /**
+     * 整条写入：仅当缓存不存在或缓存状态更旧时写入
+     * KEYS[1]=key, ARGV=status, version, buyerId, sellerId, ttl
+     */
+    private static final RedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>(
+            "local cur = redis.call('HGET', KEYS[1], 'status');\n" +
+                    "if cur and tonumber(cur) >= tonumber(ARGV[1]) then return 0 end;\n" +
+                    "redis.call('HDEL', KEYS[1], 'missing');\n" +
+                    "redis.call('HSET', KEYS[1], 'status', ARGV[1], 'version', ARGV[2], " +
+                    "'buyerId', ARGV[3], 'sellerId', ARGV[4]);\n" +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[5]);\n" +
+                    "return 1;",
+            Long.class);
+
+    /**
+     * 流转写穿：缓存存在且状态更旧时推进状态、版本号+1（与 tb_order.version 同步递增）
+     * KEYS[1]=key, ARGV=status, ttl
+     */
+    private static final RedisScript<Long> ADVANCE_SCRIPT = new DefaultRedisScript<>(
+            "local cur = redis.call('HGET', KEYS[1], 'status');\n" +
+                    "if not cur or tonumber(cur) >= tonumber(ARGV[1]) then return 0 end;\n" +
+                    "redis.call('HSET', KEYS[1], 'status', ARGV[1]);\n" +
+                    "redis.call('HINCRBY', KEYS[1], 'version', 1);\n" +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[2]);\n" +
+                    "return 1;",
+            Long.class);
+
+    /**
+     * 负缓存：订单不存在时写入 missing 标记（已有条目时不写）
+     * KEYS[1]=key, ARGV=ttl
+     */
+    private static final RedisScript<Long> MISSING_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end;\n" +
+                    "redis.call('HSET', KEYS[1], 'missing', '1');\n" +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[1]);\n" +
+                    "return 1;",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final OrderMapper orderMapper;
+
+    private final Cache<Long, Entry> localCache = Caffeine.newBuilder()
+            .maximumSize(LOCAL_MAX_SIZE)
+            .expireAfterWrite(LOCAL_TTL)
+            .build();
+
+    /**
+     * 读取订单状态：本地 -> Redis -> MySQL（不存在的订单短期负缓存，轮询无效ID不会每次访问MySQL）
+     * @return 订单不存在时返回null
+     */
+    public Entry get(Long orderId) {
+        Entry entry = localCache.getIfPresent(orderId);
+        if (entry == null) {
+            entry = readRedis(orderId);
+        }
+        if (entry == null) {
+            Order order = orderMapper.selectById(orderId);
+            if (order == null) {
+                entry = Entry.MISSING;
+                writeMissing(orderId);
+            } else {
+                entry = Entry.of(order);
+                writeRedis(orderId, entry);
+            }
+        }
+
+        localCache.put(orderId, entry);
+        return entry == Entry.MISSING ? null : entry;
+    }
+
+    /**
+     * 状态流转写穿（事务提交后执行，回滚的下单/流转不会进入缓存）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getEvent() == OrderEvents.CREATE) {
+            // 下单：订单已提交，按事件写入完整条目（新订单版本号为0）
+            Entry entry = new Entry(event.getToState(), 0, event.getActorId(), event.getSellerId());
+            writeRedis(event.getOrderId(), entry);
+            localCache.put(event.getOrderId(), entry);
+            return;
+        }
+        localCache.invalidate(event.getOrderId());
+        try {
+            stringRedisTemplate.execute(
+                    ADVANCE_SCRIPT,
+                    Collections.singletonList(KEY_PREFIX + event.getOrderId()),
+                    String.valueOf(event.getToState().ordinal()),
+                    String.valueOf(REDIS_TTL_SECONDS));
+        } catch (Exception e) {
+            // 写穿失败时删除条目，下次读取回源
+            log.warn("【订单状态缓存】写穿失败，删除缓存: orderId={}, error={}", event.getOrderId(), e.getMessage());
+            stringRedisTemplate.delete(KEY_PREFIX + event.getOrderId());
+        }
+    }
+
+    private Entry readRedis(Long orderId) {
+        try {
+            Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(KEY_PREFIX + orderId);
+            if (!hash.containsKey("buyerId")) {
+                return hash.containsKey("missing") ? Entry.MISSING : null;
+            }
+            return new Entry(
+                    OrderStates.values()[Integer.parseInt((String) hash.get("status"))],
+                    Integer.parseInt((String) hash.get("version")),
+                    Long.parseLong((String) hash.get("buyerId")),
+                    Long.parseLong((String) hash.get("sellerId")));
+        } catch (Exception e) {
+            log.warn("【订单状态缓存】读取Redis失败，回源MySQL: orderId={}, error={}", orderId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(Long orderId, Entry entry) {
+        try {
+            stringRedisTemplate.execute(
+                    FILL_SCRIPT,
+                    Collections.singletonList(KEY_PREFIX + orderId),
+                    List.of(String.valueOf(entry.getStatus().ordinal()),
+                            String.valueOf(entry.getVersion()),
+                            String.valueOf(entry.getBuyerId()),
+                            String.valueOf(entry.getSellerId()),
+                            String.valueOf(REDIS_TTL_SECONDS)).toArray());
+        } catch (Exception e) {
+            log.warn("【订单状态缓存】写入Redis失败: orderId={}, error={}", orderId, e.getMessage());
+        }
+    }
+
+    private void writeMissing(Long orderId) {
+        try {
+            stringRedisTemplate.execute(
+                    MISSING_SCRIPT,
+                    Collections.singletonList(KEY_PREFIX + orderId),
+                    String.valueOf(NEGATIVE_TTL_SECONDS));
+        } catch (Exception e) {
+            log.warn("【订单状态缓存】写入负缓存失败: orderId={}, error={}", orderId, e.getMessage());
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final OrderStates status;
+        private final Integer version;
+        private final Long buyerId;
+        private final Long sellerId;
+
+        // 负缓存占位：订单不存在
+        static final Entry MISSING = new Entry(null, null, null, null);
+
+        static Entry of(Order order) {
+            return new Entry(
+                    OrderStates.values()[order.getStatus()],
+                    order.getVersion() != null ? order.getVersion() : 0,
+                    order.getBuyerId(),
+                    order.getSellerId());
+        }
+
+        public boolean isParticipant(Long userId) {
+            return userId.equals(buyerId) || userId.equals(sellerId);
+        }
+    }
+}
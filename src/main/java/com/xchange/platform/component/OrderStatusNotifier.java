@@ -0,0 +1,106 @@
+package com.xchange.platform.component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xchange.platform.dto.WebSocketMessage;
+import com.xchange.platform.event.OrderStatusChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 订单状态推送器
+ * 事务提交后将状态变更发布到 Redis 频道，每个节点订阅该频道并推送给本节点上买卖双方的 WebSocket 会话，
+ * 用户连在哪个节点都能收到
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatusNotifier implements MessageListener, InitializingBean {
+
+    // 跨节点广播频道
+    public static final String CHANNEL = "ws:notify:order";
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final OrderStatusCache orderStatusCache;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void afterPropertiesSet() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        log.info("【订单状态推送】已订阅Redis频道: {}", CHANNEL);
+    }
+
+    /**
+     * 事务提交后发布（回滚的流转不推送）
+     */
+    @Async("asyncExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        try {
+            // 事件不携带买卖双方，从状态缓存获取
+            OrderStatusCache.Entry entry = orderStatusCache.get(event.getOrderId());
+            if (entry == null) {
+                return;
+            }
+
+            Set<Long> userIds = new LinkedHashSet<>();
+            userIds.add(entry.getBuyerId());
+            userIds.add(entry.getSellerId());
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("orderId", event.getOrderId());
+            data.put("event", event.getEvent().name());
+            data.put("fromStatus", event.getFromState() != null ? event.getFromState().name() : null);
+            data.put("status", event.getToState().name());
+            data.put("actorId", event.getActorId());
+
+            Map<String, Object> envelope = new HashMap<>();
+            envelope.put("userIds", userIds);
+            envelope.put("payload", WebSocketMessage.builder()
+                    .type("ORDER_STATUS")
+                    .action(event.getEvent().name())
+                    .data(data)
+                    .build());
+
+            stringRedisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(envelope));
+            log.debug("【订单状态推送】已广播: orderId={}, status={}", event.getOrderId(), event.getToState());
+        } catch (Exception e) {
+            // 推送失败不影响业务，客户端可通过 subscribe_order 重新拉取
+            log.warn("【订单状态推送】广播失败: orderId={}, error={}", event.getOrderId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 收到广播后只投递本节点持有的会话
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            JsonNode envelope = objectMapper.readTree(new String(message.getBody(), StandardCharsets.UTF_8));
+            String payload = objectMapper.writeValueAsString(envelope.get("payload"));
+            for (JsonNode userIdNode : envelope.path("userIds")) {
+                sessionRegistry.sendToUser(userIdNode.asLong(), payload);
+            }
+        } catch (Exception e) {
+            log.warn("【订单状态推送】消息处理失败: error={}", e.getMessage());
+        }
+    }
+}
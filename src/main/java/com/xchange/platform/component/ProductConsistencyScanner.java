@@ -0,0 +1,359 @@
+package com.xchange.platform.component;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.xchange.platform.document.ProductDocument;
+import com.xchange.platform.entity.Product;
+import com.xchange.platform.mapper.ProductMapper;
+import com.xchange.platform.repository.ProductESRepository;
+import com.xchange.platform.repository.ProductESRepository.IndexedDoc;
+import com.xchange.platform.repository.ProductLuceneRepository;
+import com.xchange.platform.vo.ConsistencyReportVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * MySQL 与 Elasticsearch 一致性巡检（低优先级后台线程，多实例部署时只有一个实例执行）
+ * 发布、修改（ProductIndexSyncListener 提交后写入）、删除商品时索引写入失败只记录日志，文档会逐渐偏离MySQL；
+ * 巡检作为兜底，按ID键集分批比对，只修复差异，无需全量重建：
+ * 1. 每批从MySQL读取 (id, update_time, campus_location)，从ES读取同一ID区间文档的 updateTime doc values 与路由（不取 _source）
+ * 2. 索引中缺失、更新时间或校区路由不一致的商品批量重写（已有文档局部更新，保留热度分与搜索权重）；MySQL中已不存在的商品、换校区后残留的旧路由文档批量删除
+ * 3. 最近 GRACE_SECONDS 内更新的商品可能正在同步或尚未刷新可见，推迟到下一轮
+ * 4. 修复前重新读取候选商品，比对之后再次变更的商品不会被旧数据覆盖
+ * 嵌入式Lucene后端同样由上述写入路径同步，但巡检只比对ES，不覆盖Lucene：Lucene索引写入失败的偏差只能通过重建修复
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductConsistencyScanner {
+
+    private static final String LOCK_KEY = "search:consistency:lock";
+    private static final String REPORT_KEY = "search:consistency:report";
+
+    // 分布式锁有效期（每批续期）
+    private static final long LOCK_TTL_MINUTES = 10;
+
+    // 每批比对的商品数
+    private static final int BATCH_SIZE = 1000;
+
+    // 批次间隔：巡检只占用少量MySQL与ES资源
+    private static final long BATCH_PAUSE_MS = 200;
+
+    // 最近更新的商品推迟比对的时间窗口（秒）
+    private static final long GRACE_SECONDS = 120;
+
+    private final ProductMapper productMapper;
+    private final ProductESRepository productESRepository;
+    private final ProductReindexJob productReindexJob;
+    private final SearchResultCache searchResultCache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectProvider<ProductLuceneRepository> luceneRepository;
+
+    private final String lockOwner = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private volatile ConsistencyReportVO report = ConsistencyReportVO.builder().status("IDLE").build();
+
+    @Scheduled(cron = "${search.consistency.cron:0 45 */2 * * ?}")
+    public void scheduledScan() {
+        if (luceneRepository.getIfAvailable() != null) {
+            return;
+        }
+        try {
+            start();
+        } catch (RuntimeException e) {
+            log.info("【一致性巡检】跳过: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 启动巡检（后台线程执行，立即返回）
+     */
+    public synchronized ConsistencyReportVO start() {
+        if (luceneRepository.getIfAvailable() != null) {
+            throw new RuntimeException("嵌入式搜索后端不需要一致性巡检");
+        }
+        if (running) {
+            throw new RuntimeException("巡检任务正在执行中");
+        }
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(ProductReindexJob.LOCK_KEY))) {
+            throw new RuntimeException("索引重建进行中，跳过巡检");
+        }
+        // 旧版本映射没有 updateTime 的 doc values，比对会把全部文档判为过期
+        List<String> differences = productESRepository.verifyMapping();
+        if (!differences.isEmpty()) {
+            throw new RuntimeException("索引映射与定义不一致，请先重建索引: " + differences.get(0));
+        }
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(LOCK_KEY, lockOwner, LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+        if (!Boolean.TRUE.equals(locked)) {
+            throw new RuntimeException("其他节点正在执行巡检");
+        }
+
+        running = true;
+        LocalDateTime startTime = LocalDateTime.now();
+        report = snapshot("RUNNING", new Drift(), startTime, null, null);
+
+        Thread worker = new Thread(() -> run(startTime), "product-consistency");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+
+        log.info("【一致性巡检】任务已启动");
+        return report;
+    }
+
+    /**
+     * 巡检报告（本节点未执行过时读取Redis中最近一次的报告）
+     */
+    public ConsistencyReportVO report() {
+        if (running || !"IDLE".equals(report.getStatus())) {
+            return report;
+        }
+        Map<Object, Object> saved = stringRedisTemplate.opsForHash().entries(REPORT_KEY);
+        if (saved.isEmpty()) {
+            return report;
+        }
+        return ConsistencyReportVO.builder()
+                .status((String) saved.get("status"))
+                .scanned(Long.parseLong((String) saved.get("scanned")))
+                .missing(Long.parseLong((String) saved.get("missing")))
+                .stale(Long.parseLong((String) saved.get("stale")))
+                .orphaned(Long.parseLong((String) saved.get("orphaned")))
+                .deferred(Long.parseLong((String) saved.get("deferred")))
+                .repaired(Long.parseLong((String) saved.get("repaired")))
+                .failed(Long.parseLong((String) saved.get("failed")))
+                .endTime(LocalDateTime.parse((String) saved.get("endTime")))
+                .message((String) saved.get("message"))
+                .build();
+    }
+
+    private void run(LocalDateTime startTime) {
+        Drift total = new Drift();
+        String status = "FAILED";
+        String message = null;
+        try {
+            long lastId = 0;
+            while (true) {
+                LocalDateTime cutoff = LocalDateTime.now().minusSeconds(GRACE_SECONDS);
+                List<Product> products = productMapper.selectList(new LambdaQueryWrapper<Product>()
+                        .select(Product::getId, Product::getCampusLocation, Product::getUpdateTime)
+                        .gt(Product::getId, lastId)
+                        .orderByAsc(Product::getId)
+                        .last("LIMIT " + BATCH_SIZE));
+                // 最后一批读到索引末尾，覆盖MySQL最大ID之后的多余文档
+                boolean last = products.size() < BATCH_SIZE;
+                long toId = last ? Long.MAX_VALUE : products.get(products.size() - 1).getId();
+
+                Drift drift = diff(products, productESRepository.indexedDocs(lastId, toId), cutoff);
+                repair(drift, cutoff);
+                total.add(drift);
+                report = snapshot("RUNNING", total, startTime, null, null);
+
+                if (last) {
+                    break;
+                }
+                lastId = toId;
+                stringRedisTemplate.expire(LOCK_KEY, LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+                Thread.sleep(BATCH_PAUSE_MS);
+            }
+            status = "COMPLETED";
+            log.info("【一致性巡检】完成: scanned={}, missing={}, stale={}, orphaned={}, deferred={}, repaired={}, failed={}",
+                    total.scanned, total.missing, total.stale, total.orphaned, total.deferred, total.repaired, total.failed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            message = "巡检被中断";
+        } catch (Exception e) {
+            message = e.getMessage();
+            log.error("【一致性巡检】任务失败: {}", e.getMessage(), e);
+        } finally {
+            report = snapshot(status, total, startTime, LocalDateTime.now(), message);
+            saveReport();
+            running = false;
+            releaseLock();
+            if (total.repaired > 0) {
+                searchResultCache.bumpGeneration();
+            }
+        }
+    }
+
+    /**
+     * 比对一批商品与同一ID区间内的索引文档
+     * @param products 按ID升序的一批商品（只需 id、campusLocation、updateTime）
+     * @param docs     索引中同一ID区间的文档
+     * @param cutoff   在此之后更新的商品推迟比对
+     */
+    static Drift diff(List<Product> products, List<IndexedDoc> docs, LocalDateTime cutoff) {
+        Drift drift = new Drift();
+        Map<Long, List<IndexedDoc>> indexed = docs.stream().collect(Collectors.groupingBy(IndexedDoc::id));
+
+        for (Product product : products) {
+            List<IndexedDoc> copies = indexed.remove(product.getId());
+            if (recent(product, cutoff)) {
+                drift.deferred++;
+                continue;
+            }
+            drift.scanned++;
+            if (copies == null) {
+                drift.missing++;
+                drift.reindex.add(product.getId());
+                continue;
+            }
+
+            String routing = ProductESRepository.routing(product.getCampusLocation());
+            Long version = versionOf(product.getUpdateTime());
+            boolean current = false;
+            for (IndexedDoc doc : copies) {
+                if (!doc.routing().equals(routing)) {
+                    drift.orphaned++;
+                    drift.deletes.add(doc);
+                } else {
+                    current = Objects.equals(doc.updateTime(), version);
+                }
+            }
+            if (!current) {
+                drift.stale++;
+                drift.reindex.add(product.getId());
+            }
+        }
+
+        // 区间内MySQL中不存在（已删除）的商品
+        indexed.values().forEach(copies -> {
+            drift.orphaned += copies.size();
+            drift.deletes.addAll(copies);
+        });
+        return drift;
+    }
+
+    /**
+     * 修复一批差异：候选商品重新读取，期间再次变更或新发布的商品留给下一轮
+     */
+    private void repair(Drift drift, LocalDateTime cutoff) {
+        if (drift.reindex.isEmpty() && drift.deletes.isEmpty()) {
+            return;
+        }
+
+        Set<Long> candidates = new HashSet<>(drift.reindex);
+        drift.deletes.forEach(doc -> candidates.add(doc.id()));
+        Map<Long, Product> current = productMapper.selectList(new LambdaQueryWrapper<Product>()
+                        .in(Product::getId, candidates))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<Product> rewrite = drift.reindex.stream()
+                .map(current::get)
+                .filter(product -> product != null && !recent(product, cutoff))
+                .collect(Collectors.toList());
+        List<IndexedDoc> deletes = drift.deletes.stream()
+                .filter(doc -> {
+                    Product product = current.get(doc.id());
+                    return product == null || !recent(product, cutoff)
+                            && !ProductESRepository.routing(product.getCampusLocation()).equals(doc.routing());
+                })
+                .collect(Collectors.toList());
+
+        List<ProductDocument> documents = productReindexJob.toDocuments(rewrite);
+        int failed = productESRepository.repair(documents, deletes);
+        drift.failed = failed;
+        drift.repaired = Math.max(documents.size() + deletes.size() - failed, 0);
+        log.info("【一致性巡检】已修复: rewrite={}, delete={}, failed={}", documents.size(), deletes.size(), failed);
+    }
+
+    private static boolean recent(Product product, LocalDateTime cutoff) {
+        return product.getUpdateTime() != null && product.getUpdateTime().isAfter(cutoff);
+    }
+
+    /**
+     * 与索引中 updateTime 的 epoch_millis 对应：文档按秒精度、无时区格式写入，ES按UTC解析
+     */
+    static Long versionOf(LocalDateTime updateTime) {
+        return updateTime == null ? null
+                : updateTime.truncatedTo(ChronoUnit.SECONDS).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static ConsistencyReportVO snapshot(String status, Drift drift, LocalDateTime startTime,
+                                                LocalDateTime endTime, String message) {
+        return ConsistencyReportVO.builder()
+                .status(status)
+                .scanned(drift.scanned)
+                .missing(drift.missing)
+                .stale(drift.stale)
+                .orphaned(drift.orphaned)
+                .deferred(drift.deferred)
+                .repaired(drift.repaired)
+                .failed(drift.failed)
+                .startTime(startTime)
+                .endTime(endTime)
+                .message(message)
+                .build();
+    }
+
+    private void saveReport() {
+        try {
+            ConsistencyReportVO saved = report;
+            Map<String, String> fields = new HashMap<>();
+            fields.put("status", saved.getStatus());
+            fields.put("scanned", String.valueOf(saved.getScanned()));
+            fields.put("missing", String.valueOf(saved.getMissing()));
+            fields.put("stale", String.valueOf(saved.getStale()));
+            fields.put("orphaned", String.valueOf(saved.getOrphaned()));
+            fields.put("deferred", String.valueOf(saved.getDeferred()));
+            fields.put("repaired", String.valueOf(saved.getRepaired()));
+            fields.put("failed", String.valueOf(saved.getFailed()));
+            fields.put("endTime", saved.getEndTime().toString());
+            if (saved.getMessage() != null) {
+                fields.put("message", saved.getMessage());
+            }
+            stringRedisTemplate.delete(REPORT_KEY);
+            stringRedisTemplate.opsForHash().putAll(REPORT_KEY, fields);
+        } catch (Exception e) {
+            log.warn("【一致性巡检】保存报告失败: {}", e.getMessage());
+        }
+    }
+
+    private void releaseLock() {
+        try {
+            if (lockOwner.equals(stringRedisTemplate.opsForValue().get(LOCK_KEY))) {
+                stringRedisTemplate.delete(LOCK_KEY);
+            }
+        } catch (Exception e) {
+            log.warn("【一致性巡检】释放锁失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 比对结果：单批的待修复列表，计数可跨批累加
+     */
+    static final class Drift {
+        final List<Long> reindex = new ArrayList<>();
+        final List<IndexedDoc> deletes = new ArrayList<>();
+        long scanned;
+        long missing;
+        long stale;
+        long orphaned;
+        long deferred;
+        long repaired;
+        long failed;
+
+        void add(Drift batch) {
+            scanned += batch.scanned;
+            missing += batch.missing;
+            stale += batch.stale;
+            orphaned += batch.orphaned;
+            deferred += batch.deferred;
+            repaired += batch.repaired;
+            failed += batch.failed;
+        }
+    }
+}
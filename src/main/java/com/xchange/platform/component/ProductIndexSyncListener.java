@@ -0,0 +1,66 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.document.ProductDocument;
+import com.xchange.platform.entity.Product;
+import com.xchange.platform.event.ProductChangedEvent;
+import com.xchange.platform.mapper.ProductMapper;
+import com.xchange.platform.repository.ProductSearchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * 商品修改同步搜索索引（事务提交后同步执行）
+ * 按已提交的MySQL数据重建文档并整体覆盖写入（与重建一致的转换），沿用索引中已有的热度分与搜索权重；
+ * 校区变更时同一次写入删除旧校区路由下的文档；
+ * 先于搜索结果缓存失效执行，失效后的查询不会把修改前的结果重新缓存。
+ * 写入失败只记录日志，由一致性巡检兜底修复
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductIndexSyncListener {
+
+    private final ProductMapper productMapper;
+    private final ProductReindexJob productReindexJob;
+    private final ProductSearchRepository productSearchRepository;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getAction() != ProductChangedEvent.Action.UPDATE) {
+            return;
+        }
+
+        Long productId = event.getProductId();
+        try {
+            Product product = productMapper.selectById(productId);
+            if (product == null) {
+                log.debug("【索引同步跳过】商品已删除: productId={}", productId);
+                return;
+            }
+
+            ProductDocument document = productReindexJob.toDocuments(List.of(product)).get(0);
+            ProductDocument indexed = productSearchRepository.findById(productId);
+            if (indexed != null) {
+                if (indexed.getPopularity() != null) {
+                    document.setPopularity(indexed.getPopularity());
+                }
+                if (indexed.getSearchBoost() != null) {
+                    document.setSearchBoost(indexed.getSearchBoost());
+                }
+            }
+
+            productSearchRepository.save(document, event.getPreviousCampus());
+            log.info("【索引同步】商品修改已写入搜索索引: productId={}", productId);
+        } catch (Exception e) {
+            log.error("【索引同步失败】productId={}, error={}", productId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.mapper.ProductMapper;
+import com.xchange.platform.repository.ProductSearchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品热度分离线计算任务
+ * 热度分 = (1 + ln(1 + 近期下单次数) + 0.2 × ln(1 + 浏览量)) × 0.5^(发布天数 / 半衰期)，
+ * 按较慢的节奏全量计算后批量局部更新到搜索索引；搜索时只读取该数值字段，浏览、下单不会实时写索引
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductPopularityJob {
+
+    private static final String LOCK_KEY = "search:popularity:lock";
+    private static final long LOCK_TTL_MINUTES = 30;
+
+    // 热度半衰期（天）：发布7天后同等下单数的热度减半
+    private static final double HALF_LIFE_DAYS = 7.0;
+
+    // 下单次数统计窗口（天）
+    private static final int ORDER_WINDOW_DAYS = 30;
+
+    // 浏览量权重：浏览远比下单廉价，只作为次要信号
+    private static final double VIEW_WEIGHT = 0.2;
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ProductMapper productMapper;
+    private final ProductSearchRepository productSearchRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String lockOwner = UUID.randomUUID().toString();
+
+    @Scheduled(cron = "${search.popularity.cron:0 30 * * * ?}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("【热度分】计算失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 全量计算并写入热度分（多实例部署时只有一个实例执行）
+     * @return 更新的商品数，未获取到锁时返回-1
+     */
+    public long refresh() {
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(LOCK_KEY, lockOwner, LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.info("【热度分】其他实例正在计算，跳过");
+            return -1;
+        }
+
+        long start = System.currentTimeMillis();
+        long updated = 0;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime since = now.minusDays(ORDER_WINDOW_DAYS);
+            long afterId = 0;
+
+            while (true) {
+                List<Map<String, Object>> rows = productMapper.selectPopularitySource(afterId, since, BATCH_SIZE);
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                Map<Long, Double> scores = new HashMap<>(rows.size() * 2);
+                for (Map<String, Object> row : rows) {
+                    Long id = ((Number) row.get("id")).longValue();
+                    long views = row.get("views") == null ? 0 : ((Number) row.get("views")).longValue();
+                    long orders = row.get("orders") == null ? 0 : ((Number) row.get("orders")).longValue();
+                    scores.put(id, score(orders, views, toLocalDateTime(row.get("createTime")), now));
+                    afterId = Math.max(afterId, id);
+                }
+                productSearchRepository.updatePopularity(scores);
+                updated += scores.size();
+
+                if (rows.size() < BATCH_SIZE) {
+                    break;
+                }
+            }
+        } finally {
+            if (lockOwner.equals(stringRedisTemplate.opsForValue().get(LOCK_KEY))) {
+                stringRedisTemplate.delete(LOCK_KEY);
+            }
+        }
+
+        log.info("【热度分】计算完成: 更新{}个商品, 耗时{}ms", updated, System.currentTimeMillis() - start);
+        return updated;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    /**
+     * 热度分：下单次数、浏览量取对数防止爆款独占，再按发布时间指数衰减
+     */
+    public static double score(long orders, long views, LocalDateTime createTime, LocalDateTime now) {
+        double base = 1 + Math.log1p(Math.max(orders, 0)) + VIEW_WEIGHT * Math.log1p(Math.max(views, 0));
+        if (createTime == null) {
+            return base;
+        }
+        double ageDays = Math.max(Duration.between(createTime, now).toMinutes(), 0) / (24.0 * 60);
+        return base * Math.pow(0.5, ageDays / HALF_LIFE_DAYS);
+    }
+}
@@ -0,0 +1,608 @@
+package com.xchange.platform.component;
+
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkIngester;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkListener;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.xchange.platform.document.ProductDocument;
+import com.xchange.platform.entity.Product;
+import com.xchange.platform.entity.ProductImage;
+import com.xchange.platform.mapper.ProductImageMapper;
+import com.xchange.platform.mapper.ProductMapper;
+import com.xchange.platform.repository.ProductESRepository;
+import com.xchange.platform.repository.ProductESRepository.IndexedDoc;
+import com.xchange.platform.repository.ProductLuceneRepository;
+import com.xchange.platform.vo.ReindexProgressVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 商品全量重建索引任务（后台线程执行，可断点续跑，蓝绿切换不影响线上搜索）
+ * 1. 创建新版本物理索引 xchange_products_v{n}，开启双写：增量变更同时写入别名与新索引
+ * 2. 按ID键集分页读取商品，每批图片用一条 IN 查询加载
+ * 3. 文档以 create 方式交给 BulkIngester 并发写入新索引，在途请求满时读取线程阻塞（背压）；
+ *    已被双写写入的文档返回409，视为成功（双写的数据更新）
+ * 4. 导入期间新索引设为 refresh_interval=-1、副本0，结束后恢复
+ * 5. 每批全部写入成功后推进检查点并记录到Redis，进程退出后可从检查点续跑
+ * 6. 按ID区间比对新索引与MySQL，删除导入期间已被删除的商品（读取后才删除的商品，其 create 可能晚于双写的删除到达）
+ * 7. 校验新索引文档数与MySQL一致后原子切换别名，保留上一版本索引用于回滚
+ * 嵌入式Lucene后端（search.backend=lucene）没有别名，逐批覆盖写入本地索引，全量完成后清理本次未写入的旧文档
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductReindexJob {
+
+    private static final String CHECKPOINT_KEY = "search:reindex:checkpoint";
+    static final String LOCK_KEY = "search:reindex:lock";
+
+    // 每批读取商品数
+    private static final int BATCH_SIZE = 500;
+
+    // 单个bulk请求的文档数、最大在途bulk请求数
+    private static final int BULK_MAX_OPERATIONS = 1000;
+    private static final int BULK_MAX_CONCURRENT = 4;
+
+    // 分布式锁、双写标记有效期（每批续期）
+    private static final long LOCK_TTL_MINUTES = 10;
+
+    // 切换前允许的文档数差异：max(10, 0.1%)，覆盖校验期间的并发上下架
+    private static final long COUNT_TOLERANCE_MIN = 10;
+    private static final double COUNT_TOLERANCE_RATIO = 0.001;
+
+    private final ProductMapper productMapper;
+    private final ProductImageMapper productImageMapper;
+    private final ProductESRepository productESRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SearchResultCache searchResultCache;
+    private final SuggestionIndex suggestionIndex;
+    private final ObjectProvider<ProductLuceneRepository> luceneRepository;
+    private final ProductPopularityJob productPopularityJob;
+
+    private final String lockOwner = UUID.randomUUID().toString();
+
+    // ===== 当前任务状态 =====
+    private volatile boolean running;
+    private volatile String status = "IDLE";
+    private volatile String targetIndex;
+    private volatile String message;
+    private volatile LocalDateTime startTime;
+    private volatile LocalDateTime endTime;
+    private volatile long total;
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // 批次末尾ID -> 尚未确认的文档数；按ID顺序连续清零的批次推进检查点
+    private final ConcurrentSkipListMap<Long, AtomicInteger> pendingBatches = new ConcurrentSkipListMap<>();
+    private volatile long checkpointId;
+
+    /**
+     * 启动重建
+     * @param resume true: 从上次检查点续跑；false: 创建新版本索引后从头开始（线上别名不受影响）
+     */
+    public synchronized ReindexProgressVO start(boolean resume) {
+        if (running) {
+            throw new RuntimeException("重建任务正在执行中");
+        }
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(LOCK_KEY, lockOwner, LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+        if (!Boolean.TRUE.equals(locked)) {
+            throw new RuntimeException("其他节点正在执行重建任务");
+        }
+
+        ProductLuceneRepository lucene = luceneRepository.getIfAvailable();
+        long startAfter = 0;
+        String index = null;
+        try {
+            if (lucene != null) {
+                startAfter = resume ? embeddedCheckpoint() : 0;
+            } else if (resume) {
+                Map<Object, Object> checkpoint = stringRedisTemplate.opsForHash().entries(CHECKPOINT_KEY);
+                String savedIndex = (String) checkpoint.get("targetIndex");
+                // 双写标记已过期说明中断期间的增量变更未写入新索引，只能从头重建
+                if (!checkpoint.isEmpty() && !"COMPLETED".equals(checkpoint.get("status"))
+                        && savedIndex != null && savedIndex.equals(productESRepository.buildingIndex())
+                        && productESRepository.indexExists(savedIndex)) {
+                    startAfter = Long.parseLong((String) checkpoint.get("checkpointId"));
+                    index = savedIndex;
+                }
+            }
+            if (lucene == null) {
+                if (index == null) {
+                    productESRepository.createIndex();
+                    index = productESRepository.nextIndexName();
+                    productESRepository.createPhysicalIndex(index);
+                }
+                productESRepository.startDualWrite(index, LOCK_TTL_MINUTES);
+            }
+        } catch (RuntimeException e) {
+            releaseLock();
+            throw e;
+        }
+
+        running = true;
+        targetIndex = index;
+        status = "RUNNING";
+        message = startAfter > 0 ? "从检查点续跑: id>" + startAfter : null;
+        startTime = LocalDateTime.now();
+        endTime = null;
+        total = productMapper.selectCount(null);
+        read.set(0);
+        indexed.set(0);
+        failed.set(0);
+        pendingBatches.clear();
+        checkpointId = startAfter;
+        saveCheckpoint();
+
+        long from = startAfter;
+        Thread worker = new Thread(() -> {
+            if (lucene != null) {
+                runEmbedded(lucene, from);
+            } else {
+                run(from);
+            }
+        }, "product-reindex");
+        worker.setDaemon(true);
+        worker.start();
+
+        log.info("【索引重建】任务已启动: resume={}, targetIndex={}, startAfter={}, total={}",
+                resume, index, startAfter, total);
+        return progress();
+    }
+
+    /**
+     * 查询进度（本节点无任务时读取Redis检查点）
+     */
+    public ReindexProgressVO progress() {
+        if (running || !"IDLE".equals(status)) {
+            return ReindexProgressVO.builder()
+                    .status(status)
+                    .targetIndex(targetIndex)
+                    .liveIndex(liveIndex())
+                    .checkpointId(checkpointId)
+                    .total(total)
+                    .read(read.get())
+                    .indexed(indexed.get())
+                    .failed(failed.get())
+                    .startTime(startTime)
+                    .endTime(endTime)
+                    .message(message)
+                    .build();
+        }
+
+        Map<Object, Object> checkpoint = stringRedisTemplate.opsForHash().entries(CHECKPOINT_KEY);
+        if (checkpoint.isEmpty()) {
+            return ReindexProgressVO.builder().status("IDLE").build();
+        }
+        String savedStatus = (String) checkpoint.get("status");
+        if ("RUNNING".equals(savedStatus) && !Boolean.TRUE.equals(stringRedisTemplate.hasKey(LOCK_KEY))) {
+            savedStatus = "INTERRUPTED";
+        }
+        return ReindexProgressVO.builder()
+                .status(savedStatus)
+                .targetIndex((String) checkpoint.get("targetIndex"))
+                .liveIndex(liveIndex())
+                .checkpointId(Long.parseLong((String) checkpoint.get("checkpointId")))
+                .indexed(Long.parseLong((String) checkpoint.get("indexed")))
+                .failed(Long.parseLong((String) checkpoint.get("failed")))
+                .build();
+    }
+
+    /**
+     * 回滚：别名切回上一版本索引（切换后保留的旧索引）
+     */
+    public synchronized String rollback() {
+        if (running) {
+            throw new RuntimeException("重建任务正在执行中，无法回滚");
+        }
+        if (luceneRepository.getIfAvailable() != null) {
+            throw new RuntimeException("嵌入式搜索后端不支持回滚");
+        }
+        List<String> live = productESRepository.currentIndices();
+        List<String> versions = productESRepository.versionedIndices();
+        int position = live.size() == 1 ? versions.indexOf(live.get(0)) : -1;
+        if (position <= 0) {
+            throw new RuntimeException("没有可回滚的上一版本索引");
+        }
+
+        String previous = versions.get(position - 1);
+        productESRepository.switchAlias(previous);
+        searchResultCache.bumpGeneration();
+        suggestionIndex.reload();
+        log.info("【索引重建】已回滚: {} -> {}", live.get(0), previous);
+        return previous;
+    }
+
+    private void run(long startAfter) {
+        String index = targetIndex;
+        String[] originalSettings = null;
+        boolean switched = false;
+        try {
+            // 等待所有节点感知双写目标后再扫描，之后的增量变更不会漏写新索引
+            Thread.sleep(ProductESRepository.DUAL_WRITE_REFRESH_MS * 2);
+
+            originalSettings = productESRepository.getRefreshAndReplicas(index);
+            productESRepository.updateRefreshAndReplicas(index, "-1", "0");
+
+            try (BulkIngester<Long> ingester = productESRepository.createBulkIngester(
+                    new ReindexListener(), BULK_MAX_OPERATIONS, BULK_MAX_CONCURRENT)) {
+
+                long lastId = startAfter;
+                while (true) {
+                    List<Product> products = productMapper.selectList(new LambdaQueryWrapper<Product>()
+                            .gt(Product::getId, lastId)
+                            .orderByAsc(Product::getId)
+                            .last("LIMIT " + BATCH_SIZE));
+                    if (products.isEmpty()) {
+                        break;
+                    }
+
+                    Map<Long, List<ProductImage>> images = loadImages(products);
+                    long batchEnd = products.get(products.size() - 1).getId();
+                    pendingBatches.put(batchEnd, new AtomicInteger(products.size()));
+
+                    for (Product product : products) {
+                        ingester.add(productESRepository.createOperation(index,
+                                convertToDocument(product, images.getOrDefault(product.getId(), List.of()))), batchEnd);
+                    }
+
+                    read.addAndGet(products.size());
+                    lastId = batchEnd;
+                    stringRedisTemplate.expire(LOCK_KEY, LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+                    productESRepository.renewDualWrite(LOCK_TTL_MINUTES);
+                    log.debug("【索引重建】已读取: lastId={}, read={}", lastId, read.get());
+                }
+            } // close() 发送剩余文档并等待全部在途请求完成
+
+            if (failed.get() > 0) {
+                status = "FAILED";
+                message = "部分文档写入失败，可从检查点续跑";
+            } else {
+                productESRepository.updateRefreshAndReplicas(index, originalSettings[0], originalSettings[1]);
+                originalSettings = null;
+                productESRepository.refresh(index);
+                if (purgeDeleted(index) > 0) {
+                    productESRepository.refresh(index);
+                }
+                verifyCount(index);
+                productESRepository.switchAlias(index);
+                switched = true;
+                dropStaleIndices(index);
+                refreshPopularity();
+                status = "COMPLETED";
+                message = null;
+            }
+            log.info("【索引重建】任务结束: status={}, read={}, indexed={}, failed={}",
+                    status, read.get(), indexed.get(), failed.get());
+        } catch (Exception e) {
+            status = "FAILED";
+            message = e.getMessage();
+            log.error("【索引重建】任务失败: {}", e.getMessage(), e);
+        } finally {
+            if (originalSettings != null) {
+                try {
+                    productESRepository.updateRefreshAndReplicas(index, originalSettings[0], originalSettings[1]);
+                } catch (Exception e) {
+                    log.error("【索引重建】恢复索引设置失败: {}", e.getMessage());
+                }
+            }
+            // 成功切换后结束双写；失败时保留双写（随锁过期），便于从检查点续跑
+            if (switched) {
+                productESRepository.stopDualWrite();
+            }
+            endTime = LocalDateTime.now();
+            saveCheckpoint();
+            running = false;
+            releaseLock();
+
+            if (switched) {
+                searchResultCache.bumpGeneration();
+                suggestionIndex.reload();
+            }
+        }
+    }
+
+    /**
+     * 嵌入式后端：逐批覆盖写入（每批同步完成后推进检查点），全量完成后删除本次未覆盖的文档
+     */
+    private void runEmbedded(ProductLuceneRepository lucene, long startAfter) {
+        long startedAt = System.currentTimeMillis();
+        try {
+            long lastId = startAfter;
+            while (true) {
+                List<Product> products = productMapper.selectList(new LambdaQueryWrapper<Product>()
+                        .gt(Product::getId, lastId)
+                        .orderByAsc(Product::getId)
+                        .last("LIMIT " + BATCH_SIZE));
+                if (products.isEmpty()) {
+                    break;
+                }
+
+                Map<Long, List<ProductImage>> images = loadImages(products);
+                lucene.saveAll(products.stream()
+                        .map(product -> convertToDocument(product, images.getOrDefault(product.getId(), List.of())))
+                        .collect(Collectors.toList()));
+
+                read.addAndGet(products.size());
+                indexed.addAndGet(products.size());
+                lastId = products.get(products.size() - 1).getId();
+                checkpointId = lastId;
+                saveCheckpoint();
+                stringRedisTemplate.expire(LOCK_KEY, LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+            }
+
+            // 续跑时无法判断检查点之前的文档是否为本次写入，只在完整重建后清理
+            if (startAfter == 0) {
+                long purged = lucene.deleteIndexedBefore(startedAt);
+                log.info("【索引重建】已清理MySQL中不存在的文档: {}", purged);
+            }
+            lucene.refresh();
+            refreshPopularity();
+
+            status = "COMPLETED";
+            message = null;
+            log.info("【索引重建】嵌入式索引重建完成: read={}, indexed={}", read.get(), indexed.get());
+        } catch (Exception e) {
+            status = "FAILED";
+            message = e.getMessage();
+            log.error("【索引重建】任务失败: {}", e.getMessage(), e);
+        } finally {
+            endTime = LocalDateTime.now();
+            saveCheckpoint();
+            running = false;
+            releaseLock();
+
+            searchResultCache.bumpGeneration();
+            suggestionIndex.reload();
+        }
+    }
+
+    private long embeddedCheckpoint() {
+        Map<Object, Object> checkpoint = stringRedisTemplate.opsForHash().entries(CHECKPOINT_KEY);
+        if (checkpoint.isEmpty() || "COMPLETED".equals(checkpoint.get("status"))) {
+            return 0;
+        }
+        return Long.parseLong((String) checkpoint.get("checkpointId"));
+    }
+
+    /**
+     * 切换前清理：按ID区间比对新索引与MySQL（逻辑删除的商品不在结果中），删除MySQL中已不存在的文档
+     * 清理期间发生的删除由双写同步写入新索引
+     * @return 删除的文档数
+     */
+    private long purgeDeleted(String index) {
+        long purged = 0;
+        long lastId = 0;
+        while (true) {
+            List<Long> ids = productMapper.selectList(new LambdaQueryWrapper<Product>()
+                            .select(Product::getId)
+                            .gt(Product::getId, lastId)
+                            .orderByAsc(Product::getId)
+                            .last("LIMIT " + BATCH_SIZE))
+                    .stream().map(Product::getId).collect(Collectors.toList());
+            // 最后一批读到索引末尾，覆盖MySQL最大ID之后的文档
+            boolean last = ids.size() < BATCH_SIZE;
+            long toId = last ? Long.MAX_VALUE : ids.get(ids.size() - 1);
+
+            Set<Long> existing = new HashSet<>(ids);
+            List<IndexedDoc> deleted = productESRepository.indexedDocs(index, lastId, toId).stream()
+                    .filter(doc -> !existing.contains(doc.id()))
+                    .collect(Collectors.toList());
+            if (!deleted.isEmpty()) {
+                int failures = productESRepository.deleteDocs(index, deleted);
+                if (failures > 0) {
+                    throw new RuntimeException("清理已删除商品失败: " + failures + "个文档");
+                }
+                purged += deleted.size();
+            }
+
+            if (last) {
+                break;
+            }
+            lastId = toId;
+            stringRedisTemplate.expire(LOCK_KEY, LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+            productESRepository.renewDualWrite(LOCK_TTL_MINUTES);
+        }
+        log.info("【索引重建】已清理导入期间删除的商品: {}", purged);
+        return purged;
+    }
+
+    /**
+     * 切换前校验：新索引文档数与MySQL商品数一致（允许少量并发变更带来的差异）
+     */
+    private void verifyCount(String index) {
+        long expected = productMapper.selectCount(null);
+        long actual = productESRepository.count(index);
+        long tolerance = Math.max(COUNT_TOLERANCE_MIN, (long) (expected * COUNT_TOLERANCE_RATIO));
+        if (Math.abs(expected - actual) > tolerance) {
+            throw new RuntimeException("文档数校验失败: MySQL=" + expected + ", " + index + "=" + actual);
+        }
+        log.info("【索引重建】文档数校验通过: MySQL={}, {}={}", expected, index, actual);
+    }
+
+    /**
+     * 只保留当前索引和上一版本（回滚用），更早的版本删除
+     */
+    private void dropStaleIndices(String liveIndex) {
+        List<String> versions = productESRepository.versionedIndices();
+        int position = versions.indexOf(liveIndex);
+        for (int i = 0; i < position - 1; i++) {
+            try {
+                productESRepository.deleteIndex(versions.get(i));
+            } catch (Exception e) {
+                log.warn("【索引重建】删除旧索引失败: index={}, error={}", versions.get(i), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 重建时只写入按发布时间衰减的初始热度分，完成后立即补算一次完整热度分，不等下一轮定时任务
+     */
+    private void refreshPopularity() {
+        try {
+            productPopularityJob.refresh();
+        } catch (Exception e) {
+            log.warn("【索引重建】热度分补算失败，等待定时任务: {}", e.getMessage());
+        }
+    }
+
+    private String liveIndex() {
+        if (luceneRepository.getIfAvailable() != null) {
+            return null;
+        }
+        try {
+            List<String> live = productESRepository.currentIndices();
+            return live.isEmpty() ? null : String.join(",", live);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 按重建的方式转换一批商品（一致性巡检修复时复用）
+     */
+    List<ProductDocument> toDocuments(List<Product> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<ProductImage>> images = loadImages(products);
+        return products.stream()
+                .map(product -> convertToDocument(product, images.getOrDefault(product.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 批量加载图片：一条 IN 查询，按商品分组（与单商品查询的排序一致）
+     */
+    private Map<Long, List<ProductImage>> loadImages(List<Product> products) {
+        List<Long> ids = products.stream().map(Product::getId).collect(Collectors.toList());
+        List<ProductImage> images = productImageMapper.selectList(new LambdaQueryWrapper<ProductImage>()
+                .in(ProductImage::getProductId, ids)
+                .orderByAsc(ProductImage::getSortOrder)
+                .orderByDesc(ProductImage::getCreateTime));
+        return images.stream().collect(Collectors.groupingBy(ProductImage::getProductId));
+    }
+
+    private ProductDocument convertToDocument(Product product, List<ProductImage> images) {
+        String coverImageUrl = images.stream()
+                .filter(image -> Integer.valueOf(1).equals(image.getImageType())) // 封面图取最新一张
+                .max(Comparator.comparing(ProductImage::getCreateTime,
+                        Comparator.nullsFirst(Comparator.naturalOrder())))
+                .map(ProductImage::getImageUrl)
+                .orElse(null);
+
+        return ProductDocument.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .stock(product.getStock())
+                .soldOut(product.getStock() != null && product.getStock() <= 0)
+                .campusLocation(product.getCampusLocation())
+                .status(product.getStatus())
+                .sellerId(product.getSellerId())
+                .coverImageUrl(coverImageUrl)
+                .detailImageUrls(images.stream().map(ProductImage::getImageUrl).collect(Collectors.toList()))
+                .createTime(product.getCreateTime())
+                .updateTime(product.getUpdateTime())
+                .viewCount(product.getViewCount())
+                .popularity(ProductPopularityJob.score(0, 0, product.getCreateTime(), LocalDateTime.now()))
+                .searchBoost(1)  // 默认搜索权重
+                .build();
+    }
+
+    /**
+     * 推进检查点：从最小批次开始，连续全部确认的批次出队
+     * 有失败文档的批次不会清零，检查点停在它之前，续跑时重新写入
+     */
+    private synchronized void advanceCheckpoint() {
+        Map.Entry<Long, AtomicInteger> first;
+        boolean advanced = false;
+        while ((first = pendingBatches.firstEntry()) != null && first.getValue().get() == 0) {
+            checkpointId = first.getKey();
+            pendingBatches.remove(first.getKey());
+            advanced = true;
+        }
+        if (advanced) {
+            saveCheckpoint();
+        }
+    }
+
+    private void saveCheckpoint() {
+        try {
+            Map<String, String> checkpoint = new HashMap<>();
+            checkpoint.put("checkpointId", String.valueOf(checkpointId));
+            checkpoint.put("indexed", String.valueOf(indexed.get()));
+            checkpoint.put("failed", String.valueOf(failed.get()));
+            checkpoint.put("status", status);
+            if (targetIndex != null) {
+                checkpoint.put("targetIndex", targetIndex);
+            }
+            stringRedisTemplate.opsForHash().putAll(CHECKPOINT_KEY, checkpoint);
+        } catch (Exception e) {
+            log.warn("【索引重建】保存检查点失败: {}", e.getMessage());
+        }
+    }
+
+    private void releaseLock() {
+        try {
+            if (lockOwner.equals(stringRedisTemplate.opsForValue().get(LOCK_KEY))) {
+                stringRedisTemplate.delete(LOCK_KEY);
+            }
+        } catch (Exception e) {
+            log.warn("【索引重建】释放锁失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * bulk 回调：统计成功/失败，成功的文档计入所属批次
+     */
+    private class ReindexListener implements BulkListener<Long> {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request, List<Long> contexts) {
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, List<Long> contexts, BulkResponse response) {
+            List<BulkResponseItem> items = response.items();
+            for (int i = 0; i < items.size(); i++) {
+                // 409：双写已写入更新的版本
+                if (items.get(i).error() == null || items.get(i).status() == 409) {
+                    indexed.incrementAndGet();
+                    pendingBatches.get(contexts.get(i)).decrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                    log.error("【索引重建】文档写入失败: id={}, error={}", items.get(i).id(), items.get(i).error().reason());
+                }
+            }
+            advanceCheckpoint();
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, List<Long> contexts, Throwable failure) {
+            failed.addAndGet(contexts.size());
+            log.error("【索引重建】bulk请求失败: count={}, error={}", contexts.size(), failure.getMessage());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.xchange.platform.component;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.xchange.platform.entity.Product;
+import com.xchange.platform.mapper.ProductMapper;
+import com.xchange.platform.repository.ProductSearchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 商品浏览量统计
+ * 详情请求只累加本地分段计数器（LongAdder），不触达MySQL，避免热门商品的行锁热点：
+ * 1. 每5秒将本地增量以一次 pipeline 的 HINCRBY 写入Redis增量哈希，访客写入商品的 HyperLogLog（独立访客去重）；
+ * 2. 每分钟由一个实例取走增量哈希，每批一条 UPDATE ... CASE 累加到MySQL，再以一次bulk局部更新同步到搜索索引
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductViewCounter {
+
+    static final String DELTA_KEY = "product:view:delta";
+    static final String PERSISTING_KEY = "product:view:delta:persisting";
+    static final String UV_KEY_PREFIX = "product:view:uv:";
+
+    private static final String PERSIST_LOCK_KEY = "product:view:persist:lock";
+    private static final long PERSIST_LOCK_TTL_SECONDS = 120;
+
+    // 每条 UPDATE ... CASE 语句最多包含的商品数
+    private static final int PERSIST_BATCH_SIZE = 500;
+
+    // 每个商品每个刷新周期最多缓存的访客数，超出部分只计浏览量
+    private static final int MAX_VIEWERS_PER_FLUSH = 1000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductMapper productMapper;
+    private final ProductSearchRepository productSearchRepository;
+
+    private final String lockOwner = UUID.randomUUID().toString();
+
+    // 当前周期的计数窗口，刷新时整体替换
+    private volatile ConcurrentHashMap<Long, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 单个商品在一个刷新周期内的浏览量与访客
+     */
+    private static final class Window {
+        final LongAdder views = new LongAdder();
+        final Set<String> viewers = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * 记录一次浏览（详情接口调用，只做内存操作）
+     * @param viewer 访客标识（为空时只计浏览量）
+     */
+    public void record(Long productId, String viewer) {
+        Window window = windows.computeIfAbsent(productId, id -> new Window());
+        window.views.increment();
+        if (viewer != null && window.viewers.size() < MAX_VIEWERS_PER_FLUSH) {
+            window.viewers.add(viewer);
+        }
+    }
+
+    /**
+     * 独立访客数（HyperLogLog估算，标准误差约0.81%）
+     */
+    public long uniqueViewers(Long productId) {
+        try {
+            Long count = stringRedisTemplate.opsForHyperLogLog().size(UV_KEY_PREFIX + productId);
+            return count == null ? 0 : count;
+        } catch (Exception e) {
+            log.warn("【浏览统计】读取独立访客数失败: productId={}, error={}", productId, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 本地增量写入Redis：替换窗口后一次 pipeline 发送全部 HINCRBY 与 PFADD；
+     * 替换瞬间仍在写旧窗口的极少量计数可能遗漏，浏览量允许这种误差
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void flush() {
+        if (windows.isEmpty()) {
+            return;
+        }
+        Map<Long, Window> flushing = windows;
+        windows = new ConcurrentHashMap<>();
+
+        byte[] deltaKey = DELTA_KEY.getBytes(StandardCharsets.UTF_8);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                flushing.forEach((productId, window) -> write(connection, deltaKey, productId, window));
+                return null;
+            });
+            log.debug("【浏览统计】已写入Redis: 商品数={}", flushing.size());
+        } catch (Exception e) {
+            // Redis不可用时并回下一周期，不丢计数
+            log.warn("【浏览统计】写入Redis失败，并入下一周期: {}", e.getMessage());
+            flushing.forEach((productId, window) -> {
+                Window current = windows.computeIfAbsent(productId, id -> new Window());
+                current.views.add(window.views.sum());
+                current.viewers.addAll(window.viewers);
+            });
+        }
+    }
+
+    private void write(RedisConnection connection, byte[] deltaKey, Long productId, Window window) {
+        long views = window.views.sum();
+        if (views > 0) {
+            connection.hashCommands().hIncrBy(deltaKey, productId.toString().getBytes(StandardCharsets.UTF_8), views);
+        }
+        if (!window.viewers.isEmpty()) {
+            byte[][] viewers = window.viewers.stream()
+                    .map(viewer -> viewer.getBytes(StandardCharsets.UTF_8))
+                    .toArray(byte[][]::new);
+            connection.hyperLogLogCommands().pfAdd((UV_KEY_PREFIX + productId).getBytes(StandardCharsets.UTF_8), viewers);
+        }
+    }
+
+    /**
+     * Redis增量落库（多实例部署时只有一个实例执行）：
+     * 先将增量哈希 RENAME 为处理中，新的浏览继续写入新的增量哈希；
+     * 每批MySQL累加成功后删除对应字段，再以MySQL累计值同步搜索索引（幂等，失败等下次浏览后补上）
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 30000)
+    public void persist() {
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(PERSIST_LOCK_KEY, lockOwner, PERSIST_LOCK_TTL_SECONDS, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+
+        try {
+            // 上次落库中断时遗留的处理中哈希优先处理
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(PERSISTING_KEY))) {
+                if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(DELTA_KEY))) {
+                    return;
+                }
+                stringRedisTemplate.rename(DELTA_KEY, PERSISTING_KEY);
+            }
+
+            List<Map.Entry<String, String>> entries = new ArrayList<>(
+                    stringRedisTemplate.<String, String>opsForHash().entries(PERSISTING_KEY).entrySet());
+            long total = 0;
+            for (int from = 0; from < entries.size(); from += PERSIST_BATCH_SIZE) {
+                Map<Long, Long> deltas = entries.subList(from, Math.min(from + PERSIST_BATCH_SIZE, entries.size()))
+                        .stream()
+                        .collect(Collectors.toMap(
+                                entry -> Long.valueOf(entry.getKey()),
+                                entry -> Long.valueOf(entry.getValue())));
+                productMapper.incrementViewCounts(deltas);
+                // 逐批确认：已累加的字段立即删除，中断后只重试剩余部分（最后一个字段删除后哈希自动消失）
+                stringRedisTemplate.opsForHash().delete(PERSISTING_KEY,
+                        deltas.keySet().stream().map(String::valueOf).toArray());
+
+                syncSearchIndex(deltas.keySet());
+                total += deltas.values().stream().mapToLong(Long::longValue).sum();
+            }
+            log.info("【浏览统计】浏览量已落库: 商品数={}, 浏览量={}", entries.size(), total);
+        } catch (Exception e) {
+            log.error("【浏览统计】浏览量落库失败: {}", e.getMessage(), e);
+        } finally {
+            if (lockOwner.equals(stringRedisTemplate.opsForValue().get(PERSIST_LOCK_KEY))) {
+                stringRedisTemplate.delete(PERSIST_LOCK_KEY);
+            }
+        }
+    }
+
+    private void syncSearchIndex(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, Long> viewCounts = productMapper.selectList(new LambdaQueryWrapper<Product>()
+                            .select(Product::getId, Product::getViewCount)
+                            .in(Product::getId, productIds))
+                    .stream()
+                    .filter(product -> product.getViewCount() != null)
+                    .collect(Collectors.toMap(Product::getId, Product::getViewCount));
+            productSearchRepository.updateViewCounts(viewCounts);
+        } catch (Exception e) {
+            log.warn("【浏览统计】同步搜索索引失败: {}", e.getMessage());
+        }
+    }
+}
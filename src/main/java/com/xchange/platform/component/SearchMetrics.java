@@ -0,0 +1,204 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.config.SearchProperties;
+import com.xchange.platform.dto.ProductSearchDTO;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 搜索引擎调用耗时统计与慢查询日志
+ * 每次ES调用按 操作 + 查询结构 记录三组直方图：
+ * took（ES服务端执行耗时）、roundTrip（客户端往返耗时，含网络、序列化与反序列化）、overhead（两者之差）；
+ * overhead 高而 took 正常说明瓶颈在网络或反序列化，took 高说明瓶颈在ES本身。
+ * 往返耗时超过阈值的调用按采样率写入慢查询日志（logger: search.slowlog），附带完整请求JSON
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchMetrics {
+
+    private static final Logger SLOW_LOG = LoggerFactory.getLogger("search.slowlog");
+
+    private final SearchProperties searchProperties;
+
+    private final Map<String, Timing> timings = new ConcurrentHashMap<>();
+
+    /**
+     * 一个 操作 + 查询结构 的统计
+     */
+    private static final class Timing {
+        final Histogram took = new Histogram();
+        final Histogram roundTrip = new Histogram();
+        final Histogram overhead = new Histogram();
+        final LongAdder hits = new LongAdder();
+        final LongAdder slow = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * 记录一次成功的调用
+     * @param tookMs   ES返回的 took（没有该字段的接口传null）
+     * @param hits     命中数或处理的文档数
+     * @param request  请求对象，只在写慢查询日志时渲染为JSON
+     */
+    public void record(String operation, String shape, long startNanos, Long tookMs, long hits, Object request) {
+        long roundTripNanos = System.nanoTime() - startNanos;
+        Timing timing = timing(operation, shape);
+        timing.roundTrip.record(roundTripNanos);
+        if (tookMs != null) {
+            long tookNanos = tookMs * 1_000_000;
+            timing.took.record(tookNanos);
+            timing.overhead.record(Math.max(roundTripNanos - tookNanos, 0));
+        }
+        timing.hits.add(hits);
+
+        long roundTripMs = roundTripNanos / 1_000_000;
+        SearchProperties.SlowLog slowLog = searchProperties.getSlowLog();
+        if (roundTripMs < slowLog.getThresholdMs()) {
+            return;
+        }
+        timing.slow.increment();
+        if (ThreadLocalRandom.current().nextDouble() < slowLog.getSampleRate()) {
+            SLOW_LOG.warn("【慢查询】op={}, shape={}, took={}ms, roundTrip={}ms, overhead={}ms, hits={}, request={}",
+                    operation, shape, tookMs == null ? "-" : tookMs, roundTripMs,
+                    tookMs == null ? "-" : Math.max(roundTripMs - tookMs, 0), hits, request);
+        }
+    }
+
+    /**
+     * 记录一次失败的调用（只计往返耗时与失败数）
+     */
+    public void recordFailure(String operation, String shape, long startNanos) {
+        Timing timing = timing(operation, shape);
+        timing.roundTrip.record(System.nanoTime() - startNanos);
+        timing.errors.increment();
+    }
+
+    private Timing timing(String operation, String shape) {
+        return timings.computeIfAbsent(operation + "|" + shape, key -> new Timing());
+    }
+
+    /**
+     * 查询结构：只保留用到了哪些条件，不含取值，基数有限
+     */
+    public static String shape(ProductSearchDTO dto, boolean withFacets) {
+        List<String> parts = new ArrayList<>();
+        parts.add(dto.isCursorMode() ? (StringUtils.isBlank(dto.getCursor()) ? "cursor-first" : "cursor") : "page");
+        if (StringUtils.isNotBlank(dto.getKeyword())) {
+            parts.add("keyword");
+        }
+        if (StringUtils.isNotBlank(dto.getCampusLocation())) {
+            parts.add("campus");
+        }
+        if (dto.getCategoryId() != null) {
+            parts.add("category");
+        }
+        if (dto.getMinPrice() != null || dto.getMaxPrice() != null) {
+            parts.add("price");
+        }
+        if (withFacets) {
+            parts.add("facets");
+        }
+        if (dto.isPopularSort()) {
+            parts.add("popular");
+        }
+        return String.join(",", parts);
+    }
+
+    /**
+     * 统计快照：按 操作|查询结构 分组，耗时单位毫秒
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new TreeMap<>();
+        timings.forEach((key, timing) -> {
+            long count = timing.roundTrip.count();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("count", count);
+            entry.put("errors", timing.errors.sum());
+            entry.put("slow", timing.slow.sum());
+            entry.put("avgHits", count == 0 ? 0 : (double) timing.hits.sum() / count);
+            entry.put("took", timing.took.snapshot());
+            entry.put("roundTrip", timing.roundTrip.snapshot());
+            entry.put("overhead", timing.overhead.snapshot());
+            stats.put(key, entry);
+        });
+        return stats;
+    }
+
+    /**
+     * 固定分桶直方图（桶上界按 1-2-5 递增，单位毫秒），分位数取所在桶的上界
+     */
+    static final class Histogram {
+
+        static final double[] BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+        private final LongAdder[] buckets = new LongAdder[BOUNDS_MS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            double ms = nanos / 1e6;
+            int i = 0;
+            while (i < BOUNDS_MS.length && ms > BOUNDS_MS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            count.increment();
+            sumNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        double percentile(double quantile) {
+            long total = count.sum();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long cumulative = 0;
+            for (int i = 0; i < BOUNDS_MS.length; i++) {
+                cumulative += buckets[i].sum();
+                if (cumulative >= rank) {
+                    return BOUNDS_MS[i];
+                }
+            }
+            return maxNanos.get() / 1e6;
+        }
+
+        Map<String, Object> snapshot() {
+            long total = count.sum();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("count", total);
+            snapshot.put("avg", total == 0 ? 0 : sumNanos.sum() / 1e6 / total);
+            snapshot.put("p50", percentile(0.50));
+            snapshot.put("p95", percentile(0.95));
+            snapshot.put("p99", percentile(0.99));
+            snapshot.put("max", maxNanos.get() / 1e6);
+
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < buckets.length; i++) {
+                histogram.put(i < BOUNDS_MS.length ? "le_" + (long) BOUNDS_MS[i] : "inf", buckets[i].sum());
+            }
+            snapshot.put("buckets", histogram);
+            return snapshot;
+        }
+    }
+}
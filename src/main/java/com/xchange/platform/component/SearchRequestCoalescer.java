@@ -0,0 +1,174 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.dto.ProductSearchDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 相同搜索请求合并（single-flight）
+ * 同一归一化查询正在执行时，后到的请求等待同一个 Future 并共享结果，不再重复查询搜索引擎；
+ * 等待超过 MAX_WAIT_MS 则自行查询，避免被慢查询拖住。突发热词期间搜索引擎QPS约等于不同查询的数量。
+ * 异步版本共享同一个在途 Future，所有等待者都超时或取消后才取消底层查询
+ */
+@Slf4j
+@Component
+public class SearchRequestCoalescer {
+
+    // 跟随者最长等待时间（毫秒）
+    static final long MAX_WAIT_MS = 3000;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Flight> asyncInFlight = new ConcurrentHashMap<>();
+
+    // ===== 统计 =====
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    /**
+     * 一次异步在途查询：共享结果 + 仍在等待的调用方数
+     */
+    private static final class Flight {
+        final CompletableFuture<Object> shared = new CompletableFuture<>();
+        final AtomicInteger waiters = new AtomicInteger();
+        volatile CompletableFuture<?> source;
+    }
+
+    /**
+     * 执行查询：无相同查询在途时由当前线程执行（leader），否则等待在途结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing == null) {
+            leaders.increment();
+            try {
+                T result = loader.get();
+                mine.complete(result);
+                return result;
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+
+        coalesced.increment();
+        try {
+            return (T) existing.get(MAX_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            log.warn("【请求合并】等待超时，单独查询: key={}", key);
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("搜索失败，请稍后重试", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("搜索被中断", e);
+        }
+    }
+
+    /**
+     * 异步执行：无相同查询在途时发起查询（leader），否则挂到在途查询上；
+     * 每个调用方拿到独立的 Future（在 executor 上完成，后续步骤不占用搜索引擎客户端的I/O线程），
+     * 单个调用方超时或取消不影响其他等待者，最后一个等待者放弃时取消底层查询
+     */
+    public <T> CompletableFuture<T> executeAsync(String key, Supplier<CompletableFuture<T>> loader, Executor executor) {
+        Flight mine = new Flight();
+        Flight existing = asyncInFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return attach(existing, executor);
+        }
+
+        leaders.increment();
+        CompletableFuture<T> waiter = attach(mine, executor);
+        CompletableFuture<T> source;
+        try {
+            source = loader.get();
+        } catch (RuntimeException e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        mine.source = source;
+        source.whenComplete((result, error) -> {
+            asyncInFlight.remove(key, mine);
+            if (error != null) {
+                mine.shared.completeExceptionally(error);
+            } else {
+                mine.shared.complete(result);
+            }
+        });
+        // 查询发出前唯一的等待者已放弃
+        if (mine.waiters.get() == 0) {
+            source.cancel(true);
+        }
+        return waiter;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> attach(Flight flight, Executor executor) {
+        flight.waiters.incrementAndGet();
+        CompletableFuture<T> waiter = (CompletableFuture<T>) flight.shared.thenApplyAsync(Function.identity(), executor);
+        waiter.whenComplete((result, error) -> {
+            if (flight.waiters.decrementAndGet() == 0 && !flight.shared.isDone()) {
+                CompletableFuture<?> source = flight.source;
+                if (source != null) {
+                    cancelled.increment();
+                    source.cancel(true);
+                }
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * 商品搜索的合并Key：归一化条件 + 分页模式与游标
+     */
+    public static String searchKey(ProductSearchDTO dto) {
+        return "search:" + SearchResultCache.normalize(dto) +
+                "&m=" + (dto.isCursorMode() ? "cursor" : "page") +
+                "&cur=" + (dto.getCursor() == null ? "" : dto.getCursor());
+    }
+
+    /**
+     * 搜索建议的合并Key
+     */
+    public static String suggestKey(String prefix) {
+        return "suggest:" + prefix.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public Map<String, Object> stats() {
+        long leader = leaders.sum();
+        long follower = coalesced.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("executed", leader);
+        stats.put("coalesced", follower);
+        stats.put("timeouts", timeouts.sum());
+        stats.put("cancelled", cancelled.sum());
+        stats.put("inFlight", inFlight.size() + asyncInFlight.size());
+        stats.put("coalescingRatio", leader + follower == 0 ? 0 : (double) follower / (leader + follower));
+        return stats;
+    }
+}
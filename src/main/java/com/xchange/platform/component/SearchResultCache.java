@@ -0,0 +1,312 @@
+package com.xchange.platform.component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xchange.platform.dto.ProductSearchDTO;
+import com.xchange.platform.event.ProductChangedEvent;
+import com.xchange.platform.vo.ProductFacetsVO;
+import com.xchange.platform.vo.ProductSearchPageVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 商品搜索结果两级缓存（本地 Caffeine + Redis）
+ * 缓存Key = 目录版本号 + 归一化后的查询条件；商品发布/修改/下架时递增全局版本号，旧条目自然失效。
+ * 只缓存 page 模式，cursor 模式的结果与 PIT 绑定，不缓存。
+ * 分面统计只与筛选条件有关（与页码无关），单独按筛选条件缓存，同一筛选状态翻页时不再重复聚合
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchResultCache {
+
+    private static final String GENERATION_KEY = "search:catalog:generation";
+    private static final String RESULT_KEY_PREFIX = "search:result:";
+    private static final String FACETS_KEY_PREFIX = "search:facets:";
+
+    // 本地缓存：容量上限与有效期
+    private static final int LOCAL_MAX_SIZE = 1000;
+    private static final Duration LOCAL_TTL = Duration.ofSeconds(30);
+
+    // Redis 缓存有效期（秒）
+    private static final long REDIS_TTL_SECONDS = 300;
+
+    // 本节点缓存的版本号有效期（毫秒），其他节点的递增最多延迟此时长生效
+    private static final long GENERATION_REFRESH_MS = 1000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Cache<String, ProductSearchPageVO> localCache = Caffeine.newBuilder()
+            .maximumSize(LOCAL_MAX_SIZE)
+            .expireAfterWrite(LOCAL_TTL)
+            .build();
+
+    private final Cache<String, ProductFacetsVO> facetsCache = Caffeine.newBuilder()
+            .maximumSize(LOCAL_MAX_SIZE)
+            .expireAfterWrite(LOCAL_TTL)
+            .build();
+
+    private volatile long generation = -1;
+    private volatile long generationLoadedAt;
+
+    // ===== 统计 =====
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder missLatencyNanos = new LongAdder();
+    private final LongAdder hitLatencyNanos = new LongAdder();
+    private final LongAdder facetHits = new LongAdder();
+    private final LongAdder facetMisses = new LongAdder();
+
+    /**
+     * 读取缓存，未命中时执行查询并回填两级缓存
+     */
+    public ProductSearchPageVO get(ProductSearchDTO dto, Supplier<ProductSearchPageVO> loader) {
+        if (dto.isCursorMode()) {
+            return loader.get();
+        }
+
+        long start = System.nanoTime();
+        String key = resultKey(dto);
+        ProductSearchPageVO cached = lookup(key, start);
+        if (cached != null) {
+            return cached;
+        }
+        return store(key, loader.get(), start);
+    }
+
+    /**
+     * 异步读取：命中时返回已完成的 Future，未命中时在查询完成后回填两级缓存；
+     * 回填在 loader 返回的 Future 完成的线程上执行，loader 不应在搜索引擎客户端的I/O线程上完成
+     */
+    public CompletableFuture<ProductSearchPageVO> getAsync(ProductSearchDTO dto,
+                                                           Supplier<CompletableFuture<ProductSearchPageVO>> loader) {
+        if (dto.isCursorMode()) {
+            return loader.get();
+        }
+
+        long start = System.nanoTime();
+        String key = resultKey(dto);
+        ProductSearchPageVO cached = lookup(key, start);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<ProductSearchPageVO> loading = loader.get();
+        CompletableFuture<ProductSearchPageVO> result = loading.thenApply(page -> store(key, page, start));
+        // 调用方超时或取消时向下传递，释放在途查询
+        result.whenComplete((page, error) -> {
+            if (error != null) {
+                loading.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private String resultKey(ProductSearchDTO dto) {
+        return RESULT_KEY_PREFIX + currentGeneration() + ":" + normalize(dto);
+    }
+
+    private ProductSearchPageVO lookup(String key, long start) {
+        ProductSearchPageVO cached = localCache.getIfPresent(key);
+        if (cached != null) {
+            localHits.increment();
+            hitLatencyNanos.add(System.nanoTime() - start);
+            return cached;
+        }
+
+        cached = readRedis(key, ProductSearchPageVO.class);
+        if (cached != null) {
+            localCache.put(key, cached);
+            redisHits.increment();
+            hitLatencyNanos.add(System.nanoTime() - start);
+        }
+        return cached;
+    }
+
+    private ProductSearchPageVO store(String key, ProductSearchPageVO result, long start) {
+        misses.increment();
+        missLatencyNanos.add(System.nanoTime() - start);
+
+        localCache.put(key, result);
+        writeRedis(key, result);
+        return result;
+    }
+
+    /**
+     * 读取筛选状态对应的分面统计，未缓存返回null
+     */
+    public ProductFacetsVO getFacets(ProductSearchDTO dto) {
+        String key = FACETS_KEY_PREFIX + currentGeneration() + ":" + normalizeFilters(dto);
+
+        ProductFacetsVO cached = facetsCache.getIfPresent(key);
+        if (cached != null) {
+            facetHits.increment();
+            return cached;
+        }
+
+        cached = readRedis(key, ProductFacetsVO.class);
+        if (cached != null) {
+            facetsCache.put(key, cached);
+            facetHits.increment();
+            return cached;
+        }
+        facetMisses.increment();
+        return null;
+    }
+
+    public void putFacets(ProductSearchDTO dto, ProductFacetsVO facets) {
+        if (facets == null) {
+            return;
+        }
+        String key = FACETS_KEY_PREFIX + currentGeneration() + ":" + normalizeFilters(dto);
+        facetsCache.put(key, facets);
+        writeRedis(key, facets);
+    }
+
+    /**
+     * 递增目录版本号
+     */
+    public void bumpGeneration() {
+        try {
+            Long next = stringRedisTemplate.opsForValue().increment(GENERATION_KEY);
+            if (next != null) {
+                generation = next;
+                generationLoadedAt = System.currentTimeMillis();
+            }
+            localCache.invalidateAll();
+            facetsCache.invalidateAll();
+            log.debug("【搜索缓存】目录版本号递增: {}", next);
+        } catch (Exception e) {
+            log.warn("【搜索缓存】递增版本号失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 商品发布、修改、下架后使缓存失效（事务提交后执行）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        bumpGeneration();
+    }
+
+    /**
+     * 缓存统计：命中率及节省的耗时（按未命中平均耗时估算）
+     */
+    public Map<String, Object> stats() {
+        long local = localHits.sum();
+        long redis = redisHits.sum();
+        long miss = misses.sum();
+        long total = local + redis + miss;
+
+        double avgMissMs = miss == 0 ? 0 : missLatencyNanos.sum() / 1e6 / miss;
+        double avgHitMs = (local + redis) == 0 ? 0 : hitLatencyNanos.sum() / 1e6 / (local + redis);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("generation", generation);
+        stats.put("requests", total);
+        stats.put("localHits", local);
+        stats.put("redisHits", redis);
+        stats.put("misses", miss);
+        stats.put("hitRatio", total == 0 ? 0 : (double) (local + redis) / total);
+        stats.put("avgMissLatencyMs", avgMissMs);
+        stats.put("avgHitLatencyMs", avgHitMs);
+        stats.put("savedLatencyMs", (long) ((local + redis) * Math.max(avgMissMs - avgHitMs, 0)));
+        stats.put("localSize", localCache.estimatedSize());
+        stats.put("facetHits", facetHits.sum());
+        stats.put("facetMisses", facetMisses.sum());
+        stats.put("facetLocalSize", facetsCache.estimatedSize());
+        return stats;
+    }
+
+    /**
+     * 归一化查询条件：去空格、转小写、参数按固定顺序拼接，价格按分取整
+     */
+    static String normalize(ProductSearchDTO dto) {
+        return normalizeFilters(dto) +
+                "&p=" + dto.getPageNum() +
+                "&s=" + dto.getPageSize() +
+                "&o=" + (dto.isPopularSort() ? "popular" : "latest") +
+                "&exact=" + Boolean.TRUE.equals(dto.getExactTotal()) +
+                "&f=" + Boolean.TRUE.equals(dto.getFacets());
+    }
+
+    /**
+     * 只含筛选条件的归一化Key（分面缓存使用）
+     */
+    static String normalizeFilters(ProductSearchDTO dto) {
+        return "k=" + normalizeText(dto.getKeyword()) +
+                "&c=" + normalizeText(dto.getCampusLocation()) +
+                "&cat=" + (dto.getCategoryId() == null ? "" : dto.getCategoryId()) +
+                "&min=" + bucketPrice(dto.getMinPrice(), RoundingMode.FLOOR) +
+                "&max=" + bucketPrice(dto.getMaxPrice(), RoundingMode.CEILING);
+    }
+
+    private static String normalizeText(String text) {
+        if (StringUtils.isBlank(text)) {
+            return "";
+        }
+        return StringUtils.normalizeSpace(text).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 价格以分为最小单位：100、100.0、100.00 归为同一个Key，不改变命中的商品集合
+     */
+    private static String bucketPrice(Double price, RoundingMode mode) {
+        if (price == null) {
+            return "";
+        }
+        return BigDecimal.valueOf(price).setScale(2, mode).stripTrailingZeros().toPlainString();
+    }
+
+    private long currentGeneration() {
+        long now = System.currentTimeMillis();
+        if (generation < 0 || now - generationLoadedAt > GENERATION_REFRESH_MS) {
+            try {
+                String value = stringRedisTemplate.opsForValue().get(GENERATION_KEY);
+                generation = value == null ? 0 : Long.parseLong(value);
+            } catch (Exception e) {
+                log.warn("【搜索缓存】读取版本号失败，沿用本地值: {}", e.getMessage());
+                generation = Math.max(generation, 0);
+            }
+            generationLoadedAt = now;
+        }
+        return generation;
+    }
+
+    private <T> T readRedis(String key, Class<T> type) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(key);
+            return json == null ? null : objectMapper.readValue(json, type);
+        } catch (Exception e) {
+            log.warn("【搜索缓存】读取Redis失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, Object value) {
+        try {
+            stringRedisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(value),
+                    REDIS_TTL_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("【搜索缓存】写入Redis失败: {}", e.getMessage());
+        }
+    }
+}
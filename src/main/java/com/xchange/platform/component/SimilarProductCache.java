@@ -0,0 +1,142 @@
+package com.xchange.platform.component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xchange.platform.event.ProductChangedEvent;
+import com.xchange.platform.repository.ProductSearchRepository;
+import com.xchange.platform.vo.ProductListItemVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 相似商品缓存
+ * 每个商品的相似列表单独缓存在Redis（search:similar:{id}），TTL 30分钟；
+ * 只在该商品自身发布、修改、下架后删除，其他商品变更不影响（列表中的库存由调用方实时回填）。
+ * 批量读取时一次 MGET，未命中的商品合并为一次搜索引擎请求
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SimilarProductCache {
+
+    static final String KEY_PREFIX = "search:similar:";
+    private static final long TTL_SECONDS = 1800;
+
+    // 每个商品缓存的相似商品数，接口按需截取
+    public static final int SIMILAR_SIZE = 12;
+
+    private static final TypeReference<List<ProductListItemVO>> LIST_TYPE = new TypeReference<>() {
+    };
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProductSearchRepository productSearchRepository;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public List<ProductListItemVO> get(Long productId) {
+        return getAll(List.of(productId)).getOrDefault(productId, Collections.emptyList());
+    }
+
+    /**
+     * 批量读取（按传入顺序返回）；不在索引中的商品不返回
+     */
+    public Map<Long, List<ProductListItemVO>> getAll(Collection<Long> productIds) {
+        List<Long> ids = productIds.stream().distinct().collect(Collectors.toList());
+        Map<Long, List<ProductListItemVO>> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        List<String> cached = readRedis(ids);
+        for (int i = 0; i < ids.size(); i++) {
+            List<ProductListItemVO> items = cached == null ? null : parse(cached.get(i));
+            if (items != null) {
+                found.put(ids.get(i), items);
+            } else {
+                missing.add(ids.get(i));
+            }
+        }
+        hits.add(found.size());
+        misses.add(missing.size());
+
+        if (!missing.isEmpty()) {
+            Map<Long, List<ProductListItemVO>> loaded = productSearchRepository.findSimilar(missing, SIMILAR_SIZE);
+            found.putAll(loaded);
+            writeRedis(loaded);
+        }
+
+        Map<Long, List<ProductListItemVO>> result = new LinkedHashMap<>();
+        for (Long id : ids) {
+            List<ProductListItemVO> items = found.get(id);
+            if (items != null) {
+                result.put(id, items);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 商品发布、修改、下架后删除它自己的相似列表（事务提交后执行）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        try {
+            stringRedisTemplate.delete(KEY_PREFIX + event.getProductId());
+        } catch (Exception e) {
+            log.warn("【相似商品】删除缓存失败，等待过期: productId={}, error={}", event.getProductId(), e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long hit = hits.sum();
+        long miss = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hit);
+        stats.put("misses", miss);
+        stats.put("hitRatio", hit + miss == 0 ? 0 : (double) hit / (hit + miss));
+        return stats;
+    }
+
+    private List<String> readRedis(List<Long> ids) {
+        try {
+            return stringRedisTemplate.opsForValue().multiGet(ids.stream()
+                    .map(id -> KEY_PREFIX + id)
+                    .collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.warn("【相似商品】读取Redis失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<ProductListItemVO> parse(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, LIST_TYPE);
+        } catch (Exception e) {
+            log.warn("【相似商品】缓存反序列化失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(Map<Long, List<ProductListItemVO>> loaded) {
+        loaded.forEach((productId, items) -> {
+            try {
+                stringRedisTemplate.opsForValue().set(KEY_PREFIX + productId,
+                        objectMapper.writeValueAsString(items), TTL_SECONDS, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("【相似商品】写入Redis失败: productId={}, error={}", productId, e.getMessage());
+            }
+        });
+    }
+}
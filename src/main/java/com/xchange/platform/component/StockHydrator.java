@@ -0,0 +1,67 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.vo.ProductListItemVO;
+import com.xchange.platform.vo.ProductSearchPageVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 搜索结果实时库存回填
+ * 索引中的库存只是写入时的快照，返回前用一次 MGET stock:product:{id} 读取Redis实时库存覆盖；
+ * 缓存中的结果对象不做修改，回填到副本上
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockHydrator {
+
+    private static final String STOCK_KEY_PREFIX = "stock:product:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public ProductSearchPageVO hydrate(ProductSearchPageVO page) {
+        if (page == null || page.getRecords() == null || page.getRecords().isEmpty()) {
+            return page;
+        }
+        return page.toBuilder().records(hydrate(page.getRecords())).build();
+    }
+
+    /**
+     * 批量回填库存；Redis未预热的商品保留索引中的值，Redis不可用时整体降级为索引值
+     */
+    public List<ProductListItemVO> hydrate(List<ProductListItemVO> items) {
+        List<String> keys = items.stream()
+                .map(item -> STOCK_KEY_PREFIX + item.getId())
+                .collect(Collectors.toList());
+
+        List<String> stocks;
+        try {
+            stocks = stringRedisTemplate.opsForValue().multiGet(keys);
+        } catch (Exception e) {
+            log.warn("【库存回填】读取Redis失败，使用索引中的库存: {}", e.getMessage());
+            return items;
+        }
+        if (stocks == null) {
+            return items;
+        }
+
+        List<ProductListItemVO> hydrated = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            ProductListItemVO item = items.get(i);
+            String stock = stocks.get(i);
+            if (stock == null) {
+                hydrated.add(item);
+                continue;
+            }
+            int live = Integer.parseInt(stock);
+            hydrated.add(item.toBuilder().stock(live).soldOut(live <= 0).build());
+        }
+        return hydrated;
+    }
+}
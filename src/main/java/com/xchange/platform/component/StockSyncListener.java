@@ -1,7 +1,7 @@
 package com.xchange.platform.component;
 
 import com.xchange.platform.event.StockUpdatedEvent;
-import com.xchange.platform.utils.ElasticsearchUtil;
+import com.xchange.platform.repository.ProductSearchRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
@@ -11,13 +11,15 @@ import org.springframework.core.annotation.Order;
 
 /**
  * 库存同步监听器（异步）
+ * 实时库存以Redis为准，搜索结果返回前批量读取覆盖；
+ * 搜索索引只在库存过零（售罄/补货）时更新 soldOut 标记，普通下单不再写索引
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class StockSyncListener {
 
-    private final ElasticsearchUtil elasticsearchUtil;
+    private final ProductSearchRepository productSearchRepository;
 
     /**
      * 在事务提交后异步执行
@@ -29,13 +31,18 @@ public class StockSyncListener {
         Long productId = event.getProductId();
         Integer newStock = event.getNewStock();
 
+        if (!event.crossesZero()) {
+            log.debug("【库存同步跳过】未过零: productId={}, {} -> {}", productId, event.getPreviousStock(), newStock);
+            return;
+        }
+
         try {
             log.info("【库存同步任务开始】productId={}, newStock={}", productId, newStock);
 
             // 延迟500ms，避免事务未完全提交
             Thread.sleep(500);
 
-            elasticsearchUtil.updateProductStock(productId, newStock);
+            productSearchRepository.updateSoldOut(productId, newStock <= 0);
 
             log.info("【库存同步任务完成】productId={}", productId);
         } catch (InterruptedException e) {
@@ -0,0 +1,299 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.event.ProductChangedEvent;
+import com.xchange.platform.mapper.ProductMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 进程内搜索建议索引（替代每次按键请求ES completion suggester）
+ * 商品名归一化后按字典序存放在数组中，前缀查询即二分定位区间；
+ * 命中条数超过 SCAN_LIMIT 的“热前缀”预先算好 TopK，其余前缀直接扫描小区间，查询耗时为微秒级。
+ * 快照不可变，重建后整体替换；商品变更先写入数据源，由定时任务合并后重建快照
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SuggestionIndex {
+
+    // 每个前缀返回的最大建议数
+    static final int TOP_K = 10;
+
+    // 区间超过此大小的前缀预计算 TopK
+    static final int SCAN_LIMIT = 256;
+
+    private final ProductMapper productMapper;
+
+    // 数据源：productId -> 名称及热度
+    private volatile Map<Long, Source> sources = new ConcurrentHashMap<>();
+
+    // 全量重载期间的变更，重载完成后重放
+    private final List<ProductChangedEvent> pendingChanges = new ArrayList<>();
+    private boolean reloading;
+
+    private volatile Snapshot snapshot = Snapshot.build(Collections.emptyList());
+    private volatile boolean ready;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    /**
+     * 启动时从MySQL构建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // 构建失败时 /suggest 回退到ES
+            log.error("【搜索建议】初始化失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 每小时全量重载一次，刷新热度权重
+     */
+    @Scheduled(cron = "0 0 * * * ?")
+    public void scheduledReload() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("【搜索建议】重载失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从MySQL全量加载并原子替换快照
+     */
+    public void reload() {
+        long start = System.currentTimeMillis();
+        synchronized (pendingChanges) {
+            reloading = true;
+            pendingChanges.clear();
+        }
+
+        Map<Long, Source> loaded = new ConcurrentHashMap<>();
+        try {
+            for (Map<String, Object> row : productMapper.selectSuggestSource()) {
+                Long id = ((Number) row.get("id")).longValue();
+                String name = (String) row.get("name");
+                long weight = row.get("weight") == null ? 0 : ((Number) row.get("weight")).longValue();
+                if (StringUtils.isNotBlank(name)) {
+                    loaded.put(id, new Source(name, weight));
+                }
+            }
+        } catch (RuntimeException e) {
+            // 加载失败：保留原数据源（期间的变更已增量写入），不能用不完整的结果替换
+            synchronized (pendingChanges) {
+                reloading = false;
+                pendingChanges.clear();
+            }
+            throw e;
+        }
+
+        synchronized (pendingChanges) {
+            pendingChanges.forEach(event -> apply(loaded, event));
+            sources = loaded;
+            reloading = false;
+            pendingChanges.clear();
+        }
+
+        snapshot = Snapshot.build(loaded.values());
+        ready = true;
+        dirty.set(false);
+        log.info("【搜索建议】索引重建完成: 商品数={}, 建议词数={}, 热前缀数={}, 耗时{}ms",
+                loaded.size(), snapshot.keys.length, snapshot.hotPrefixes.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 商品发布、修改、下架后增量更新数据源（事务提交后执行）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (pendingChanges) {
+            apply(sources, event);
+            if (reloading) {
+                pendingChanges.add(event);
+            }
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * 合并增量变更：有变更时基于数据源重建快照（不访问MySQL）
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void refreshIfDirty() {
+        if (ready && dirty.compareAndSet(true, false)) {
+            snapshot = Snapshot.build(sources.values());
+        }
+    }
+
+    /**
+     * 前缀建议
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return snapshot.suggest(key, Math.min(limit, TOP_K));
+    }
+
+    /**
+     * 索引是否已完成首次构建
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    private static void apply(Map<Long, Source> target, ProductChangedEvent event) {
+        boolean active = event.getAction() != ProductChangedEvent.Action.REMOVE
+                && Integer.valueOf(1).equals(event.getStatus())
+                && StringUtils.isNotBlank(event.getName());
+        if (!active) {
+            target.remove(event.getProductId());
+            return;
+        }
+        // 修改商品时保留原热度
+        Source old = target.get(event.getProductId());
+        target.put(event.getProductId(), new Source(event.getName(), old != null ? old.weight : 0));
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : StringUtils.normalizeSpace(text).toLowerCase(Locale.ROOT);
+    }
+
+    private record Source(String name, long weight) {
+    }
+
+    /**
+     * 不可变索引快照
+     */
+    static final class Snapshot {
+        final String[] keys;        // 归一化名称，字典序
+        final String[] display;     // 展示名称
+        final long[] weights;       // 热度（同名商品累加）
+        final Map<String, int[]> hotPrefixes;
+
+        private Snapshot(String[] keys, String[] display, long[] weights) {
+            this.keys = keys;
+            this.display = display;
+            this.weights = weights;
+            this.hotPrefixes = buildHotPrefixes();
+        }
+
+        static Snapshot build(Iterable<Source> sources) {
+            // 同名商品合并：展示名取首次出现的，热度累加
+            TreeMap<String, String> names = new TreeMap<>();
+            Map<String, Long> weightByKey = new HashMap<>();
+            for (Source source : sources) {
+                String key = normalize(source.name());
+                names.putIfAbsent(key, source.name().trim());
+                weightByKey.merge(key, source.weight(), Long::sum);
+            }
+
+            String[] keys = names.keySet().toArray(new String[0]);
+            String[] display = names.values().toArray(new String[0]);
+            long[] weights = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                weights[i] = weightByKey.get(keys[i]);
+            }
+            return new Snapshot(keys, display, weights);
+        }
+
+        List<String> suggest(String prefix, int limit) {
+            int[] top = hotPrefixes.get(prefix);
+            if (top == null) {
+                int lo = lowerBound(prefix);
+                int hi = lowerBound(prefix + Character.MAX_VALUE);
+                top = topK(lo, hi);
+            }
+
+            List<String> result = new ArrayList<>(Math.min(limit, top.length));
+            for (int i = 0; i < top.length && i < limit; i++) {
+                result.add(display[top[i]]);
+            }
+            return result;
+        }
+
+        /**
+         * 逐层按前缀长度分组，区间大于 SCAN_LIMIT 的前缀预计算 TopK；某层没有大区间时停止
+         */
+        private Map<String, int[]> buildHotPrefixes() {
+            Map<String, int[]> hot = new HashMap<>();
+            for (int depth = 1; ; depth++) {
+                boolean found = false;
+                int i = 0;
+                while (i < keys.length) {
+                    if (keys[i].length() < depth) {
+                        i++;
+                        continue;
+                    }
+                    String prefix = keys[i].substring(0, depth);
+                    int j = i + 1;
+                    while (j < keys.length && keys[j].startsWith(prefix)) {
+                        j++;
+                    }
+                    if (j - i > SCAN_LIMIT) {
+                        hot.put(prefix, topK(i, j));
+                        found = true;
+                    }
+                    i = j;
+                }
+                if (!found) {
+                    return hot;
+                }
+            }
+        }
+
+        private int[] topK(int lo, int hi) {
+            PriorityQueue<Integer> heap = new PriorityQueue<>(TOP_K + 1, this::compareRank);
+            for (int i = lo; i < hi; i++) {
+                heap.offer(i);
+                if (heap.size() > TOP_K) {
+                    heap.poll();
+                }
+            }
+            int[] top = new int[heap.size()];
+            for (int i = top.length - 1; i >= 0; i--) {
+                top[i] = heap.poll();
+            }
+            return top;
+        }
+
+        /**
+         * 排名：热度高者优先，热度相同时名称短者优先
+         */
+        private int compareRank(int a, int b) {
+            int cmp = Long.compare(weights[a], weights[b]);
+            if (cmp != 0) {
+                return cmp;
+            }
+            return Integer.compare(keys[b].length(), keys[a].length());
+        }
+
+        private int lowerBound(String target) {
+            int idx = Arrays.binarySearch(keys, target);
+            return idx >= 0 ? idx : -idx - 1;
+        }
+    }
+}
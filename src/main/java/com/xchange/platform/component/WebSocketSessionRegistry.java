@@ -0,0 +1,87 @@
+package com.xchange.platform.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本节点 WebSocket 会话注册表（userId -> 会话集合）
+ * 同一用户可多端在线；会话经 ConcurrentWebSocketSessionDecorator 包装，支持多线程并发发送
+ */
+@Slf4j
+@Component
+public class WebSocketSessionRegistry {
+
+    // 单条消息发送超时（毫秒）
+    private static final int SEND_TIME_LIMIT_MS = 5000;
+
+    // 单个会话发送缓冲上限（字节）
+    private static final int BUFFER_SIZE_LIMIT = 64 * 1024;
+
+    private final Map<Long, Set<WebSocketSession>> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 注册会话
+     * @return 包装后的线程安全会话
+     */
+    public WebSocketSession register(Long userId, WebSocketSession session) {
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(
+                session, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT);
+        sessions.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(decorated);
+        log.info("WebSocket会话注册: userId={}, sessionId={}, 在线用户数={}",
+                userId, session.getId(), sessions.size());
+        return decorated;
+    }
+
+    /**
+     * 注销会话
+     */
+    public void unregister(Long userId, WebSocketSession session) {
+        sessions.computeIfPresent(userId, (k, set) -> {
+            set.removeIf(s -> s.getId().equals(session.getId()));
+            return set.isEmpty() ? null : set;
+        });
+        log.info("WebSocket会话注销: userId={}, sessionId={}", userId, session.getId());
+    }
+
+    /**
+     * 向本节点上该用户的所有会话发送消息
+     * @return 成功发送的会话数
+     */
+    public int sendToUser(Long userId, String payload) {
+        Set<WebSocketSession> userSessions = sessions.get(userId);
+        if (userSessions == null || userSessions.isEmpty()) {
+            return 0;
+        }
+
+        int sent = 0;
+        TextMessage message = new TextMessage(payload);
+        for (WebSocketSession session : userSessions) {
+            if (!session.isOpen()) {
+                continue;
+            }
+            try {
+                session.sendMessage(message);
+                sent++;
+            } catch (Exception e) {
+                log.warn("WebSocket推送失败: userId={}, sessionId={}, error={}",
+                        userId, session.getId(), e.getMessage());
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * 本节点在线用户ID
+     */
+    public Collection<Long> onlineUserIds() {
+        return sessions.keySet();
+    }
+}
@@ -45,6 +45,24 @@ public class AsyncConfig {
         return executor;
     }
 
+    /**
+     * 搜索后处理线程池
+     * 搜索引擎异步客户端的回调运行在其I/O线程上，缓存回写、实时库存回填等涉及Redis的后续步骤切换到此线程池执行；
+     * 队列满时直接拒绝（请求返回失败），不回退到调用线程，避免搜索抖动占满Servlet线程
+     */
+    @Bean(name = "searchExecutor")
+    public Executor searchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(500);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
     /**
      * 主异步执行器（用于其他异步任务）
      */
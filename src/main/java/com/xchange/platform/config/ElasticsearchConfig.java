@@ -1,5 +1,6 @@
 package com.xchange.platform.config;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
@@ -76,4 +77,12 @@ public class ElasticsearchConfig {
         log.info("Elasticsearch 客户端初始化完成（已支持Java 8时间类型）");
         return new ElasticsearchClient(transport);
     }
+
+    /**
+     * 异步客户端：与同步客户端共用连接池，请求在I/O线程上完成，不占用调用线程
+     */
+    @Bean
+    public ElasticsearchAsyncClient elasticsearchAsyncClient(ElasticsearchTransport transport) {
+        return new ElasticsearchAsyncClient(transport);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.xchange.platform.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 订单表分区配置属性
+ * 映射 application.yml 中的 order.partition 配置
+ */
+@Data
+@ConfigurationProperties(prefix = "order.partition")
+public class OrderPartitionProperties {
+
+    private Boolean enabled = true;
+    private String cron = "0 30 3 * * ?";
+    private Integer futureMonths = 3;      // 提前创建的未来分区数
+    private Integer retentionMonths = 24;  // 在线保留月数（已分区时也是列表查询的默认时间下界）
+    private Boolean archive = true;        // true: 过期分区交换到归档表；false: 直接删除
+
+    private Migration migration = new Migration();
+
+    @Data
+    public static class Migration {
+        private Boolean enabled = false;   // 启动后执行一次在线迁移（迁移完成后关闭）
+        private Integer chunkSize = 2000;  // 每批复制行数
+        private Long chunkPauseMs = 50L;   // 批次间隔（毫秒），给业务写入让路
+    }
+}
@@ -0,0 +1,46 @@
+package com.xchange.platform.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 搜索后端配置属性
+ * 映射 application.yml 中的 search 配置
+ */
+@Data
+@ConfigurationProperties(prefix = "search")
+public class SearchProperties {
+
+    /**
+     * elasticsearch 或 lucene
+     */
+    private String backend = "elasticsearch";
+
+    /**
+     * 搜索接口超时（毫秒），超时后取消在途的搜索引擎请求
+     */
+    private Long timeoutMs = 3000L;
+
+    private Lucene lucene = new Lucene();
+
+    private SlowLog slowLog = new SlowLog();
+
+    @Data
+    public static class Lucene {
+        private String path = "./data/lucene/products";
+        private Long maxStaleMs = 1000L;
+        private Long commitIntervalMs = 5000L;
+    }
+
+    @Data
+    public static class SlowLog {
+        /**
+         * 客户端往返耗时超过该值（毫秒）记为慢查询
+         */
+        private Long thresholdMs = 500L;
+        /**
+         * 慢查询写日志的采样率（0~1）
+         */
+        private Double sampleRate = 0.1;
+    }
+}
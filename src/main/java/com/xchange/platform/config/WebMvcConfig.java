@@ -21,6 +21,9 @@ public class WebMvcConfig implements WebMvcConfigurer {
                         "/api/auth/register",    // 注册
                         "/api/auth/login",       // 登录
 
+                        // ===== WebSocket（握手时由 WebSocketAuthInterceptor 校验） =====
+                        "/ws/**",
+
                         // ===== Swagger 文档 =====
                         "/v3/api-docs/**",      // OpenAPI 定义接口
                         "/v3/api-docs.yaml",    // OpenAPI YAML格式
@@ -0,0 +1,28 @@
+package com.xchange.platform.config;
+
+import com.xchange.platform.handler.NotifyWebSocketHandler;
+import com.xchange.platform.interceptor.WebSocketAuthInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * WebSocket 配置：注册 /ws/notify 通知端点
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final NotifyWebSocketHandler notifyWebSocketHandler;
+    private final WebSocketAuthInterceptor webSocketAuthInterceptor;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(notifyWebSocketHandler, "/ws/notify")
+                .addInterceptors(webSocketAuthInterceptor)
+                .setAllowedOriginPatterns("*");
+    }
+}
@@ -3,6 +3,7 @@ package com.xchange.platform.controller;
 import com.xchange.platform.common.Result;
 import com.xchange.platform.dto.CreateOrderDTO;
 import com.xchange.platform.service.OrderService;
+import com.xchange.platform.vo.OrderTimelineVO;
 import com.xchange.platform.vo.OrderVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,6 +12,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/orders")
@@ -102,17 +105,41 @@ public class OrderController {
      * GET /api/orders/{orderId}/status
      */
     @GetMapping("/{orderId}/status")
-    @Operation(summary = "查询订单状态", description = "获取订单当前状态机状态")
-    public Result<String> getOrderStatus(@PathVariable Long orderId) {
+    @Operation(summary = "查询订单状态", description = "获取订单当前状态机状态（仅买卖双方可查）")
+    public Result<String> getOrderStatus(
+            @RequestAttribute("userId") Long userId,
+            @PathVariable Long orderId) {
         try {
-            String status = orderService.getCurrentState(orderId).name();
+            String status = orderService.getCurrentState(userId, orderId).name();
             return Result.success("查询成功", status);
+        } catch (RuntimeException e) {
+            log.warn("查询订单状态失败: {}", e.getMessage());
+            return Result.error(e.getMessage());
         } catch (Exception e) {
             log.error("查询订单状态失败: {}", e.getMessage());
             return Result.error("查询失败");
         }
     }
 
+    /**
+     * 查询订单时间线
+     * GET /api/orders/{orderId}/timeline
+     */
+    @GetMapping("/{orderId}/timeline")
+    @Operation(summary = "查询订单时间线", description = "按发生顺序返回订单的下单及每次状态流转记录")
+    public Result<List<OrderTimelineVO>> getOrderTimeline(
+            @RequestAttribute("userId") Long userId,
+            @PathVariable Long orderId) {
+
+        try {
+            List<OrderTimelineVO> timeline = orderService.getOrderTimeline(userId, orderId);
+            return Result.success("查询成功", timeline);
+        } catch (RuntimeException e) {
+            log.warn("查询订单时间线失败: {}", e.getMessage());
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 下单接口（创建订单）
      * POST /api/orders
@@ -2,12 +2,16 @@ package com.xchange.platform.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.xchange.platform.common.Result;
+import com.xchange.platform.component.ProductViewCounter;
+import com.xchange.platform.component.SimilarProductCache;
+import com.xchange.platform.component.StockHydrator;
 import com.xchange.platform.dto.ProductDTO;
 import com.xchange.platform.dto.ProductQueryDTO;
 import com.xchange.platform.dto.UpdateProductDTO;
 import com.xchange.platform.service.FileUploadService;
 import com.xchange.platform.service.ProductImageService;
 import com.xchange.platform.service.ProductService;
+import com.xchange.platform.vo.ProductListItemVO;
 import com.xchange.platform.vo.ProductVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -20,6 +24,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -36,6 +41,12 @@ public class ProductController {
     private final ProductService productService;
     private final ProductImageService productImageService;
     private final FileUploadService fileUploadService;
+    private final ProductViewCounter productViewCounter;
+    private final SimilarProductCache similarProductCache;
+    private final StockHydrator stockHydrator;
+
+    // 批量查询相似商品时一次最多的商品数
+    private static final int SIMILAR_BATCH_LIMIT = 20;
 
     /**
      * 发布商品（带图片上传）
@@ -154,7 +165,9 @@ public class ProductController {
      */
     @GetMapping("/{id}")
     @Operation(summary = "查询商品详情", description = "公开接口")
-    public Result<ProductVO> getProductDetail(@PathVariable("id") Long productId) {
+    public Result<ProductVO> getProductDetail(
+            @PathVariable("id") Long productId,
+            @RequestAttribute(value = "userId", required = false) Long userId) {
 
         try {
             // 查询商品详情 + 图片列表
@@ -162,6 +175,10 @@ public class ProductController {
             List<String> imageUrls = productImageService.getProductImageUrls(productId);
             productVO.setDetailImageUrls(imageUrls);
             productVO.setCoverImageUrl(productImageService.getCoverImageUrl(productId));
+
+            // 浏览量只在内存中累加，批量落库
+            productViewCounter.record(productId, userId == null ? null : userId.toString());
+            productVO.setUniqueViewers(productViewCounter.uniqueViewers(productId));
             return Result.success(productVO);
         } catch (RuntimeException e) {
             log.warn("查询失败: {}", e.getMessage());
@@ -172,6 +189,72 @@ public class ProductController {
         }
     }
 
+    /**
+     * 相似商品（详情页推荐）
+     * GET /api/products/{id}/similar?size=6
+     */
+    @GetMapping("/{id}/similar")
+    @Operation(summary = "相似商品", description = "同校区在售商品中与该商品名称、描述、分类相似的商品，结果按商品缓存")
+    public Result<List<ProductListItemVO>> getSimilarProducts(
+            @PathVariable("id") Long productId,
+            @RequestParam(value = "size", defaultValue = "6") Integer size) {
+
+        try {
+            List<ProductListItemVO> similar = similarProductCache.get(productId);
+            return Result.success(stockHydrator.hydrate(limit(similar, size)));
+        } catch (RuntimeException e) {
+            log.warn("查询相似商品失败: {}", e.getMessage());
+            return Result.error(e.getMessage());
+        } catch (Exception e) {
+            log.error("查询相似商品异常: ", e);
+            return Result.error(500, "系统繁忙，请稍后重试");
+        }
+    }
+
+    /**
+     * 批量查询相似商品（列表页预取）
+     * GET /api/products/similar?ids=1,2,3&size=6
+     */
+    @GetMapping("/similar")
+    @Operation(summary = "批量查询相似商品", description = "一次最多20个商品；缓存未命中的商品合并为一次搜索请求")
+    public Result<Map<Long, List<ProductListItemVO>>> getSimilarProductsBatch(
+            @RequestParam("ids") List<Long> productIds,
+            @RequestParam(value = "size", defaultValue = "6") Integer size) {
+
+        if (productIds.size() > SIMILAR_BATCH_LIMIT) {
+            return Result.error("一次最多查询" + SIMILAR_BATCH_LIMIT + "个商品");
+        }
+
+        try {
+            Map<Long, List<ProductListItemVO>> similar = similarProductCache.getAll(productIds);
+
+            // 所有商品的库存合并为一次回填，再按商品拆回
+            List<ProductListItemVO> flattened = new ArrayList<>();
+            similar.values().forEach(items -> flattened.addAll(limit(items, size)));
+            List<ProductListItemVO> hydrated = stockHydrator.hydrate(flattened);
+
+            Map<Long, List<ProductListItemVO>> result = new LinkedHashMap<>();
+            int offset = 0;
+            for (Map.Entry<Long, List<ProductListItemVO>> entry : similar.entrySet()) {
+                int count = limit(entry.getValue(), size).size();
+                result.put(entry.getKey(), hydrated.subList(offset, offset + count));
+                offset += count;
+            }
+            return Result.success(result);
+        } catch (RuntimeException e) {
+            log.warn("批量查询相似商品失败: {}", e.getMessage());
+            return Result.error(e.getMessage());
+        } catch (Exception e) {
+            log.error("批量查询相似商品异常: ", e);
+            return Result.error(500, "系统繁忙，请稍后重试");
+        }
+    }
+
+    private static List<ProductListItemVO> limit(List<ProductListItemVO> items, Integer size) {
+        int max = Math.min(Math.max(size == null ? 6 : size, 1), SimilarProductCache.SIMILAR_SIZE);
+        return items.size() <= max ? items : items.subList(0, max);
+    }
+
     /**
      * 修改商品信息
      * PUT /api/products/{id}
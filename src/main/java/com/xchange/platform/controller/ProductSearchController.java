@@ -1,27 +1,39 @@
 package com.xchange.platform.controller;
 
-import com.baomidou.mybatisplus.core.metadata.IPage;
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.xchange.platform.common.Result;
-import com.xchange.platform.document.ProductDocument;
-import com.xchange.platform.dto.ProductQueryDTO;
-import com.xchange.platform.entity.Product;
-import com.xchange.platform.repository.ProductESRepository;
-import com.xchange.platform.service.ProductImageService;
-import com.xchange.platform.service.ProductService;
-import com.xchange.platform.vo.ProductVO;
+import com.xchange.platform.component.HotSearchTracker;
+import com.xchange.platform.component.ProductConsistencyScanner;
+import com.xchange.platform.component.ProductReindexJob;
+import com.xchange.platform.component.SearchMetrics;
+import com.xchange.platform.component.SearchRequestCoalescer;
+import com.xchange.platform.component.SearchResultCache;
+import com.xchange.platform.component.StockHydrator;
+import com.xchange.platform.component.SuggestionIndex;
+import com.xchange.platform.config.SearchProperties;
+import com.xchange.platform.dto.ProductSearchDTO;
+import com.xchange.platform.repository.ProductSearchRepository;
+import com.xchange.platform.vo.ConsistencyReportVO;
+import com.xchange.platform.vo.HotSearchVO;
+import com.xchange.platform.vo.ProductFacetsVO;
+import com.xchange.platform.vo.ProductSearchPageVO;
+import com.xchange.platform.vo.ReindexProgressVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import lombok.AllArgsConstructor;
-import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.Duration;
-import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * 商品搜索控制器
@@ -34,46 +46,145 @@ import java.util.*;
 @Tag(name = "商品搜索", description = "基于Elasticsearch的全文搜索接口")
 public class ProductSearchController {
 
-    private final ProductESRepository productESRepository;
-    private final ProductService productService;  // 新增
-    private final ProductImageService productImageService;  // 新增
+    private final ProductSearchRepository productSearchRepository;
+    private final ProductReindexJob productReindexJob;
+    private final ProductConsistencyScanner productConsistencyScanner;
+    private final SearchResultCache searchResultCache;
+    private final SuggestionIndex suggestionIndex;
+    private final StockHydrator stockHydrator;
+    private final SearchRequestCoalescer searchRequestCoalescer;
+    private final HotSearchTracker hotSearchTracker;
+    private final SearchProperties searchProperties;
+    private final SearchMetrics searchMetrics;
+
+    @Qualifier("searchExecutor")
+    private final Executor searchExecutor;
 
     /**
      * 搜索商品
      * GET /api/search/products?keyword=手机&campus=主校区&pageNum=1&pageSize=10
+     * 深度翻页：GET /api/search/products?keyword=手机&mode=cursor&cursor={上一页nextCursor}
+     * 分面搜索：GET /api/search/products?keyword=手机&campus=主校区&facets=true
+     * 热度排序：GET /api/search/products?keyword=手机&sort=popular
      */
     @GetMapping("/products")
-    @Operation(summary = "搜索商品", description = "支持关键词、校区、价格范围等条件搜索")
-    public Result<List<ProductDocument>> searchProducts(
+    @Operation(summary = "搜索商品", description = "支持关键词、校区、价格范围等条件搜索；深度翻页请使用cursor模式；facets=true 同时返回校区、分类、价格分面统计；sort=popular 按相关度与热度排序")
+    public CompletableFuture<Result<ProductSearchPageVO>> searchProducts(
             @RequestParam(value = "keyword", required = false) String keyword,
             @RequestParam(value = "campus", required = false) String campusLocation,
             @RequestParam(value = "categoryId", required = false) Long categoryId,
             @RequestParam(value = "minPrice", required = false) Double minPrice,
             @RequestParam(value = "maxPrice", required = false) Double maxPrice,
             @RequestParam(value = "pageNum", defaultValue = "1") Integer pageNum,
-            @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize) {
+            @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize,
+            @RequestParam(value = "mode", defaultValue = "page") String mode,
+            @RequestParam(value = "sort", defaultValue = "latest") String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "exactTotal", defaultValue = "false") Boolean exactTotal,
+            @RequestParam(value = "facets", defaultValue = "false") Boolean facets) {
+
+        log.info("商品搜索请求: keyword={}, campus={}, categoryId={}, price=[{}, {}], mode={}, sort={}",
+                keyword, campusLocation, categoryId, minPrice, maxPrice, mode, sort);
+
+        ProductSearchDTO searchDTO = ProductSearchDTO.builder()
+                .keyword(keyword)
+                .campusLocation(campusLocation)
+                .categoryId(categoryId)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .pageNum(pageNum)
+                .pageSize(pageSize)
+                .mode(mode)
+                .sort(sort)
+                .cursor(cursor)
+                .exactTotal(exactTotal)
+                .facets(facets)
+                .build();
+
+        // 相关度得分不适合作为游标，热度排序只做浅分页
+        if (searchDTO.isPopularSort() && searchDTO.isCursorMode()) {
+            return CompletableFuture.completedFuture(Result.error("热度排序仅支持page模式"));
+        }
 
+        // Servlet线程只负责发出请求，ES响应在I/O线程返回后切换到搜索线程池完成后续步骤；超时后取消在途查询
+        CompletableFuture<ProductSearchPageVO> page;
         try {
-            log.info("商品搜索请求: keyword={}, campus={}, categoryId={}, price=[{}, {}]",
-                    keyword, campusLocation, categoryId, minPrice, maxPrice);
+            page = searchResultCache.getAsync(searchDTO, () -> searchRequestCoalescer.executeAsync(
+                    SearchRequestCoalescer.searchKey(searchDTO), () -> searchWithFacets(searchDTO), searchExecutor));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(searchFailed(e));
+        }
 
-            List<ProductDocument> products = productESRepository.searchProducts(
-                    keyword, campusLocation, categoryId, minPrice, maxPrice, pageNum, pageSize
-            );
+        return page
+                .orTimeout(searchProperties.getTimeoutMs(), TimeUnit.MILLISECONDS)
+                .thenApply(stockHydrator::hydrate)
+                .thenApply(result -> {
+                    if (result.getRecords().isEmpty()) {
+                        return Result.success("未找到相关商品", result);
+                    }
 
-            if (products.isEmpty()) {
-                return Result.success("未找到相关商品", products);
-            }
+                    // 只统计有结果的首页请求，翻页不重复计入热搜
+                    if (Integer.valueOf(1).equals(searchDTO.getPageNum()) && StringUtils.isBlank(searchDTO.getCursor())) {
+                        hotSearchTracker.record(keyword);
+                    }
 
-            log.info("搜索完成: 找到{}个商品", products.size());
-            return Result.success("搜索成功", products);
-        } catch (RuntimeException e) {
-            log.warn("搜索失败: {}", e.getMessage());
-            return Result.error(e.getMessage());
-        } catch (Exception e) {
-            log.error("搜索异常: ", e);
-            return Result.error(500, "搜索失败，请稍后重试");
+                    log.info("搜索完成: 找到{}个商品", result.getRecords().size());
+                    return Result.success("搜索成功", result);
+                })
+                .exceptionally(this::searchFailed);
+    }
+
+    private Result<ProductSearchPageVO> searchFailed(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException || cause instanceof CancellationException) {
+            log.warn("搜索超时: {}ms", searchProperties.getTimeoutMs());
+            return Result.error("搜索超时，请稍后重试");
+        }
+        if (cause instanceof RejectedExecutionException) {
+            log.warn("搜索线程池已满: {}", cause.getMessage());
+            return Result.error("搜索繁忙，请稍后重试");
         }
+        if (cause instanceof RuntimeException) {
+            log.warn("搜索失败: {}", cause.getMessage());
+            return Result.error(cause.getMessage());
+        }
+        log.error("搜索异常: ", cause);
+        return Result.error(500, "搜索失败，请稍后重试");
+    }
+
+    /**
+     * 分面搜索：同一筛选状态的分面已缓存时只查命中列表，否则在同一次请求中聚合并回填分面缓存
+     */
+    private CompletableFuture<ProductSearchPageVO> searchWithFacets(ProductSearchDTO searchDTO) {
+        if (!searchDTO.needFacets()) {
+            return productSearchRepository.searchAsync(searchDTO, false);
+        }
+
+        ProductFacetsVO cachedFacets = searchResultCache.getFacets(searchDTO);
+        if (cachedFacets != null) {
+            return then(productSearchRepository.searchAsync(searchDTO, false), page -> {
+                page.setFacets(cachedFacets);
+                return page;
+            });
+        }
+
+        return then(productSearchRepository.searchAsync(searchDTO, true), page -> {
+            searchResultCache.putFacets(searchDTO, page.getFacets());
+            return page;
+        });
+    }
+
+    /**
+     * 在搜索线程池上执行后续步骤；结果超时或被取消时一并取消上游查询
+     */
+    private <T, R> CompletableFuture<R> then(CompletableFuture<T> upstream, Function<T, R> step) {
+        CompletableFuture<R> result = upstream.thenApplyAsync(step, searchExecutor);
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                upstream.cancel(true);
+            }
+        });
+        return result;
     }
 
     /**
@@ -88,7 +199,11 @@ public class ProductSearchController {
                 return Result.success(Collections.emptyList());
             }
 
-            List<String> suggestions = productESRepository.autoComplete(prefix);
+            // 优先使用进程内索引，未就绪时回退到ES
+            List<String> suggestions = suggestionIndex.isReady()
+                    ? suggestionIndex.suggest(prefix, 10)
+                    : searchRequestCoalescer.execute(SearchRequestCoalescer.suggestKey(prefix),
+                            () -> productSearchRepository.autoComplete(prefix));
             return Result.success(suggestions);
         } catch (Exception e) {
             log.error("搜索建议失败: {}", e.getMessage());
@@ -97,148 +212,116 @@ public class ProductSearchController {
     }
 
     /**
-     * 重建索引（用于全量同步）
-     * POST /api/search/rebuild
+     * 热门搜索
+     * GET /api/search/hot?limit=10
      */
-    @PostMapping("/rebuild")
-    @Operation(summary = "重建索引", description = "从MySQL全量同步商品数据到ES")
-    public Result<String> rebuildIndex() {
-        Map<String, Object> result = new HashMap<>();
-
-        try {
-            log.info("开始重建ES商品索引...");
-            Instant startTime = Instant.now();
-
-            // 1. 删除旧索引
-            productESRepository.deleteIndex();
-
-            // 2. 创建新索引
-            productESRepository.createIndex();
-
-            // 3. 从MySQL全量同步数据
-            log.info("同步MySQL数据到ES...");
-            SyncResult syncResult = syncAllProductsFromMySQL();
-
-            Duration duration = Duration.between(startTime, Instant.now());
+    @GetMapping("/hot")
+    @Operation(summary = "热门搜索", description = "近一小时各实例合并后的高频搜索词，按时间衰减加权排序")
+    public Result<List<HotSearchVO>> getHotSearches(
+            @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        return Result.success(hotSearchTracker.top(limit));
+    }
 
-            result.put("success", true);
-            result.put("message", "索引重建完成");
-            result.put("syncedProducts", syncResult.getSyncedCount());
-            result.put("failedProducts", syncResult.getFailedCount());
-            result.put("durationMs", duration.toMillis());
+    /**
+     * 搜索缓存统计
+     * GET /api/search/cache/stats
+     */
+    @GetMapping("/cache/stats")
+    @Operation(summary = "搜索缓存统计", description = "命中率、各级命中次数及节省的耗时；coalescing 为相同请求合并统计")
+    public Result<Map<String, Object>> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(searchResultCache.stats());
+        stats.put("coalescing", searchRequestCoalescer.stats());
+        return Result.success(stats);
+    }
 
-            log.info("========== 索引重建完成 ==========");
-            log.info("统计: 成功同步{}个商品, 失败{}个, 总耗时{}ms",
-                    syncResult.getSyncedCount(),
-                    syncResult.getFailedCount(),
-                    duration.toMillis());
+    /**
+     * 搜索引擎调用耗时统计
+     * GET /api/search/metrics
+     */
+    @GetMapping("/metrics")
+    @Operation(summary = "搜索耗时统计", description = "按 操作|查询结构 分组的 took、往返耗时、差值（网络与反序列化）直方图及慢查询数")
+    public Result<Map<String, Object>> getSearchMetrics() {
+        return Result.success(searchMetrics.stats());
+    }
 
-            return Result.success("索引重建完成", result.toString());
+    /**
+     * 重建索引（后台任务，立即返回）
+     * POST /api/search/rebuild?resume=false
+     */
+    @PostMapping("/rebuild")
+    @Operation(summary = "重建索引", description = "后台从MySQL全量同步到新版本索引，校验后切换别名；resume=true 时从上次检查点续跑")
+    public Result<ReindexProgressVO> rebuildIndex(
+            @RequestParam(value = "resume", defaultValue = "false") Boolean resume) {
+        try {
+            log.info("开始重建ES商品索引: resume={}", resume);
+            return Result.success("重建任务已启动", productReindexJob.start(resume));
+        } catch (RuntimeException e) {
+            log.warn("启动重建失败: {}", e.getMessage());
+            return Result.error(e.getMessage());
         } catch (Exception e) {
-            log.error("重建索引失败: {}", e.getMessage());
+            log.error("启动重建异常: ", e);
             return Result.error("重建失败: " + e.getMessage());
         }
     }
 
     /**
-     * 从MySQL全量同步所有商品到ES
-     * 采用分页处理，避免内存溢出
+     * 重建索引进度
+     * GET /api/search/rebuild/progress
      */
-    private SyncResult syncAllProductsFromMySQL() {
-        int pageNum = 1;
-        int pageSize = 100;  // 每页100条
-        int totalSynced = 0;
-        int totalFailed = 0;
-        int totalProcessed = 0;
-
-        while (true) {
-            log.info("同步批次: pageNum={}, pageSize={}", pageNum, pageSize);
-
-            try {
-                // 1. 分页查询MySQL商品数据
-                IPage<ProductVO> productPage = productService.getProductPage(
-                        ProductQueryDTO.builder()
-                                .pageNum(pageNum)
-                                .pageSize(pageSize)
-                                .build()
-                );
-
-                List<ProductVO> products = productPage.getRecords();
-                if (products == null || products.isEmpty()) {
-                    log.info("无更多数据，同步完成");
-                    break;
-                }
-
-                log.info("查询到{}个商品", products.size());
-
-                // 2. 转换为Document列表
-                List<ProductDocument> documents = new ArrayList<>();
-                for (ProductVO product : products) {
-                    try {
-                        // 查询商品图片
-                        List<String> imageUrls = productImageService.getProductImageUrls(product.getId());
-                        String coverImageUrl = productImageService.getCoverImageUrl(product.getId());
-
-                        // 转换为Document
-                        ProductDocument document = ProductDocument.builder()
-                                .id(product.getId())
-                                .name(product.getName())
-                                .description(product.getDescription())
-                                .price(product.getPrice())
-                                .stock(product.getStock())
-                                .campusLocation(product.getCampusLocation())
-                                .status(product.getStatus())
-                                .sellerId(product.getSellerId())
-                                .coverImageUrl(coverImageUrl)
-                                .detailImageUrls(imageUrls)
-                                .createTime(product.getCreateTime())
-                                .searchBoost(1)  // 默认搜索权重
-                                .build();
-
-                        documents.add(document);
-                        totalProcessed++;
-                    } catch (Exception e) {
-                        log.error("转换商品失败: productId={}, error={}", product.getId(), e.getMessage());
-                        totalFailed++;
-                    }
-                }
-
-                // 7. 批量保存到ES
-                if (!documents.isEmpty()) {
-                    productESRepository.saveAll(documents);
-                    totalSynced += documents.size();
-                    log.info("批次同步成功: 本批{}个, 累计{}个", documents.size(), totalSynced);
-                }
-
-                // 8. 关键修复：判断是否有下一页（使用total）
-                if (totalProcessed >= productPage.getTotal()) {
-                    log.info("所有数据已处理完成: total={}", productPage.getTotal());
-                    break;
-                }
-
-                pageNum++;
-
-                // 避免ES压力
-                Thread.sleep(50);
-
+    @GetMapping("/rebuild/progress")
+    @Operation(summary = "重建索引进度", description = "返回读取数、写入数、失败数及检查点")
+    public Result<ReindexProgressVO> getRebuildProgress() {
+        try {
+            return Result.success(productReindexJob.progress());
+        } catch (Exception e) {
+            log.error("查询重建进度失败: {}", e.getMessage());
+            return Result.error("查询失败");
+        }
+    }
 
-            } catch (Exception e) {
-                log.error("同步批次失败: pageNum={}, error={}", pageNum, e.getMessage());
-                // 继续下一批，不中断整个同步过程
-                pageNum++;
-            }
+    /**
+     * 回滚索引：别名切回上一版本物理索引
+     * POST /api/search/rebuild/rollback
+     */
+    @PostMapping("/rebuild/rollback")
+    @Operation(summary = "回滚索引", description = "重建切换后发现问题时，将别名切回上一版本索引")
+    public Result<String> rollbackIndex() {
+        try {
+            String index = productReindexJob.rollback();
+            return Result.success("已回滚到: " + index, index);
+        } catch (RuntimeException e) {
+            log.warn("回滚索引失败: {}", e.getMessage());
+            return Result.error(e.getMessage());
         }
+    }
 
-        return new SyncResult(totalSynced, totalFailed);
+    /**
+     * 一致性巡检（后台任务，立即返回）
+     * POST /api/search/consistency/scan
+     */
+    @PostMapping("/consistency/scan")
+    @Operation(summary = "一致性巡检", description = "按ID分批比对MySQL与索引文档的更新时间，只修复缺失、过期与多余的文档；默认每两小时自动执行")
+    public Result<ConsistencyReportVO> scanConsistency() {
+        try {
+            return Result.success("巡检任务已启动", productConsistencyScanner.start());
+        } catch (RuntimeException e) {
+            log.warn("启动一致性巡检失败: {}", e.getMessage());
+            return Result.error(e.getMessage());
+        }
     }
 
     /**
-     * 同步结果内部类
+     * 一致性巡检报告
+     * GET /api/search/consistency
      */
-    @Data
-    @AllArgsConstructor
-    private static class SyncResult {
-        private int syncedCount;
-        private int failedCount;
+    @GetMapping("/consistency")
+    @Operation(summary = "一致性巡检报告", description = "最近一次巡检的比对数、缺失、过期、多余文档数及修复结果")
+    public Result<ConsistencyReportVO> getConsistencyReport() {
+        try {
+            return Result.success(productConsistencyScanner.report());
+        } catch (Exception e) {
+            log.error("查询巡检报告失败: {}", e.getMessage());
+            return Result.error("查询失败");
+        }
     }
 }
\ No newline at end of file
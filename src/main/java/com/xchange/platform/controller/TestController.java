@@ -2,6 +2,7 @@ package com.xchange.platform.controller;
 
 import com.xchange.platform.common.Result;
 import com.xchange.platform.component.OrphanFileCleanupTask;
+import com.xchange.platform.repository.ProductESRepository;
 import com.xchange.platform.utils.ElasticsearchUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +25,7 @@ public class TestController {
     }
 
     private final ElasticsearchUtil esUtil;
+    private final ProductESRepository productESRepository;
 
     @GetMapping("/es-health")
     public Result<String> checkEsHealth() {
@@ -37,7 +39,7 @@ public class TestController {
 
     @PostMapping("/es-index")
     public Result<Void> createIndex() {
-        esUtil.createProductIndex();
+        productESRepository.createIndex();
         return Result.success("索引创建成功");
     }
 }
\ No newline at end of file
@@ -15,14 +15,15 @@ import java.util.List;
 
 /**
  * 商品ES文档实体
- * 映射到 Elasticsearch 索引
+ * 映射到 Elasticsearch 索引；实际映射以 ProductESRepository.MAPPING_JSON 为准，此处注解与其保持一致
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(indexName = "xchange_products")
-@Setting(shards = 1, replicas = 0)
+@Setting(shards = 1, replicas = 0, sortFields = {"createTime", "id"},
+        sortOrders = {Setting.SortOrder.desc, Setting.SortOrder.desc})
 @JsonIgnoreProperties(ignoreUnknown = true) // 忽略未知字段
 public class ProductDocument {
 
@@ -40,13 +41,16 @@ public class ProductDocument {
             searchAnalyzer = "ik_smart")
     private String description;  // 商品描述
 
-    @Field(type = FieldType.Double)
-    private BigDecimal price;  // 价格
+    @Field(type = FieldType.Scaled_Float, scalingFactor = 100)
+    private BigDecimal price;  // 价格（按分存储）
 
     @Field(type = FieldType.Integer)
-    private Integer stock;  // 库存
+    private Integer stock;  // 库存（索引中的值仅为写入时快照，搜索结果返回前以Redis实时库存覆盖）
 
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Boolean)
+    private Boolean soldOut;  // 是否售罄（仅在库存过零时更新）
+
+    @Field(type = FieldType.Keyword, eagerGlobalOrdinals = true)
     private String campusLocation;  // 校区位置
 
     @Field(type = FieldType.Integer)
@@ -55,31 +59,38 @@ public class ProductDocument {
     @Field(type = FieldType.Long)
     private Long sellerId;  // 卖家ID
 
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, eagerGlobalOrdinals = true)
     private String categoryName;  // 分类名称
 
     @Field(type = FieldType.Long)
     private Long categoryId;  // 分类ID
 
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, index = false, docValues = false)  // 仅存储
     private String coverImageUrl;  // 封面图URL
 
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, index = false, docValues = false)  // 仅存储
     private List<String> detailImageUrls;  // 详情图URL列表
 
-    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second)
+    @Field(type = FieldType.Date, format = {}, pattern = "yyyy-MM-dd HH:mm:ss")
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime createTime;  // 创建时间
 
-    @Field(type = FieldType.Long)
+    @Field(type = FieldType.Date, format = {}, pattern = "yyyy-MM-dd HH:mm:ss", index = false)  // 仅 doc values
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updateTime;  // MySQL更新时间（一致性巡检以此比对文档是否过期）
+
+    @Field(type = FieldType.Long, index = false)
     private Long viewCount;  // 浏览量
 
+    @Field(type = FieldType.Double, index = false)  // 不索引，仅用 doc values 参与打分
+    private Double popularity;  // 热度分（离线任务按下单数与发布时间衰减计算，见 ProductPopularityJob）
+
     @Field(type = FieldType.Keyword)
     private List<String> tags;  // 商品标签（用于搜索优化）
 
     /**
      * 搜索权重字段
      */
-    @Field(type = FieldType.Long, index = false)  // 不索引，仅存储
+    @Field(type = FieldType.Integer, index = false)  // 不索引，仅用 doc values 参与打分
     private Integer searchBoost;  // 搜索权重（数值越高排名越靠前）
 }
\ No newline at end of file
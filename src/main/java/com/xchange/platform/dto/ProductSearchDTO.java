@@ -0,0 +1,87 @@
+package com.xchange.platform.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 商品搜索条件
+ * 分页模式：page（from/size，仅限浅分页）或 cursor（PIT + search_after，任意深度代价相同）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "商品搜索条件")
+public class ProductSearchDTO {
+
+    @Schema(description = "关键词")
+    private String keyword;
+
+    @Schema(description = "校区")
+    private String campusLocation;
+
+    @Schema(description = "分类ID")
+    private Long categoryId;
+
+    @Schema(description = "最低价")
+    private Double minPrice;
+
+    @Schema(description = "最高价")
+    private Double maxPrice;
+
+    @Schema(description = "页码（page模式）", example = "1")
+    @Builder.Default
+    private Integer pageNum = 1;
+
+    @Schema(description = "每页数量", example = "10")
+    @Builder.Default
+    private Integer pageSize = 10;
+
+    @Schema(description = "分页模式：page（默认）、cursor")
+    @Builder.Default
+    private String mode = "page";
+
+    @Schema(description = "排序：latest（默认，最新发布）、popular（相关度 + 热度 + 搜索权重，仅支持page模式）")
+    @Builder.Default
+    private String sort = "latest";
+
+    @Schema(description = "游标（cursor模式，上一页返回的nextCursor；为空表示第一页）")
+    private String cursor;
+
+    @Schema(description = "是否返回精确总数（默认超过10000时只返回下界）")
+    @Builder.Default
+    private Boolean exactTotal = false;
+
+    @Schema(description = "是否同时返回校区、分类、价格区间的分面统计")
+    @Builder.Default
+    private Boolean facets = false;
+
+    public boolean isCursorMode() {
+        return "cursor".equalsIgnoreCase(mode);
+    }
+
+    public boolean isPopularSort() {
+        return "popular".equalsIgnoreCase(sort);
+    }
+
+    /**
+     * 查询条件摘要（写入游标，防止换条件后沿用旧游标）
+     */
+    public String conditionHash() {
+        String key = String.join("|",
+                String.valueOf(keyword), String.valueOf(campusLocation),
+                String.valueOf(categoryId), String.valueOf(minPrice),
+                String.valueOf(maxPrice), String.valueOf(pageSize), String.valueOf(sort));
+        return Integer.toHexString(key.hashCode());
+    }
+
+    /**
+     * 本次请求是否需要分面统计（cursor模式只在第一页统计）
+     */
+    public boolean needFacets() {
+        return Boolean.TRUE.equals(facets) && !(isCursorMode() && cursor != null && !cursor.isBlank());
+    }
+}
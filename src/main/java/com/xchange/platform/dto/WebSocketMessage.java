@@ -0,0 +1,21 @@
+package com.xchange.platform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * WebSocket 消息格式
+ * 客户端 -> 服务端：PING 心跳、BUSINESS 业务（如 subscribe_order）
+ * 服务端 -> 客户端：PONG、ORDER_STATUS 订单状态推送、ERROR
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketMessage {
+    private String type;    // 消息类型
+    private String action;  // 业务动作
+    private Object data;    // 消息数据
+}
@@ -5,6 +5,10 @@ import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * 订单
+ * 表按 create_time 月度分区，主键为 (id, create_time)，见 OrderPartitionJob / OrderPartitionMigrator
+ */
 @Data
 @TableName("tb_order")
 public class Order {
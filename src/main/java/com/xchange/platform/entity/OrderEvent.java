@@ -0,0 +1,26 @@
+package com.xchange.platform.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 订单事件日志（只追加，不更新不删除）
+ * 索引：KEY idx_order_id (order_id, id)，KEY idx_create_time (create_time)
+ */
+@Data
+@TableName("tb_order_event")
+public class OrderEvent {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long orderId;
+    private String event;             // 事件：CREATE/PAY/CONFIRM/SHIP/RECEIVE/CANCEL
+    private Integer fromStatus;       // 流转前状态（下单为空）
+    private Integer toStatus;         // 流转后状态
+    private Long actorId;             // 操作人ID（系统操作为空）
+    private String metadata;          // 附加信息（JSON）
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime; // 事件发生时间
+}
@@ -23,6 +23,9 @@ public class Product {
     private Integer status;        // 状态：1上架 0下架
     private String campusLocation; // 校区位置
     private Long sellerId;         // 卖家ID
+    // 浏览量（由 ProductViewCounter 批量累加）：updateById 不写回，读取后并发累加的增量不会被编辑覆盖
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Long viewCount;
 
     // ===== 乐观锁版本号（核心字段） =====
     @Version
@@ -0,0 +1,27 @@
+package com.xchange.platform.event;
+
+import com.xchange.platform.orderstate.OrderEvents;
+import com.xchange.platform.orderstate.OrderStates;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 订单状态变更事件（下单及每次状态流转成功后发布）
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+    private Long orderId;
+    private OrderEvents event;
+    private OrderStates fromState;      // 下单时为空
+    private OrderStates toState;
+    private Long actorId;               // 操作人ID（系统操作为空）
+    private Long sellerId;              // 卖家ID（仅下单时填写，用于写入订单状态缓存）
+    private Map<String, Object> metadata;
+    private LocalDateTime occurredAt;
+}
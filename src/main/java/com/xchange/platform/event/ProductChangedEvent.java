@@ -0,0 +1,24 @@
+package com.xchange.platform.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 商品变更事件（发布、修改、下架后发布）
+ */
+@Data
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    public enum Action { PUBLISH, UPDATE, REMOVE }
+
+    private Long productId;
+    private String name;        // 变更后的商品名称（下架时为空）
+    private Integer status;     // 变更后的状态：1上架 0下架（下架时为空）
+    private Action action;
+    private String previousCampus;  // 修改前的校区，原先未填为空串（校区未变或非修改事件时为null）
+
+    public ProductChangedEvent(Long productId, String name, Integer status, Action action) {
+        this(productId, name, status, action, null);
+    }
+}
@@ -10,5 +10,13 @@ import lombok.Data;
 @AllArgsConstructor
 public class StockUpdatedEvent {
     private Long productId;
+    private Integer previousStock;
     private Integer newStock;
+
+    /**
+     * 库存是否在有货/售罄之间切换（上一库存未知时视为切换）
+     */
+    public boolean crossesZero() {
+        return previousStock == null || (previousStock > 0) != (newStock > 0);
+    }
 }
\ No newline at end of file
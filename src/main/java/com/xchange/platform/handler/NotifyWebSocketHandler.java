@@ -0,0 +1,125 @@
+package com.xchange.platform.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xchange.platform.component.WebSocketSessionRegistry;
+import com.xchange.platform.dto.WebSocketMessage;
+import com.xchange.platform.interceptor.WebSocketAuthInterceptor;
+import com.xchange.platform.orderstate.OrderStates;
+import com.xchange.platform.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * /ws/notify 通知处理器
+ * 会话按 userId 注册到本节点注册表，订单状态变更由 OrderStatusNotifier 经 Redis 广播后推送；
+ * 客户端 subscribe_order 仅用于拉取一次当前状态（替代轮询 GET /api/orders/{id}/status）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotifyWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String ATTR_DECORATED = "decoratedSession";
+
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        Long userId = userIdOf(session);
+        WebSocketSession decorated = sessionRegistry.register(userId, session);
+        session.getAttributes().put(ATTR_DECORATED, decorated);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessionRegistry.unregister(userIdOf(session), session);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.warn("WebSocket传输异常: userId={}, sessionId={}, error={}",
+                userIdOf(session), session.getId(), exception.getMessage());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        Long userId = userIdOf(session);
+        try {
+            JsonNode root = objectMapper.readTree(message.getPayload());
+            String type = root.path("type").asText();
+
+            if ("PING".equals(type)) {
+                reply(session, WebSocketMessage.builder().type("PONG").build());
+                return;
+            }
+
+            if ("BUSINESS".equals(type) && "subscribe_order".equals(root.path("action").asText())) {
+                handleSubscribeOrder(session, userId, root.path("data"));
+                return;
+            }
+
+            reply(session, error("不支持的消息类型"));
+        } catch (Exception e) {
+            log.warn("WebSocket消息处理失败: userId={}, error={}", userId, e.getMessage());
+            reply(session, error("消息格式错误"));
+        }
+    }
+
+    /**
+     * 订阅订单：校验参与方身份后返回当前状态，后续变更自动推送
+     */
+    private void handleSubscribeOrder(WebSocketSession session, Long userId, JsonNode data) {
+        JsonNode orderIdNode = data.has("orderId") ? data.get("orderId") : data;
+        if (!orderIdNode.canConvertToLong() && !orderIdNode.isTextual()) {
+            reply(session, error("订单ID不能为空"));
+            return;
+        }
+        Long orderId = orderIdNode.asLong();
+
+        OrderStates status;
+        try {
+            status = orderService.getCurrentState(userId, orderId);
+        } catch (RuntimeException e) {
+            reply(session, error(e.getMessage()));
+            return;
+        }
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("orderId", orderId);
+        payload.put("status", status.name());
+        reply(session, WebSocketMessage.builder()
+                .type("ORDER_STATUS")
+                .action("subscribe_order")
+                .data(payload)
+                .build());
+    }
+
+    private void reply(WebSocketSession session, WebSocketMessage message) {
+        WebSocketSession target = (WebSocketSession) session.getAttributes()
+                .getOrDefault(ATTR_DECORATED, session);
+        try {
+            target.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+        } catch (Exception e) {
+            log.warn("WebSocket回复失败: sessionId={}, error={}", session.getId(), e.getMessage());
+        }
+    }
+
+    private WebSocketMessage error(String msg) {
+        return WebSocketMessage.builder().type("ERROR").data(msg).build();
+    }
+
+    private Long userIdOf(WebSocketSession session) {
+        return (Long) session.getAttributes().get(WebSocketAuthInterceptor.ATTR_USER_ID);
+    }
+}
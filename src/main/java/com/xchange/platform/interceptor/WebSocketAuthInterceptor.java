@@ -0,0 +1,72 @@
+package com.xchange.platform.interceptor;
+
+import com.xchange.platform.utils.JwtUtil;
+import com.xchange.platform.utils.RedisUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * WebSocket 握手认证拦截器
+ * 浏览器无法在握手时设置 Authorization 头，Token 通过 /ws/notify?token= 传入，
+ * 校验规则与 JwtInterceptor 一致（签名有效 + 未拉黑 + 与Redis中Token一致）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WebSocketAuthInterceptor implements HandshakeInterceptor {
+
+    public static final String ATTR_USER_ID = "userId";
+
+    private final JwtUtil jwtUtil;
+    private final RedisUtil redisUtil;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = UriComponentsBuilder.fromUri(request.getURI())
+                .build()
+                .getQueryParams()
+                .getFirst("token");
+
+        if (StringUtils.isBlank(token) || !jwtUtil.validateToken(token)) {
+            log.warn("WebSocket握手失败: Token缺失或无效");
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        Long userId = jwtUtil.getUserIdFromToken(token);
+
+        // 检查Token是否在黑名单中
+        if (redisUtil.hasKey("user:token:blacklist:" + userId)) {
+            log.warn("WebSocket握手失败: Token已拉黑, userId={}", userId);
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        // 验证Redis中Token是否存在
+        Object storedToken = redisUtil.get("user:token:" + userId);
+        if (storedToken == null || !storedToken.equals(token)) {
+            log.warn("WebSocket握手失败: Token已失效, userId={}", userId);
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        attributes.put(ATTR_USER_ID, userId);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.xchange.platform.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.xchange.platform.entity.OrderEvent;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface OrderEventMapper extends BaseMapper<OrderEvent> {
+
+    /**
+     * 批量追加事件（单条多值INSERT）
+     */
+    int insertBatch(@Param("events") List<OrderEvent> events);
+
+    /**
+     * 查询订单时间线（按发生时间排序；id 由各节点批量写入时分配，不代表发生顺序，只用于同一时刻的排序）
+     */
+    @Select("SELECT id, order_id, event, from_status, to_status, actor_id, metadata, create_time " +
+            "FROM tb_order_event WHERE order_id = #{orderId} ORDER BY create_time ASC, id ASC")
+    List<OrderEvent> selectTimeline(@Param("orderId") Long orderId);
+}
@@ -5,6 +5,7 @@ import com.xchange.platform.entity.Order;
 import com.xchange.platform.vo.OrderListVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -62,4 +63,31 @@ public interface OrderMapper extends BaseMapper<Order> {
             @Param("productName") String productName,
             @Param("startTime") LocalDateTime startTime,
             @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 单语句状态流转：状态集合 + 归属条件 + 可选版本CAS，附带字段随状态一起写入
+     * @param fromStatuses 允许的源状态
+     * @param expectedVersion 预期版本号（为空则不做版本校验）
+     * @param sellerId 卖家归属校验（为空则不校验）
+     * @param buyerId 买家归属校验（为空则不校验）
+     * @param participantId 买家或卖家归属校验（为空则不校验）
+     * @param trackingNumber 物流单号（为空则不更新）
+     * @return 影响行数
+     */
+    int transitStatus(
+            @Param("orderId") Long orderId,
+            @Param("fromStatuses") List<Integer> fromStatuses,
+            @Param("toStatus") Integer toStatus,
+            @Param("expectedVersion") Integer expectedVersion,
+            @Param("sellerId") Long sellerId,
+            @Param("buyerId") Long buyerId,
+            @Param("participantId") Long participantId,
+            @Param("trackingNumber") String trackingNumber);
+
+    /**
+     * 当前读查询订单（加行锁，用于冲突后获取最新状态）
+     */
+    @Select("SELECT id, order_no, item_id AS product_id, seller_id, buyer_id, quantity, status, version, deleted " +
+            "FROM tb_order WHERE id = #{orderId} AND deleted = 0 FOR UPDATE")
+    Order selectByIdForUpdate(@Param("orderId") Long orderId);
 }
@@ -0,0 +1,75 @@
+package com.xchange.platform.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 订单表分区维护（DDL及在线迁移）
+ * 表名、分区名由调用方生成，不接受外部输入
+ */
+@Mapper
+public interface OrderPartitionMapper {
+
+    /**
+     * 查询表的分区名（未分区时返回空列表）
+     */
+    @Select("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{table} AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION")
+    List<String> selectPartitionNames(@Param("table") String table);
+
+    /**
+     * 表是否存在
+     */
+    @Select("SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{table}")
+    int countTable(@Param("table") String table);
+
+    /**
+     * 表的全部列（按定义顺序）
+     */
+    @Select("SELECT COLUMN_NAME FROM information_schema.COLUMNS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{table} ORDER BY ORDINAL_POSITION")
+    List<String> selectColumns(@Param("table") String table);
+
+    /**
+     * 非主键唯一索引（索引名 -> 逗号分隔的列），分区后需补充分区列
+     */
+    @Select("SELECT CONCAT(INDEX_NAME, ':', GROUP_CONCAT(COLUMN_NAME ORDER BY SEQ_IN_INDEX)) " +
+            "FROM information_schema.STATISTICS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{table} AND NON_UNIQUE = 0 AND INDEX_NAME <> 'PRIMARY' " +
+            "GROUP BY INDEX_NAME")
+    List<String> selectUniqueIndexes(@Param("table") String table);
+
+    /**
+     * 执行DDL
+     */
+    @Update("${ddl}")
+    void executeDdl(@Param("ddl") String ddl);
+
+    @Select("SELECT MIN(create_time) FROM tb_order")
+    LocalDateTime selectMinCreateTime();
+
+    @Select("SELECT COALESCE(MAX(id), 0) FROM tb_order")
+    Long selectMaxId();
+
+    /**
+     * 第 chunkSize 行的ID，作为本批次上界（不足一批时返回null）
+     */
+    @Select("SELECT id FROM tb_order WHERE id > #{lastId} ORDER BY id LIMIT #{offset}, 1")
+    Long selectChunkUpperId(@Param("lastId") Long lastId, @Param("offset") Integer offset);
+
+    /**
+     * 按ID区间复制到影子表；INSERT IGNORE 保证已由触发器写入的新版本不被旧数据覆盖
+     */
+    @Update("INSERT IGNORE INTO ${target} (${columns}) " +
+            "SELECT ${columns} FROM tb_order WHERE id > #{fromId} AND id <= #{toId}")
+    int copyChunk(@Param("target") String target,
+                  @Param("columns") String columns,
+                  @Param("fromId") Long fromId,
+                  @Param("toId") Long toId);
+}
@@ -3,8 +3,61 @@ package com.xchange.platform.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xchange.platform.entity.Product;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface ProductMapper extends BaseMapper<Product> {
 
-}
\ No newline at end of file
+    /**
+     * 搜索建议数据源：在售商品名称及热度（下单次数）
+     * @return id, name, weight
+     */
+    @Select("SELECT p.id, p.name, COUNT(o.id) AS weight " +
+            "FROM tb_product p LEFT JOIN tb_order o ON o.item_id = p.id AND o.deleted = 0 " +
+            "WHERE p.status = 1 AND p.deleted = 0 " +
+            "GROUP BY p.id, p.name")
+    List<Map<String, Object>> selectSuggestSource();
+
+    /**
+     * 热度分数据源：按ID游标分批读取在售商品、浏览量及统计窗口内的下单次数
+     * （只关联窗口内的订单，tb_order 按 create_time 分区，可裁剪到最近几个分区）
+     * @return id, createTime, views, orders
+     */
+    @Select("SELECT p.id, p.create_time AS createTime, p.view_count AS views, COUNT(o.id) AS orders " +
+            "FROM tb_product p LEFT JOIN tb_order o ON o.item_id = p.id AND o.deleted = 0 " +
+            "AND o.create_time >= #{since} " +
+            "WHERE p.status = 1 AND p.deleted = 0 AND p.id > #{afterId} " +
+            "GROUP BY p.id, p.create_time, p.view_count ORDER BY p.id LIMIT #{limit}")
+    List<Map<String, Object>> selectPopularitySource(@Param("afterId") Long afterId,
+                                                     @Param("since") LocalDateTime since,
+                                                     @Param("limit") int limit);
+
+    /**
+     * 商品所在校区（含已逻辑删除的商品）：搜索索引按校区路由，删除与局部更新据此计算路由值，不必先查询索引
+     * @return id, campusLocation
+     */
+    @Select({"<script>",
+            "SELECT id, campus_location AS campusLocation FROM tb_product WHERE id IN",
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    List<Map<String, Object>> selectCampusIncludingDeleted(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 批量累加浏览量：一条 UPDATE ... CASE 语句，不更新 update_time 与乐观锁版本号
+     * @param deltas 商品ID -> 增量
+     */
+    @Update({"<script>",
+            "UPDATE tb_product SET view_count = view_count + CASE id",
+            "<foreach collection='deltas' index='id' item='delta'> WHEN #{id} THEN #{delta}</foreach>",
+            "END WHERE id IN",
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int incrementViewCounts(@Param("deltas") Map<Long, Long> deltas);
+}
@@ -4,6 +4,7 @@ package com.xchange.platform.orderstate;
  * 订单事件枚举
  */
 public enum OrderEvents {
+    CREATE,     // 下单（仅用于事件日志，不参与状态流转）
     PAY,        // 支付成功
     CONFIRM,    // 卖家确认订单
     SHIP,       // 卖家发货
@@ -0,0 +1,44 @@
+package com.xchange.platform.orderstate;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 订单状态流转指令
+ * 描述一次流转：哪个订单、什么事件、谁来操作，以及需要随状态一起写入的附带字段
+ */
+@Data
+@Builder
+public class OrderTransition {
+
+    private Long orderId;
+
+    private OrderEvents event;
+
+    private Long actorId;                 // 操作人ID（支付回调等系统操作可为空）
+
+    @Builder.Default
+    private Ownership ownership = Ownership.NONE;
+
+    private String trackingNumber;        // 附带字段：物流单号（发货时写入）
+
+    private Map<String, Object> metadata; // 事件日志附加信息（如支付单号）
+
+    /**
+     * 是否需要流转前的订单快照（如取消订单需要商品ID和数量回滚库存）
+     * 需要快照时走"读取 + 版本CAS"路径，否则只发一条条件UPDATE
+     */
+    private boolean loadSnapshot;
+
+    /**
+     * 归属校验方式
+     */
+    public enum Ownership {
+        NONE,         // 不校验（系统回调）
+        SELLER,       // 仅卖家
+        BUYER,        // 仅买家
+        PARTICIPANT   // 买家或卖家
+    }
+}
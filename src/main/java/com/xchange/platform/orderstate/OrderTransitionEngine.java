@@ -0,0 +1,193 @@
+package com.xchange.platform.orderstate;
+
+import com.xchange.platform.entity.Order;
+import com.xchange.platform.event.OrderStatusChangedEvent;
+import com.xchange.platform.mapper.OrderMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 订单状态流转引擎（声明式）
+ * 由 VALID_TRANSITIONS 推导每个事件允许的源状态，每次流转只发一条
+ * UPDATE ... WHERE id=? AND status IN (允许的源状态) AND 归属条件，附带字段一并写入；
+ * 只有在真实并发冲突（状态仍允许流转但版本已变化）时才重试：以加锁读到的当前行为快照立即重试，不在持锁期间等待；
+ * 流转成功后发布 OrderStatusChangedEvent
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderTransitionEngine {
+
+    private final OrderMapper orderMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // ==================== 状态流转规则定义 ====================
+    // 定义：当前状态 -> 允许的事件
+    private static final Map<OrderStates, Set<OrderEvents>> VALID_TRANSITIONS = new EnumMap<>(OrderStates.class);
+
+    // 事件 -> 目标状态
+    private static final Map<OrderEvents, OrderStates> EVENT_TARGETS = new EnumMap<>(OrderEvents.class);
+
+    // 事件 -> 允许的源状态（由 VALID_TRANSITIONS 反推）
+    private static final Map<OrderEvents, Set<OrderStates>> EVENT_SOURCES = new EnumMap<>(OrderEvents.class);
+
+    static {
+        VALID_TRANSITIONS.put(OrderStates.PENDING_PAYMENT, Set.of(OrderEvents.PAY, OrderEvents.CANCEL));
+        VALID_TRANSITIONS.put(OrderStates.PAID, Set.of(OrderEvents.CONFIRM, OrderEvents.CANCEL));
+        VALID_TRANSITIONS.put(OrderStates.CONFIRMED, Set.of(OrderEvents.SHIP, OrderEvents.CANCEL));
+        VALID_TRANSITIONS.put(OrderStates.SHIPPED, Set.of(OrderEvents.RECEIVE, OrderEvents.CANCEL));
+        VALID_TRANSITIONS.put(OrderStates.COMPLETED, Set.of()); // 终态
+        VALID_TRANSITIONS.put(OrderStates.CANCELLED, Set.of()); // 终态
+
+        EVENT_TARGETS.put(OrderEvents.PAY, OrderStates.PAID);
+        EVENT_TARGETS.put(OrderEvents.CONFIRM, OrderStates.CONFIRMED);
+        EVENT_TARGETS.put(OrderEvents.SHIP, OrderStates.SHIPPED);
+        EVENT_TARGETS.put(OrderEvents.RECEIVE, OrderStates.COMPLETED);
+        EVENT_TARGETS.put(OrderEvents.CANCEL, OrderStates.CANCELLED);
+
+        for (OrderEvents event : OrderEvents.values()) {
+            EVENT_SOURCES.put(event, EnumSet.noneOf(OrderStates.class));
+        }
+        VALID_TRANSITIONS.forEach((state, events) ->
+                events.forEach(event -> EVENT_SOURCES.get(event).add(state)));
+    }
+
+    // 最大尝试次数（含首次）
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * 执行状态流转
+     * - 源状态唯一且不需要快照：一条条件UPDATE完成，失败时才读取订单诊断原因
+     * - 需要快照（或源状态不唯一）：读取快照后按状态+版本CAS更新
+     * @return 流转结果；状态不允许时返回 applied=false，由调用方决定提示或幂等处理
+     * @throws RuntimeException 订单不存在、无权操作、或冲突重试耗尽
+     */
+    public OrderTransitionResult fire(OrderTransition transition) {
+        OrderEvents event = transition.getEvent();
+        OrderStates target = EVENT_TARGETS.get(event);
+        Set<OrderStates> sources = EVENT_SOURCES.get(event);
+        boolean snapshotMode = transition.isLoadSnapshot() || sources.size() != 1;
+
+        Order snapshot = snapshotMode ? checkOwnership(transition, orderMapper.selectById(transition.getOrderId())) : null;
+
+        for (int attempt = 1; ; attempt++) {
+            OrderStates from;
+            List<Integer> fromStatuses;
+            Integer expectedVersion;
+
+            if (snapshot != null) {
+                from = OrderStateConverter.toStateMachineState(snapshot.getStatus());
+                if (!sources.contains(from)) {
+                    return OrderTransitionResult.rejected(transition, target, snapshot);
+                }
+                fromStatuses = List.of(from.ordinal());
+                expectedVersion = snapshot.getVersion();
+            } else {
+                from = sources.iterator().next();
+                fromStatuses = List.of(from.ordinal());
+                expectedVersion = null;
+            }
+
+            int updated = orderMapper.transitStatus(
+                    transition.getOrderId(),
+                    fromStatuses,
+                    target.ordinal(),
+                    expectedVersion,
+                    ownerParam(transition, OrderTransition.Ownership.SELLER),
+                    ownerParam(transition, OrderTransition.Ownership.BUYER),
+                    ownerParam(transition, OrderTransition.Ownership.PARTICIPANT),
+                    transition.getTrackingNumber()
+            );
+
+            if (updated > 0) {
+                log.info("【状态流转成功】orderId={}, event={}, {} -> {}, attempt={}",
+                        transition.getOrderId(), event, from, target, attempt);
+                publishChanged(transition, from, target);
+                return OrderTransitionResult.applied(transition, from, target, snapshot);
+            }
+
+            // 未命中：用当前读确认原因（RR隔离级别下普通SELECT可能读到事务内的旧快照）
+            Order current = checkOwnership(transition, orderMapper.selectByIdForUpdate(transition.getOrderId()));
+            OrderStates currentState = OrderStateConverter.toStateMachineState(current.getStatus());
+            if (!sources.contains(currentState)) {
+                log.warn("【状态流转拒绝】orderId={}, event={}, currentState={}",
+                        transition.getOrderId(), event, currentState);
+                return OrderTransitionResult.rejected(transition, target, current);
+            }
+
+            // 真实冲突：状态仍允许流转，但版本已被并发修改
+            if (attempt >= MAX_ATTEMPTS) {
+                log.warn("【乐观锁冲突】重试耗尽: orderId={}, event={}, attempts={}",
+                        transition.getOrderId(), event, attempt);
+                throw new RuntimeException("订单正在被处理，请稍后重试");
+            }
+
+            // 当前读已持有行锁（外层事务内），以锁定的行为快照立即重试，退避只会延长锁持有时间
+            log.warn("【乐观锁冲突】orderId={}, event={}, attempt={}, 按当前行重试",
+                    transition.getOrderId(), event, attempt);
+            snapshot = current;
+        }
+    }
+
+    /**
+     * 判断当前状态是否允许执行该事件
+     */
+    public static boolean canFire(OrderStates currentState, OrderEvents event) {
+        Set<OrderEvents> allowedEvents = VALID_TRANSITIONS.get(currentState);
+        return allowedEvents != null && allowedEvents.contains(event);
+    }
+
+    /**
+     * 事件对应的目标状态
+     */
+    public static OrderStates targetOf(OrderEvents event) {
+        return EVENT_TARGETS.get(event);
+    }
+
+    /**
+     * 校验订单存在及归属
+     */
+    private Order checkOwnership(OrderTransition transition, Order order) {
+        if (order == null) {
+            throw new RuntimeException("订单不存在");
+        }
+
+        Long actorId = transition.getActorId();
+        boolean permitted = switch (transition.getOwnership()) {
+            case NONE -> true;
+            case SELLER -> order.getSellerId().equals(actorId);
+            case BUYER -> order.getBuyerId().equals(actorId);
+            case PARTICIPANT -> order.getSellerId().equals(actorId) || order.getBuyerId().equals(actorId);
+        };
+
+        if (!permitted) {
+            throw new RuntimeException("无权操作该订单");
+        }
+        return order;
+    }
+
+    private void publishChanged(OrderTransition transition, OrderStates from, OrderStates to) {
+        eventPublisher.publishEvent(OrderStatusChangedEvent.builder()
+                .orderId(transition.getOrderId())
+                .event(transition.getEvent())
+                .fromState(from)
+                .toState(to)
+                .actorId(transition.getActorId())
+                .metadata(transition.getMetadata())
+                .occurredAt(LocalDateTime.now())
+                .build());
+    }
+
+    private Long ownerParam(OrderTransition transition, OrderTransition.Ownership ownership) {
+        return transition.getOwnership() == ownership ? transition.getActorId() : null;
+    }
+}
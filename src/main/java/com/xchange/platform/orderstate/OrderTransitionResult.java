@@ -0,0 +1,33 @@
+package com.xchange.platform.orderstate;
+
+import com.xchange.platform.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 订单状态流转结果
+ */
+@Getter
+@AllArgsConstructor
+public class OrderTransitionResult {
+
+    private final Long orderId;
+    private final OrderEvents event;
+    private final boolean applied;         // 是否流转成功
+    private final OrderStates fromState;   // 流转前状态
+    private final OrderStates toState;     // 目标状态
+    private final OrderStates currentState; // 当前状态（流转成功时等于目标状态）
+    private final Order order;             // 流转前快照（快速路径成功时为空）
+
+    static OrderTransitionResult applied(OrderTransition transition, OrderStates from,
+                                         OrderStates to, Order snapshot) {
+        return new OrderTransitionResult(transition.getOrderId(), transition.getEvent(),
+                true, from, to, to, snapshot);
+    }
+
+    static OrderTransitionResult rejected(OrderTransition transition, OrderStates to, Order current) {
+        OrderStates currentState = OrderStateConverter.toStateMachineState(current.getStatus());
+        return new OrderTransitionResult(transition.getOrderId(), transition.getEvent(),
+                false, currentState, to, currentState, current);
+    }
+}
@@ -1,55 +1,244 @@
 package com.xchange.platform.repository;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkIngester;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkListener;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.SortOptions;
 import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.mapping.Property;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
 import co.elastic.clients.elasticsearch._types.query_dsl.*;
 import co.elastic.clients.elasticsearch.core.*;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
 import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
 import co.elastic.clients.elasticsearch.core.search.CompletionSuggestOption;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
+import co.elastic.clients.elasticsearch.core.search.SourceConfig;
 import co.elastic.clients.elasticsearch.core.search.TotalHits;
+import co.elastic.clients.elasticsearch.core.search.TotalHitsRelation;
+import co.elastic.clients.elasticsearch.core.search.TrackHits;
 import co.elastic.clients.elasticsearch.indices.*;
 import co.elastic.clients.json.JsonData;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xchange.platform.component.SearchMetrics;
 import com.xchange.platform.document.ProductDocument;
+import com.xchange.platform.dto.ProductSearchDTO;
+import com.xchange.platform.mapper.ProductMapper;
+import com.xchange.platform.vo.FacetBucketVO;
+import com.xchange.platform.vo.ProductFacetsVO;
+import com.xchange.platform.vo.ProductListItemVO;
+import com.xchange.platform.vo.ProductSearchPageVO;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Repository;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * 商品ES仓储类
  * 基于 Elasticsearch Java Client 8.x 原生API
- * 功能：索引管理、文档CRUD、复杂搜索、自动补全、滚动查询
+ * 功能：索引管理、文档CRUD、复杂搜索、分面统计、自动补全、滚动查询
  */
 @Slf4j
 @Repository
 @RequiredArgsConstructor
-public class ProductESRepository {
+public class ProductESRepository implements ProductSearchRepository {
 
     private final ElasticsearchClient client;
+    private final ElasticsearchAsyncClient asyncClient;
+    private final ObjectMapper objectMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SearchMetrics searchMetrics;
+    private final ProductMapper productMapper;
+
+    // 读写别名
     private static final String INDEX_NAME = "xchange_products";
 
+    // 物理索引前缀：xchange_products_v1, xchange_products_v2 ...
+    private static final String VERSION_PREFIX = INDEX_NAME + "_v";
+
+    // 正在构建的索引（双写目标）
+    private static final String BUILDING_INDEX_KEY = "search:reindex:building";
+
+    // 本节点缓存双写目标的时长（毫秒）
+    public static final long DUAL_WRITE_REFRESH_MS = 1000;
+
+    private volatile String buildingIndex;
+    private volatile long buildingIndexLoadedAt;
+
+    /**
+     * 索引映射版本：修改下方映射时递增，启动时与线上索引 _meta.mapping_version 比对，落后则需重建迁移
+     */
+    public static final int MAPPING_VERSION = 4;
+
+    // 未填写校区的商品使用的路由值
+    private static final String DEFAULT_ROUTING = "_";
+
+    // 索引映射（唯一定义，含IK分词器配置）：
+    // 价格用 scaled_float（按分存储）；图片URL只存 _source，不建索引与 doc values；
+    // 常用筛选/聚合的 keyword 预加载全局序号；按信息流排序字段预排序，首页查询可提前终止；
+    // 文档按校区路由（必填），同一校区的商品落在同一分片，带校区条件的查询只访问一个分片
+    private static final String MAPPING_JSON = """
+            {
+                "mappings": {
+                    "dynamic": false,
+                    "_routing": { "required": true },
+                    "_meta": { "mapping_version": %d },
+                    "properties": {
+                        "id": { "type": "long" },
+                        "name": {
+                            "type": "text",
+                            "analyzer": "ik_max_word",
+                            "search_analyzer": "ik_smart",
+                            "fields": {
+                                "keyword": { "type": "keyword" },
+                                "suggest": {
+                                    "type": "completion",
+                                    "analyzer": "ik_smart"
+                                }
+                            }
+                        },
+                        "description": {
+                            "type": "text",
+                            "analyzer": "ik_max_word",
+                            "search_analyzer": "ik_smart"
+                        },
+                        "price": { "type": "scaled_float", "scaling_factor": 100 },
+                        "stock": { "type": "integer" },
+                        "soldOut": { "type": "boolean" },
+                        "campusLocation": { "type": "keyword", "eager_global_ordinals": true },
+                        "status": { "type": "integer" },
+                        "sellerId": { "type": "long" },
+                        "categoryId": { "type": "long" },
+                        "categoryName": { "type": "keyword", "eager_global_ordinals": true },
+                        "coverImageUrl": { "type": "keyword", "index": false, "doc_values": false },
+                        "detailImageUrls": { "type": "keyword", "index": false, "doc_values": false },
+                        "createTime": {
+                            "type": "date",
+                            "format": "yyyy-MM-dd HH:mm:ss"
+                        },
+                        "updateTime": {
+                            "type": "date",
+                            "format": "yyyy-MM-dd HH:mm:ss",
+                            "index": false
+                        },
+                        "viewCount": { "type": "long", "index": false },
+                        "popularity": { "type": "double", "index": false },
+                        "tags": { "type": "keyword" },
+                        "searchBoost": { "type": "integer", "index": false }
+                    }
+                },
+                "settings": {
+                    "number_of_shards": 3,
+                    "number_of_replicas": 0,
+                    "refresh_interval": "1s",
+                    "index": {
+                        "sort.field": ["createTime", "id"],
+                        "sort.order": ["desc", "desc"]
+                    }
+                }
+            }
+            """.formatted(MAPPING_VERSION);
+
+    // from/size 分页的最大窗口（超出后必须使用游标）
+    private static final int MAX_FROM_WINDOW = 1000;
+
+    // 默认总数统计上限
+    private static final int TOTAL_HITS_THRESHOLD = 10000;
+
+    // 分面：价格区间宽度（元）、校区与分类最多返回的桶数
+    private static final double PRICE_FACET_INTERVAL = 100;
+    private static final int TERMS_FACET_SIZE = 20;
+
+    private static final String FACET_CAMPUS = "campusLocation";
+    private static final String FACET_CATEGORY = "categoryId";
+    private static final String FACET_PRICE = "price";
+
+    // 一致性巡检每页读取的文档数
+    private static final int SCAN_PAGE_SIZE = 1000;
+
+    // 一致性修复时保留索引中的值：热度分与搜索权重由离线任务写入，不来自MySQL
+    private static final Set<String> DERIVED_FIELDS = Set.of("popularity", "searchBoost");
+
+    // PIT 保活时间（每次翻页续期）
+    private static final String PIT_KEEP_ALIVE = "2m";
+
+    // 信息流排序：发布时间倒序，ID作为唯一的决胜字段
+    private static final List<SortOptions> FEED_SORT = List.of(
+            SortOptions.of(so -> so.field(f -> f.field("createTime").order(SortOrder.Desc))),
+            SortOptions.of(so -> so.field(f -> f.field("id").order(SortOrder.Desc)))
+    );
+
+    // 热度排序：相关度 + 热度分×权重 + log1p(搜索权重)，最后按发布时间决胜
+    private static final double POPULARITY_WEIGHT = 2.0;
+    private static final List<SortOptions> RANK_SORT = List.of(
+            SortOptions.of(so -> so.score(sc -> sc.order(SortOrder.Desc))),
+            SortOptions.of(so -> so.field(f -> f.field("createTime").order(SortOrder.Desc))),
+            SortOptions.of(so -> so.field(f -> f.field("id").order(SortOrder.Desc)))
+    );
+
+    // 相似商品：more_like_this 最多选取的词项数、词项至少出现的文档数
+    private static final int SIMILAR_MAX_QUERY_TERMS = 25;
+    private static final int SIMILAR_MIN_DOC_FREQ = 2;
+
+    // 列表投影：搜索结果只取卡片展示字段，描述、详情图、标签等不随列表返回
+    private static final SourceConfig LIST_SOURCE = SourceConfig.of(sc -> sc
+            .filter(f -> f.includes(ProductListItemVO.SOURCE_FIELDS)));
+
+    // 存储的搜索模板：id 带映射版本，映射升级后新代码注册并使用新模板；模板内容变更时递增 TEMPLATE_REVISION
+    private static final int TEMPLATE_REVISION = 1;
+    static final String LATEST_TEMPLATE_ID = "product-search-latest-m" + MAPPING_VERSION + "-r" + TEMPLATE_REVISION;
+    static final String POPULAR_TEMPLATE_ID = "product-search-popular-m" + MAPPING_VERSION + "-r" + TEMPLATE_REVISION;
+
+    // 模板注册成功后 page 模式的普通搜索只发送模板id与参数
+    private volatile boolean templatesReady;
+
     // ==================== 索引管理 ====================
+    // 应用只通过别名 xchange_products 读写，物理索引为 xchange_products_v{n}；
+    // 重建时写入新版本索引，期间增量写入同时写新旧两个索引，校验后原子切换别名
 
     /**
-     * 检查索引是否存在
+     * 检查别名（或旧版同名物理索引）是否存在
      */
     public boolean indexExists() {
+        return indexExists(INDEX_NAME);
+    }
+
+    public boolean indexExists(String index) {
         try {
-            return client.indices().exists(e -> e.index(INDEX_NAME)).value();
+            return client.indices().exists(e -> e.index(index)).value();
         } catch (IOException e) {
-            log.error("检查索引失败: index={}, error={}", INDEX_NAME, e.getMessage());
+            log.error("检查索引失败: index={}, error={}", index, e.getMessage());
             return false;
         }
     }
 
     /**
-     * 创建商品索引（带IK分词器映射）
+     * 确保索引可用：别名不存在时创建 v1 物理索引并挂上别名
      */
     public void createIndex() {
         if (indexExists()) {
@@ -57,65 +246,31 @@ public class ProductESRepository {
             return;
         }
 
+        String physicalIndex = VERSION_PREFIX + 1;
+        createPhysicalIndex(physicalIndex);
         try {
-            log.info("开始创建ES索引: {}", INDEX_NAME);
-
-            // 定义映射（包含IK分词器配置）
-            String mappingJson = """
-                {
-                    "mappings": {
-                        "properties": {
-                            "id": { "type": "long" },
-                            "name": {
-                                "type": "text",
-                                "analyzer": "ik_max_word",
-                                "search_analyzer": "ik_smart",
-                                "fields": {
-                                    "keyword": { "type": "keyword" },
-                                    "suggest": {
-                                        "type": "completion",
-                                        "analyzer": "ik_smart"
-                                    }
-                                }
-                            },
-                            "description": {
-                                "type": "text",
-                                "analyzer": "ik_max_word",
-                                "search_analyzer": "ik_smart"
-                            },
-                            "price": { "type": "double" },
-                            "stock": { "type": "integer" },
-                            "campusLocation": { "type": "keyword" },
-                            "status": { "type": "integer" },
-                            "sellerId": { "type": "long" },
-                            "categoryId": { "type": "long" },
-                            "categoryName": { "type": "keyword" },
-                            "coverImageUrl": { "type": "keyword" },
-                            "detailImageUrls": { "type": "keyword" },
-                            "createTime": {
-                                "type": "date",
-                                "format": "yyyy-MM-dd HH:mm:ss"
-                            },
-                            "viewCount": { "type": "long", "index": false },
-                            "tags": { "type": "keyword" },
-                            "searchBoost": { "type": "integer", "index": false }
-                        }
-                    },
-                    "settings": {
-                        "number_of_shards": 1,
-                        "number_of_replicas": 0,
-                        "refresh_interval": "1s"
-                    }
-                }
-                """;
+            client.indices().putAlias(a -> a.index(physicalIndex).name(INDEX_NAME));
+            log.info("ES别名创建成功: {} -> {}", INDEX_NAME, physicalIndex);
+        } catch (IOException e) {
+            log.error("创建别名失败: {}", e.getMessage());
+            throw new RuntimeException("创建ES别名失败", e);
+        }
+    }
+
+    /**
+     * 创建物理索引（带IK分词器映射）
+     */
+    public void createPhysicalIndex(String index) {
+        try {
+            log.info("开始创建ES索引: {}", index);
 
             CreateIndexRequest request = CreateIndexRequest.of(b -> b
-                    .index(INDEX_NAME)
-                    .withJson(new java.io.StringReader(mappingJson))
+                    .index(index)
+                    .withJson(new java.io.StringReader(MAPPING_JSON))
             );
 
             CreateIndexResponse response = client.indices().create(request);
-            log.info("ES索引创建成功: {}, acknowledged={}", INDEX_NAME, response.acknowledged());
+            log.info("ES索引创建成功: {}, acknowledged={}", index, response.acknowledged());
         } catch (IOException e) {
             log.error("创建索引失败: {}", e.getMessage());
             throw new RuntimeException("创建ES索引失败", e);
@@ -123,35 +278,304 @@ public class ProductESRepository {
     }
 
     /**
-     * 删除索引
+     * 比对线上索引映射与 MAPPING_JSON：映射版本及每个字段的类型
+     * @return 不一致项（为空表示一致）
      */
-    public void deleteIndex() {
+    public List<String> verifyMapping() {
+        List<String> differences = new ArrayList<>();
         try {
-            DeleteIndexRequest request = DeleteIndexRequest.of(d -> d.index(INDEX_NAME));
+            JsonNode expected = objectMapper.readTree(MAPPING_JSON).path("mappings").path("properties");
+            GetMappingResponse response = client.indices().getMapping(g -> g.index(INDEX_NAME));
+
+            response.result().forEach((index, record) -> {
+                TypeMapping live = record.mappings();
+                JsonData version = live.meta().get("mapping_version");
+                int liveVersion = version == null ? 1 : version.to(Integer.class);
+                if (liveVersion != MAPPING_VERSION) {
+                    differences.add(index + " 映射版本 " + liveVersion + "，期望 " + MAPPING_VERSION);
+                }
+
+                expected.fields().forEachRemaining(field -> {
+                    String expectedType = field.getValue().path("type").asText();
+                    Property property = live.properties().get(field.getKey());
+                    String liveType = property == null ? "缺失" : property._kind().jsonValue();
+                    if (!expectedType.equals(liveType)) {
+                        differences.add(index + "." + field.getKey() + " 类型 " + liveType + "，期望 " + expectedType);
+                    }
+                });
+            });
+        } catch (IOException e) {
+            log.error("读取索引映射失败: {}", e.getMessage());
+            throw new RuntimeException("读取ES索引映射失败", e);
+        }
+        return differences;
+    }
+
+    /**
+     * 删除物理索引
+     */
+    public void deleteIndex(String index) {
+        try {
+            DeleteIndexRequest request = DeleteIndexRequest.of(d -> d.index(index));
             DeleteIndexResponse response = client.indices().delete(request);
-            log.info("ES索引删除成功: {}, acknowledged={}", INDEX_NAME, response.acknowledged());
+            log.info("ES索引删除成功: {}, acknowledged={}", index, response.acknowledged());
         } catch (IOException e) {
             log.error("删除索引失败: {}", e.getMessage());
             throw new RuntimeException("删除ES索引失败", e);
         }
     }
 
+    /**
+     * 别名当前指向的物理索引（旧版部署中 xchange_products 为物理索引时返回其自身）
+     */
+    public List<String> currentIndices() {
+        try {
+            if (client.indices().existsAlias(a -> a.name(INDEX_NAME)).value()) {
+                return new ArrayList<>(client.indices().getAlias(a -> a.name(INDEX_NAME)).result().keySet());
+            }
+            return indexExists() ? List.of(INDEX_NAME) : List.of();
+        } catch (IOException e) {
+            log.error("查询别名失败: {}", e.getMessage());
+            throw new RuntimeException("查询ES别名失败", e);
+        }
+    }
+
+    /**
+     * 已存在的版本索引，按版本号升序
+     */
+    public List<String> versionedIndices() {
+        try {
+            return client.indices().get(g -> g.index(VERSION_PREFIX + "*")).result().keySet().stream()
+                    .filter(name -> name.substring(VERSION_PREFIX.length()).matches("\\d+"))
+                    .sorted(Comparator.comparingInt(ProductESRepository::versionOf))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.error("查询版本索引失败: {}", e.getMessage());
+            throw new RuntimeException("查询ES索引失败", e);
+        }
+    }
+
+    /**
+     * 下一个版本索引名
+     */
+    public String nextIndexName() {
+        List<String> indices = versionedIndices();
+        int next = indices.isEmpty() ? 1 : versionOf(indices.get(indices.size() - 1)) + 1;
+        return VERSION_PREFIX + next;
+    }
+
+    /**
+     * 原子切换别名到目标索引；旧版同名物理索引在同一请求中删除（无法保留回滚）
+     */
+    public void switchAlias(String targetIndex) {
+        List<String> current = currentIndices();
+        try {
+            boolean legacy = current.contains(INDEX_NAME);
+            client.indices().updateAliases(u -> {
+                for (String index : current) {
+                    if (legacy) {
+                        u.actions(a -> a.removeIndex(r -> r.index(index)));
+                    } else if (!index.equals(targetIndex)) {
+                        u.actions(a -> a.remove(r -> r.index(index).alias(INDEX_NAME)));
+                    }
+                }
+                u.actions(a -> a.add(ad -> ad.index(targetIndex).alias(INDEX_NAME)));
+                return u;
+            });
+            log.info("ES别名已切换: {} -> {}（原: {}）", INDEX_NAME, targetIndex, current);
+        } catch (IOException e) {
+            log.error("切换别名失败: {}", e.getMessage());
+            throw new RuntimeException("切换ES别名失败", e);
+        }
+    }
+
+    /**
+     * 统计索引文档数
+     */
+    public long count(String index) {
+        long start = System.nanoTime();
+        try {
+            CountRequest request = CountRequest.of(c -> c.index(index));
+            long count = client.count(request).count();
+            searchMetrics.record("count", "index", start, null, count, request);
+            return count;
+        } catch (IOException e) {
+            searchMetrics.recordFailure("count", "index", start);
+            log.error("统计文档数失败: index={}, error={}", index, e.getMessage());
+            throw new RuntimeException("统计ES文档数失败", e);
+        }
+    }
+
+    private static int versionOf(String index) {
+        return Integer.parseInt(index.substring(VERSION_PREFIX.length()));
+    }
+
+    // ==================== 重建期间双写 ====================
+
+    /**
+     * 开始双写：增量写入同时写入正在构建的索引（记录在Redis，所有节点生效）
+     */
+    public void startDualWrite(String buildingIndex, long ttlMinutes) {
+        stringRedisTemplate.opsForValue().set(BUILDING_INDEX_KEY, buildingIndex, ttlMinutes, TimeUnit.MINUTES);
+        this.buildingIndex = buildingIndex;
+        this.buildingIndexLoadedAt = System.currentTimeMillis();
+        log.info("开始双写: {} + {}", INDEX_NAME, buildingIndex);
+    }
+
+    /**
+     * 双写续期（进程退出后自动过期）
+     */
+    public void renewDualWrite(long ttlMinutes) {
+        stringRedisTemplate.expire(BUILDING_INDEX_KEY, ttlMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 当前正在构建的索引（无则返回null）
+     */
+    public String buildingIndex() {
+        return stringRedisTemplate.opsForValue().get(BUILDING_INDEX_KEY);
+    }
+
+    public void stopDualWrite() {
+        stringRedisTemplate.delete(BUILDING_INDEX_KEY);
+        this.buildingIndex = null;
+        this.buildingIndexLoadedAt = System.currentTimeMillis();
+        log.info("结束双写");
+    }
+
+    /**
+     * 增量写入的目标：别名 + 正在构建的索引（本地缓存 DUAL_WRITE_REFRESH_MS）
+     */
+    public List<String> writeTargets() {
+        long now = System.currentTimeMillis();
+        if (now - buildingIndexLoadedAt > DUAL_WRITE_REFRESH_MS) {
+            try {
+                buildingIndex = stringRedisTemplate.opsForValue().get(BUILDING_INDEX_KEY);
+            } catch (Exception e) {
+                log.warn("读取双写目标失败，沿用本地值: {}", e.getMessage());
+            }
+            buildingIndexLoadedAt = now;
+        }
+        String building = buildingIndex;
+        return building == null ? List.of(INDEX_NAME) : List.of(INDEX_NAME, building);
+    }
+
+    /**
+     * 读取索引的刷新间隔与副本数
+     * @return [refreshInterval, numberOfReplicas]
+     */
+    public String[] getRefreshAndReplicas(String index) {
+        try {
+            IndexSettings settings = client.indices().getSettings(g -> g.index(index))
+                    .get(index).settings().index();
+            String refresh = settings != null && settings.refreshInterval() != null
+                    ? settings.refreshInterval().time() : "1s";
+            String replicas = settings != null && settings.numberOfReplicas() != null
+                    ? settings.numberOfReplicas() : "0";
+            return new String[]{refresh, replicas};
+        } catch (IOException e) {
+            log.error("读取索引设置失败: index={}, error={}", index, e.getMessage());
+            throw new RuntimeException("读取ES索引设置失败", e);
+        }
+    }
+
+    /**
+     * 修改刷新间隔与副本数（批量导入时设为 -1 / 0，结束后恢复）
+     */
+    public void updateRefreshAndReplicas(String index, String refreshInterval, String replicas) {
+        try {
+            client.indices().putSettings(p -> p
+                    .index(index)
+                    .settings(s -> s
+                            .refreshInterval(t -> t.time(refreshInterval))
+                            .numberOfReplicas(replicas)
+                    )
+            );
+            log.info("索引设置已更新: index={}, refresh_interval={}, replicas={}", index, refreshInterval, replicas);
+        } catch (IOException e) {
+            log.error("更新索引设置失败: index={}, error={}", index, e.getMessage());
+            throw new RuntimeException("更新ES索引设置失败", e);
+        }
+    }
+
+    /**
+     * 手动刷新索引
+     */
+    public void refresh(String index) {
+        try {
+            client.indices().refresh(r -> r.index(index));
+        } catch (IOException e) {
+            log.error("刷新索引失败: index={}, error={}", index, e.getMessage());
+        }
+    }
+
     // ==================== 文档操作 ====================
 
     /**
      * 保存单个文档（索引或更新）
      */
+    @Override
     public void save(ProductDocument document) {
+        for (String index : writeTargets()) {
+            try {
+                String routing = routing(document.getCampusLocation());
+                IndexRequest<ProductDocument> request = IndexRequest.of(i -> i
+                        .index(index)
+                        .id(document.getId().toString())
+                        .routing(routing)
+                        .document(document)
+                );
+
+                long start = System.nanoTime();
+                IndexResponse response = client.index(request);
+                searchMetrics.record("index", "single", start, null, 1, request);
+                log.debug("ES文档保存成功: index={}, id={}, result={}", index, document.getId(), response.result().jsonValue());
+            } catch (IOException e) {
+                log.error("ES文档保存失败: index={}, id={}, error={}", index, document.getId(), e.getMessage());
+                throw new RuntimeException("保存ES文档失败", e);
+            }
+        }
+    }
+
+    /**
+     * 保存单个文档；路由随校区变化时，同一个bulk请求内删除旧路由下的文档，跨校区搜索不会出现两份
+     */
+    @Override
+    public void save(ProductDocument document, String previousCampus) {
+        String oldRouting = previousCampus != null ? routing(previousCampus) : null;
+        if (oldRouting == null || oldRouting.equals(routing(document.getCampusLocation()))) {
+            save(document);
+            return;
+        }
+
+        long start = System.nanoTime();
         try {
-            IndexRequest<ProductDocument> request = IndexRequest.of(i -> i
-                    .index(INDEX_NAME)
-                    .id(document.getId().toString())
-                    .document(document)
-            );
+            BulkRequest.Builder bulkBuilder = new BulkRequest.Builder();
+            for (String index : writeTargets()) {
+                bulkBuilder.operations(indexOperation(index, document));
+                bulkBuilder.operations(op -> op
+                        .delete(d -> d
+                                .index(index)
+                                .id(document.getId().toString())
+                                .routing(oldRouting)
+                        )
+                );
+            }
 
-            IndexResponse response = client.index(request);
-            log.debug("ES文档保存成功: id={}, result={}", document.getId(), response.result().jsonValue());
+            BulkResponse response = client.bulk(bulkBuilder.build());
+            searchMetrics.record("bulk", "move", start, response.took(), response.items().size(),
+                    "bulk move id=" + document.getId() + " from=" + oldRouting);
+            for (BulkResponseItem item : response.items()) {
+                // 旧路由文档已不存在（404）不算失败
+                if (item.error() != null && item.status() != 404) {
+                    log.error("ES换校区写入失败: index={}, id={}, error={}", item.index(), item.id(), item.error().reason());
+                    throw new RuntimeException("保存ES文档失败");
+                }
+            }
+            log.info("ES文档已迁移路由: id={}, {} -> {}", document.getId(), oldRouting,
+                    routing(document.getCampusLocation()));
         } catch (IOException e) {
+            searchMetrics.recordFailure("bulk", "move", start);
             log.error("ES文档保存失败: id={}, error={}", document.getId(), e.getMessage());
             throw new RuntimeException("保存ES文档失败", e);
         }
@@ -160,6 +584,7 @@ public class ProductESRepository {
     /**
      * 批量保存文档（性能优化）
      */
+    @Override
     public void saveAll(List<ProductDocument> documents) {
         if (documents == null || documents.isEmpty()) {
             return;
@@ -168,17 +593,16 @@ public class ProductESRepository {
         try {
             BulkRequest.Builder bulkBuilder = new BulkRequest.Builder();
 
-            for (ProductDocument doc : documents) {
-                bulkBuilder.operations(op -> op
-                        .index(idx -> idx
-                                .index(INDEX_NAME)
-                                .id(doc.getId().toString())
-                                .document(doc)
-                        )
-                );
+            for (String index : writeTargets()) {
+                for (ProductDocument doc : documents) {
+                    bulkBuilder.operations(indexOperation(index, doc));
+                }
             }
 
+            long start = System.nanoTime();
             BulkResponse response = client.bulk(bulkBuilder.build());
+            searchMetrics.record("bulk", "index", start, response.took(), response.items().size(),
+                    "bulk index items=" + response.items().size());
 
             if (response.errors()) {
                 log.error("批量保存存在错误: items={}", response.items().size());
@@ -198,46 +622,426 @@ public class ProductESRepository {
     }
 
     /**
-     * 根据ID删除文档
+     * 创建批量导入器：攒够 maxOperations 条或到达刷新间隔即发送，
+     * 在途请求达到 maxConcurrentRequests 时 add() 阻塞（背压）
      */
-    public void deleteById(Long productId) {
+    public <C> BulkIngester<C> createBulkIngester(BulkListener<C> listener, int maxOperations, int maxConcurrentRequests) {
+        return BulkIngester.of(b -> b
+                .client(client)
+                .maxOperations(maxOperations)
+                .maxConcurrentRequests(maxConcurrentRequests)
+                .flushInterval(1, TimeUnit.SECONDS)
+                .listener(listener)
+        );
+    }
+
+    /**
+     * 构建文档索引操作（供批量写入使用）
+     */
+    public BulkOperation indexOperation(String index, ProductDocument document) {
+        return BulkOperation.of(op -> op
+                .index(idx -> idx
+                        .index(index)
+                        .id(document.getId().toString())
+                        .routing(routing(document.getCampusLocation()))
+                        .document(document)
+                )
+        );
+    }
+
+    /**
+     * 构建文档创建操作（供重建使用：文档已存在时返回409，不覆盖双写写入的新数据）
+     */
+    public BulkOperation createOperation(String index, ProductDocument document) {
+        return BulkOperation.of(op -> op
+                .create(idx -> idx
+                        .index(index)
+                        .id(document.getId().toString())
+                        .routing(routing(document.getCampusLocation()))
+                        .document(document)
+                )
+        );
+    }
+
+    /**
+     * 更新售罄标记（局部更新，重建期间同时更新正在构建的索引；文档尚未导入时忽略，由全量导入写入最新值）
+     * 不等待刷新：实时库存在返回结果时从Redis读取，标记随常规刷新可见即可
+     */
+    @Override
+    public void updateSoldOut(Long productId, boolean soldOut) {
+        Map<String, Object> updateDoc = new HashMap<>();
+        updateDoc.put("soldOut", soldOut);
+        String routing = routingsOf(List.of(productId)).get(productId);
+
+        for (String index : writeTargets()) {
+            try {
+                long start = System.nanoTime();
+                UpdateResponse<Map> response = client.update(u -> u
+                                .index(index)
+                                .id(productId.toString())
+                                .routing(routing)
+                                .doc(updateDoc)
+                                .retryOnConflict(5),
+                        Map.class // 使用Map.class避免反序列化问题
+                );
+                searchMetrics.record("update", "soldOut", start, null, 1,
+                        "update id=" + productId + " soldOut=" + soldOut);
+                log.info("ES售罄标记更新成功: index={}, id={}, soldOut={}, version={}",
+                        index, productId, soldOut, response.version());
+            } catch (ElasticsearchException e) {
+                if (e.status() != 404) {
+                    log.error("ES售罄标记更新失败: index={}, id={}, error={}", index, productId, e.getMessage());
+                }
+            } catch (IOException e) {
+                log.error("ES售罄标记更新失败: index={}, id={}, error={}", index, productId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 批量更新热度分
+     */
+    @Override
+    public void updatePopularity(Map<Long, Double> scores) {
+        bulkUpdateField("popularity", scores);
+    }
+
+    /**
+     * 批量更新浏览量（MySQL中的累计值）
+     */
+    @Override
+    public void updateViewCounts(Map<Long, Long> viewCounts) {
+        bulkUpdateField("viewCount", viewCounts);
+    }
+
+    /**
+     * 单字段批量局部更新：一次bulk请求，重建期间同时更新正在构建的索引；文档不存在（404）时忽略
+     */
+    private void bulkUpdateField(String field, Map<Long, ?> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+
         try {
-            DeleteRequest request = DeleteRequest.of(d -> d
-                    .index(INDEX_NAME)
-                    .id(productId.toString())
-            );
+            BulkRequest.Builder bulkBuilder = new BulkRequest.Builder();
+            Map<Long, String> routings = routingsOf(values.keySet());
+            for (String index : writeTargets()) {
+                for (Map.Entry<Long, ?> entry : values.entrySet()) {
+                    bulkBuilder.operations(op -> op
+                            .update(u -> u
+                                    .index(index)
+                                    .id(entry.getKey().toString())
+                                    .routing(routings.get(entry.getKey()))
+                                    .action(a -> a.doc(Map.of(field, entry.getValue())))
+                            )
+                    );
+                }
+            }
 
-            DeleteResponse response = client.delete(request);
-            log.debug("ES文档删除成功: id={}, result={}", productId, response.result().jsonValue());
+            long start = System.nanoTime();
+            BulkResponse response = client.bulk(bulkBuilder.build());
+            searchMetrics.record("bulk", "update:" + field, start, response.took(), response.items().size(),
+                    "bulk update field=" + field + " items=" + response.items().size());
+            if (response.errors()) {
+                long failed = response.items().stream()
+                        .filter(item -> item.error() != null && item.status() != 404)
+                        .peek(item -> log.warn("ES局部更新失败: field={}, index={}, id={}, error={}",
+                                field, item.index(), item.id(), item.error().reason()))
+                        .count();
+                log.info("ES批量局部更新完成: field={}, count={}, failed={}", field, values.size(), failed);
+            } else {
+                log.debug("ES批量局部更新完成: field={}, count={}", field, values.size());
+            }
         } catch (IOException e) {
-            log.error("ES文档删除失败: id={}, error={}", productId, e.getMessage());
+            log.error("ES批量局部更新失败: field={}, error={}", field, e.getMessage());
+            throw new RuntimeException("批量更新失败", e);
+        }
+    }
+
+    // ==================== 校区路由 ====================
+
+    /**
+     * 文档路由值：按校区路由，未填写校区的商品归入默认路由
+     */
+    public static String routing(String campusLocation) {
+        return StringUtils.isBlank(campusLocation) ? DEFAULT_ROUTING : campusLocation;
+    }
+
+    /**
+     * 写入用的路由值：按MySQL中商品的校区计算（含已逻辑删除的商品），不依赖索引的近实时可见性，
+     * 刷新前的文档、重建中关闭刷新的新索引同样能按ID删除与局部更新；MySQL中不存在的商品按默认路由
+     * @return 商品ID -> 路由值（每个传入的ID都有值）
+     */
+    private Map<Long, String> routingsOf(Collection<Long> productIds) {
+        Map<Long, String> routings = new HashMap<>();
+        for (Map<String, Object> row : productMapper.selectCampusIncludingDeleted(productIds)) {
+            routings.put(((Number) row.get("id")).longValue(), routing((String) row.get("campusLocation")));
+        }
+        for (Long productId : productIds) {
+            if (routings.putIfAbsent(productId, DEFAULT_ROUTING) == null) {
+                log.warn("商品不存在，按默认路由写入: id={}", productId);
+            }
+        }
+        return routings;
+    }
+
+    /**
+     * 查询文档在索引中的路由值（按ID查询所有分片，只取元数据）；
+     * 只供读取（相似商品的源文档）使用，未找到（含尚未刷新可见）的文档不在结果中
+     * @return 文档ID -> 路由值
+     */
+    private Map<String, String> routingOf(String index, Collection<Long> productIds) throws IOException {
+        List<String> ids = productIds.stream().map(String::valueOf).collect(Collectors.toList());
+        SearchRequest request = SearchRequest.of(s -> s
+                .index(index)
+                .query(q -> q.ids(i -> i.values(ids)))
+                .source(src -> src.fetch(false))
+                .size(ids.size()));
+        long start = System.nanoTime();
+        SearchResponse<Void> response = client.search(request, Void.class);
+        searchMetrics.record("search", "routing", start, response.took(), response.hits().hits().size(), request);
+
+        Map<String, String> routings = new HashMap<>();
+        for (Hit<Void> hit : response.hits().hits()) {
+            routings.put(hit.id(), hit.routing() != null ? hit.routing() : DEFAULT_ROUTING);
+        }
+        return routings;
+    }
+
+    /**
+     * 根据ID删除文档
+     */
+    @Override
+    public void deleteById(Long productId) {
+        String routing = routingsOf(List.of(productId)).get(productId);
+        for (String index : writeTargets()) {
+            long start = System.nanoTime();
+            try {
+                DeleteRequest request = DeleteRequest.of(d -> d
+                        .index(index)
+                        .id(productId.toString())
+                        .routing(routing)
+                );
+
+                DeleteResponse response = client.delete(request);
+                searchMetrics.record("delete", "single", start, null, 1, request);
+                log.debug("ES文档删除成功: index={}, id={}, result={}", index, productId, response.result().jsonValue());
+            } catch (IOException e) {
+                searchMetrics.recordFailure("delete", "single", start);
+                log.error("ES文档删除失败: index={}, id={}, error={}", index, productId, e.getMessage());
+            }
         }
     }
 
     /**
      * 根据ID批量删除
      */
+    @Override
     public void deleteAllByIds(List<Long> productIds) {
         if (productIds == null || productIds.isEmpty()) {
             return;
         }
 
+        long start = System.nanoTime();
         try {
             BulkRequest.Builder bulkBuilder = new BulkRequest.Builder();
+            Map<Long, String> routings = routingsOf(productIds);
+            for (String index : writeTargets()) {
+                for (Long productId : productIds) {
+                    bulkBuilder.operations(op -> op
+                            .delete(d -> d
+                                    .index(index)
+                                    .id(productId.toString())
+                                    .routing(routings.get(productId))
+                            )
+                    );
+                }
+            }
 
-            for (Long id : productIds) {
+            start = System.nanoTime();
+            BulkResponse response = client.bulk(bulkBuilder.build());
+            searchMetrics.record("bulk", "delete", start, response.took(), response.items().size(),
+                    "bulk delete items=" + response.items().size());
+            log.info("ES批量删除成功: count={}", productIds.size());
+        } catch (IOException e) {
+            searchMetrics.recordFailure("bulk", "delete", start);
+            log.error("ES批量删除失败: {}", e.getMessage());
+            throw new RuntimeException("批量删除失败", e);
+        }
+    }
+
+    // ==================== 一致性巡检 ====================
+
+    /**
+     * 索引中的一份文档（同一商品更换校区后旧路由下可能残留一份）
+     * @param updateTime 文档的 updateTime（epoch 毫秒），缺失时为null
+     */
+    public record IndexedDoc(long id, String routing, Long updateTime) {
+    }
+
+    /**
+     * 读取ID区间 (afterId, toId] 内的全部文档：不取 _source，只读 updateTime 的 doc values 与路由
+     * 按ID升序分页，每页丢弃末尾ID的文档从该ID重新读取，同一ID的多份文档不会被分页截断
+     */
+    public List<IndexedDoc> indexedDocs(long afterId, long toId) {
+        return indexedDocs(INDEX_NAME, afterId, toId);
+    }
+
+    /**
+     * 读取指定物理索引ID区间内的全部文档（重建切换前清理用）
+     */
+    public List<IndexedDoc> indexedDocs(String index, long afterId, long toId) {
+        List<IndexedDoc> docs = new ArrayList<>();
+        long cursor = afterId;
+        try {
+            while (true) {
+                long from = cursor;
+                SearchRequest request = SearchRequest.of(s -> s
+                        .index(index)
+                        .query(q -> q.range(r -> r.field("id").gt(JsonData.of(from)).lte(JsonData.of(toId))))
+                        .source(src -> src.fetch(false))
+                        .docvalueFields(f -> f.field("updateTime").format("epoch_millis"))
+                        .sort(so -> so.field(f -> f.field("id").order(SortOrder.Asc)))
+                        .size(SCAN_PAGE_SIZE)
+                        .trackTotalHits(t -> t.enabled(false)));
+                long start = System.nanoTime();
+                SearchResponse<Void> response = client.search(request, Void.class);
+                List<Hit<Void>> hits = response.hits().hits();
+                searchMetrics.record("search", "scan", start, response.took(), hits.size(), request);
+
+                List<IndexedDoc> page = hits.stream().map(ProductESRepository::toIndexedDoc).toList();
+                if (page.size() < SCAN_PAGE_SIZE) {
+                    docs.addAll(page);
+                    return docs;
+                }
+                long lastId = page.get(page.size() - 1).id();
+                List<IndexedDoc> complete = page.stream().filter(doc -> doc.id() < lastId).toList();
+                if (complete.isEmpty()) {
+                    docs.addAll(page);
+                    cursor = lastId;
+                } else {
+                    docs.addAll(complete);
+                    cursor = lastId - 1;
+                }
+            }
+        } catch (IOException e) {
+            log.error("ES一致性巡检读取失败: afterId={}, error={}", afterId, e.getMessage());
+            throw new RuntimeException("读取ES文档版本失败", e);
+        }
+    }
+
+    private static IndexedDoc toIndexedDoc(Hit<Void> hit) {
+        Long updateTime = null;
+        JsonData value = hit.fields().get("updateTime");
+        if (value != null) {
+            JsonValue first = value.toJson().asJsonArray().get(0);
+            updateTime = first instanceof JsonString text
+                    ? new BigDecimal(text.getString()).longValue()
+                    : ((JsonNumber) first).longValue();
+        }
+        return new IndexedDoc(Long.parseLong(hit.id()), hit.routing() != null ? hit.routing() : DEFAULT_ROUTING,
+                updateTime);
+    }
+
+    /**
+     * 修复操作：文档存在时局部更新来自MySQL的字段，保留离线任务计算的热度分与搜索权重；
+     * 文档不存在时写入完整文档（与重建一致，热度分为初始值）
+     */
+    private BulkOperation repairOperation(String index, ProductDocument document) {
+        Map<String, Object> fields = objectMapper.convertValue(document, new TypeReference<Map<String, Object>>() {
+        });
+        DERIVED_FIELDS.forEach(fields::remove);
+        return BulkOperation.of(op -> op
+                .update(u -> u
+                        .index(index)
+                        .id(document.getId().toString())
+                        .routing(routing(document.getCampusLocation()))
+                        .action(a -> a.doc(fields).upsert(document))
+                )
+        );
+    }
+
+    /**
+     * 一致性修复：一次bulk请求重写过期或缺失的文档、按扫描到的路由删除多余文档，重建期间同时写入正在构建的索引
+     * @return 失败的操作数（删除时文档已不存在不算失败）
+     */
+    public int repair(List<ProductDocument> documents, List<IndexedDoc> deletes) {
+        if (documents.isEmpty() && deletes.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            BulkRequest.Builder bulkBuilder = new BulkRequest.Builder();
+            for (String index : writeTargets()) {
+                for (ProductDocument document : documents) {
+                    bulkBuilder.operations(repairOperation(index, document));
+                }
+                for (IndexedDoc doc : deletes) {
+                    bulkBuilder.operations(op -> op
+                            .delete(d -> d
+                                    .index(index)
+                                    .id(String.valueOf(doc.id()))
+                                    .routing(doc.routing())
+                            )
+                    );
+                }
+            }
+
+            long start = System.nanoTime();
+            BulkResponse response = client.bulk(bulkBuilder.build());
+            searchMetrics.record("bulk", "repair", start, response.took(), response.items().size(),
+                    "bulk repair index=" + documents.size() + " delete=" + deletes.size());
+            if (!response.errors()) {
+                return 0;
+            }
+            return (int) response.items().stream()
+                    .filter(item -> item.error() != null && item.status() != 404)
+                    .peek(item -> log.warn("ES一致性修复失败: index={}, id={}, error={}",
+                            item.index(), item.id(), item.error().reason()))
+                    .count();
+        } catch (IOException e) {
+            log.error("ES一致性修复失败: {}", e.getMessage());
+            throw new RuntimeException("一致性修复失败", e);
+        }
+    }
+
+    /**
+     * 按扫描到的路由从指定物理索引删除文档（只写该索引，不经过双写目标）
+     * @return 失败的操作数（文档已不存在不算失败）
+     */
+    public int deleteDocs(String index, List<IndexedDoc> docs) {
+        if (docs.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        try {
+            BulkRequest.Builder bulkBuilder = new BulkRequest.Builder();
+            for (IndexedDoc doc : docs) {
                 bulkBuilder.operations(op -> op
                         .delete(d -> d
-                                .index(INDEX_NAME)
-                                .id(id.toString())
+                                .index(index)
+                                .id(String.valueOf(doc.id()))
+                                .routing(doc.routing())
                         )
                 );
             }
 
-            client.bulk(bulkBuilder.build());
-            log.info("ES批量删除成功: count={}", productIds.size());
+            start = System.nanoTime();
+            BulkResponse response = client.bulk(bulkBuilder.build());
+            searchMetrics.record("bulk", "delete", start, response.took(), response.items().size(),
+                    "bulk delete index=" + index + " count=" + docs.size());
+            if (!response.errors()) {
+                return 0;
+            }
+            return (int) response.items().stream()
+                    .filter(item -> item.error() != null && item.status() != 404)
+                    .peek(item -> log.warn("ES文档删除失败: index={}, id={}, error={}",
+                            item.index(), item.id(), item.error().reason()))
+                    .count();
         } catch (IOException e) {
-            log.error("ES批量删除失败: {}", e.getMessage());
+            searchMetrics.recordFailure("bulk", "delete", start);
+            log.error("ES批量删除失败: index={}, error={}", index, e.getMessage());
             throw new RuntimeException("批量删除失败", e);
         }
     }
@@ -246,59 +1050,517 @@ public class ProductESRepository {
 
     /**
      * 复杂搜索：关键词 + 多条件筛选 + 分页 + 排序
+     * page模式使用 from/size，仅允许 MAX_FROM_WINDOW 以内的浅分页；
+     * cursor模式使用 PIT + search_after(createTime, id)，每页代价与第一页相同
      */
-    public List<ProductDocument> searchProducts(String keyword,
-                                                String campusLocation,
-                                                Long categoryId,
-                                                Double minPrice,
-                                                Double maxPrice,
-                                                Integer pageNum,
-                                                Integer pageSize) {
+    @Override
+    public ProductSearchPageVO search(ProductSearchDTO dto) {
+        return search(dto, dto.needFacets());
+    }
+
+    /**
+     * @param withFacets 是否在同一次请求中计算分面：筛选条件改为 post_filter，
+     *                   每个分面聚合只应用其他分面的筛选，选中值不会压缩自身的计数
+     */
+    @Override
+    public ProductSearchPageVO search(ProductSearchDTO dto, boolean withFacets) {
         try {
-            // 参数校验
-            if (pageNum < 1) pageNum = 1;
-            if (pageSize > 50) pageSize = 50; // 限制最大页大小
+            return searchAsync(dto, withFacets).join();
+        } catch (CompletionException e) {
+            throw translate(e);
+        }
+    }
 
-            log.info("ES搜索: keyword={}, campus={}, categoryId={}, price=[{}, {}], page={}/{}",
-                    keyword, campusLocation, categoryId, minPrice, maxPrice, pageNum, pageSize);
+    /**
+     * 异步搜索：经异步客户端发出请求，调用线程不等待ES响应；
+     * 返回的 Future 异常结束（超时、被取消）时同时中断在途的HTTP请求
+     */
+    @Override
+    public CompletableFuture<ProductSearchPageVO> searchAsync(ProductSearchDTO dto, boolean withFacets) {
+        int pageSize = Math.min(Math.max(dto.getPageSize() == null ? 10 : dto.getPageSize(), 1), 50); // 限制最大页大小
 
-            // 构建 BoolQuery
-            Query query = buildBoolQuery(keyword, campusLocation, categoryId, minPrice, maxPrice);
+        log.info("ES搜索: keyword={}, campus={}, categoryId={}, price=[{}, {}], mode={}, page={}/{}, facets={}",
+                dto.getKeyword(), dto.getCampusLocation(), dto.getCategoryId(),
+                dto.getMinPrice(), dto.getMaxPrice(), dto.getMode(), dto.getPageNum(), pageSize, withFacets);
 
-            // 构建 SearchRequest
-            Integer finalPageNum = pageNum;
-            Integer finalPageSize = pageSize;
-            SearchRequest request = SearchRequest.of(s -> s
-                    .index(INDEX_NAME)
-                    .query(query)
-                    .from((finalPageNum - 1) * finalPageSize)
-                    .size(finalPageSize)
-                    .sort(SortOptions.of(so -> so
-                            .field(f -> f
-                                    .field("createTime")
-                                    .order(SortOrder.Desc)
-                            )
-                    ))
-                    .trackTotalHits(t -> t.enabled(true))  // 获取精确总数
-            );
+        // 带校区条件时只查询该校区所在分片；分面模式下校区分面需要统计其他校区，仍查询全部分片
+        String routing = !withFacets && StringUtils.isNotBlank(dto.getCampusLocation())
+                ? routing(dto.getCampusLocation()) : null;
 
-            // 执行搜索
-            SearchResponse<ProductDocument> response = client.search(request, ProductDocument.class);
+        String queryShape = SearchMetrics.shape(dto, withFacets);
+        InFlight inFlight = new InFlight();
+        CompletableFuture<ProductSearchPageVO> result;
+        try {
+            CompletableFuture<ProductSearchPageVO> page;
+            if (dto.isCursorMode()) {
+                page = searchByCursor(dto, searchShape(dto, withFacets), pageSize, routing, queryShape, inFlight);
+            } else if (!withFacets && templatesReady) {
+                page = searchByTemplate(dto, pageSize, routing, queryShape, inFlight);
+            } else {
+                page = searchByPage(dto, searchShape(dto, withFacets), pageSize, routing, queryShape, inFlight);
+            }
+            result = page
+                    .handle((records, error) -> {
+                        if (error != null) {
+                            throw translate(error);
+                        }
+                        return records;
+                    });
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((page, error) -> {
+            if (error != null) {
+                inFlight.cancel();
+            }
+        });
+        return result;
+    }
 
-            // 解析结果
-            List<ProductDocument> products = response.hits().hits().stream()
-                    .map(Hit::source)
-                    .collect(Collectors.toList());
+    private SearchShape searchShape(ProductSearchDTO dto, boolean withFacets) {
+        SearchShape shape = withFacets ? facetedShape(dto) : plainShape(dto);
+        if (dto.isPopularSort()) {
+            shape = new SearchShape(popularityQuery(shape.query()), shape.postFilter(), shape.aggregations());
+        }
+        return shape;
+    }
+
+    private CompletableFuture<ProductSearchPageVO> searchByPage(ProductSearchDTO dto, SearchShape shape, int pageSize,
+                                                                String routing, String queryShape, InFlight inFlight) {
+        return timedSearch(queryShape, pageRequest(dto, shape, pageSize, routing), inFlight)
+                .thenApply(response -> toPage(response, null));
+    }
+
+    /**
+     * 以查询DSL构建的普通搜索请求（模板未就绪时使用，也是基准测试的对照组）
+     */
+    SearchRequest pageRequest(ProductSearchDTO dto, int pageSize, String routing) {
+        return pageRequest(dto, searchShape(dto, false), pageSize, routing);
+    }
+
+    private SearchRequest pageRequest(ProductSearchDTO dto, SearchShape shape, int pageSize, String routing) {
+        int from = pageFrom(dto, pageSize);
+        return SearchRequest.of(s -> shape.apply(s
+                .index(INDEX_NAME)
+                .routing(routing)
+                .from(from)
+                .size(pageSize)
+                .sort(dto.isPopularSort() ? RANK_SORT : FEED_SORT)
+                .source(LIST_SOURCE)
+                .trackTotalHits(totalHits(dto))
+        ));
+    }
+
+    private static int pageFrom(ProductSearchDTO dto, int pageSize) {
+        int pageNum = Math.max(dto.getPageNum() == null ? 1 : dto.getPageNum(), 1);
+        int from = (pageNum - 1) * pageSize;
+        if (from + pageSize > MAX_FROM_WINDOW) {
+            throw new RuntimeException("页码过深，请使用游标模式（mode=cursor）翻页");
+        }
+        return from;
+    }
+
+    private CompletableFuture<ProductSearchPageVO> searchByCursor(ProductSearchDTO dto, SearchShape shape, int pageSize,
+                                                                  String routing, String queryShape, InFlight inFlight) {
+        String queryHash = dto.conditionHash();
+        SearchCursor cursor = StringUtils.isBlank(dto.getCursor()) ? null : decodeCursor(dto.getCursor());
+        if (cursor != null && !queryHash.equals(cursor.getQueryHash())) {
+            throw new RuntimeException("游标与搜索条件不匹配，请重新搜索");
+        }
+
+        // 第一页打开PIT（按校区路由时PIT只包含该分片），后续页沿用；仅第一页统计总数
+        long pitStart = System.nanoTime();
+        CompletableFuture<String> pit = cursor != null
+                ? CompletableFuture.completedFuture(cursor.getPitId())
+                : inFlight.track(asyncClient.openPointInTime(o -> o.index(INDEX_NAME).routing(routing)
+                        .keepAlive(k -> k.time(PIT_KEEP_ALIVE)))).thenApply(response -> {
+                    searchMetrics.record("pit", "open", pitStart, null, 0, null);
+                    return response.id();
+                });
+
+        return pit.thenCompose(pitId -> {
+            SearchRequest request = SearchRequest.of(s -> {
+                shape.apply(s.pit(p -> p.id(pitId).keepAlive(k -> k.time(PIT_KEEP_ALIVE))))
+                        .size(pageSize)
+                        .sort(FEED_SORT)
+                        .source(LIST_SOURCE);
+                if (cursor != null) {
+                    s.searchAfter(FieldValue.of(cursor.getCreateTime()), FieldValue.of(cursor.getId()))
+                            .trackTotalHits(t -> t.enabled(false));
+                } else {
+                    s.trackTotalHits(totalHits(dto));
+                }
+                return s;
+            });
+            return timedSearch(queryShape, request, inFlight)
+                    .thenApply(response -> toCursorPage(response, pitId, pageSize, queryHash));
+        });
+    }
+
+    /**
+     * 发出异步搜索并记录 took、往返耗时与命中数
+     */
+    private CompletableFuture<SearchResponse<ProductListItemVO>> timedSearch(String queryShape, SearchRequest request,
+                                                                             InFlight inFlight) {
+        long start = System.nanoTime();
+        return inFlight.track(asyncClient.search(request, ProductListItemVO.class)).whenComplete((response, error) -> {
+            if (error != null) {
+                searchMetrics.recordFailure("search", queryShape, start);
+                return;
+            }
+            TotalHits total = response.hits().total();
+            searchMetrics.record("search", queryShape, start, response.took(),
+                    total != null ? total.value() : response.hits().hits().size(), request);
+        });
+    }
+
+    private ProductSearchPageVO toCursorPage(SearchResponse<ProductListItemVO> response, String pitId,
+                                             int pageSize, String queryHash) {
+        List<Hit<ProductListItemVO>> hits = response.hits().hits();
+        String nextPitId = response.pitId() != null ? response.pitId() : pitId;
+
+        // 不足一页说明已到末尾，及时释放PIT
+        if (hits.size() < pageSize) {
+            closePit(nextPitId);
+            return toPage(response, null);
+        }
+
+        List<FieldValue> lastSort = hits.get(hits.size() - 1).sort();
+        SearchCursor next = new SearchCursor(nextPitId,
+                lastSort.get(0).longValue(), lastSort.get(1).longValue(), queryHash);
+        return toPage(response, encodeCursor(next));
+    }
+
+    /**
+     * 当前在途的ES请求（cursor模式第一页依次为打开PIT、搜索），外层 Future 异常结束时取消
+     */
+    private static final class InFlight {
+        private volatile CompletableFuture<?> request;
+        private volatile boolean cancelled;
+
+        <T> CompletableFuture<T> track(CompletableFuture<T> next) {
+            request = next;
+            if (cancelled) {
+                next.cancel(true);
+            }
+            return next;
+        }
+
+        void cancel() {
+            cancelled = true;
+            CompletableFuture<?> current = request;
+            if (current != null && !current.isDone()) {
+                // 异步客户端的 Future 取消时中断HTTP请求，ES端随连接关闭取消查询；已打开的PIT到期自动释放
+                current.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 异步异常转换：业务异常、ES服务端异常、取消原样抛出，IO异常转为通用提示
+     */
+    private static RuntimeException translate(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        log.error("ES搜索IO异常: {}", cause.getMessage());
+        return new RuntimeException("搜索失败，请稍后重试", cause);
+    }
+
+    private ProductSearchPageVO toPage(SearchResponse<ProductListItemVO> response, String nextCursor) {
+        return toPage(response.hits(), response.aggregations(), nextCursor);
+    }
+
+    private ProductSearchPageVO toPage(HitsMetadata<ProductListItemVO> hits, Map<String, Aggregate> aggregations,
+                                       String nextCursor) {
+        List<ProductListItemVO> products = hits.hits().stream()
+                .map(Hit::source)
+                .collect(Collectors.toList());
+
+        TotalHits totalHits = hits.total();
+        log.info("ES搜索完成: 匹配{}{}条, 返回{}条",
+                totalHits != null && totalHits.relation() == TotalHitsRelation.Gte ? "≥" : "",
+                totalHits != null ? totalHits.value() : "-", products.size());
+
+        return ProductSearchPageVO.builder()
+                .records(products)
+                .total(totalHits != null ? totalHits.value() : null)
+                .totalExact(totalHits != null ? totalHits.relation() == TotalHitsRelation.Eq : null)
+                .nextCursor(nextCursor)
+                .facets(aggregations.isEmpty() ? null : toFacets(aggregations))
+                .build();
+    }
 
-            // 记录统计信息
-            TotalHits totalHits = response.hits().total();
-            long total = totalHits != null ? totalHits.value() : 0;
-            log.info("ES搜索完成: 匹配{}条, 返回{}条", total, products.size());
+    // ==================== 搜索模板 ====================
 
-            return products;
+    /**
+     * 注册存储的搜索模板（启动时调用，同名模板覆盖）；注册失败时继续使用查询DSL
+     */
+    public void registerSearchTemplates() {
+        try {
+            client.putScript(p -> p.id(LATEST_TEMPLATE_ID).script(s -> s.lang("mustache").source(latestTemplate())));
+            client.putScript(p -> p.id(POPULAR_TEMPLATE_ID).script(s -> s.lang("mustache").source(popularTemplate())));
+            templatesReady = true;
+            log.info("【搜索模板】已注册: {}, {}", LATEST_TEMPLATE_ID, POPULAR_TEMPLATE_ID);
+        } catch (IOException | ElasticsearchException e) {
+            templatesReady = false;
+            log.warn("【搜索模板】注册失败，继续使用查询DSL: {}", e.getMessage());
+        }
+    }
+
+    private CompletableFuture<ProductSearchPageVO> searchByTemplate(ProductSearchDTO dto, int pageSize, String routing,
+                                                                    String queryShape, InFlight inFlight) {
+        SearchTemplateRequest request = templateRequest(dto, pageSize, routing);
+        long start = System.nanoTime();
+        return inFlight.track(asyncClient.searchTemplate(request, ProductListItemVO.class))
+                .handle((response, error) -> {
+                    if (error == null) {
+                        TotalHits total = response.hits().total();
+                        searchMetrics.record("search_template", queryShape, start, response.took(),
+                                total != null ? total.value() : response.hits().hits().size(), request);
+                        return CompletableFuture.completedFuture(toPage(response.hits(), response.aggregations(), null));
+                    }
+                    searchMetrics.recordFailure("search_template", queryShape, start);
+                    if (isMissingTemplate(error)) {
+                        // 模板被删除（如集群元数据重置）：回退到查询DSL，下次启动时重新注册
+                        templatesReady = false;
+                        log.warn("【搜索模板】模板不存在，回退到查询DSL: {}", request.id());
+                        return searchByPage(dto, searchShape(dto, false), pageSize, routing, queryShape, inFlight);
+                    }
+                    return CompletableFuture.<ProductSearchPageVO>failedFuture(error);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * 模板搜索请求：只含模板id与参数，查询结构由ES端渲染；未使用的条件不传参数
+     */
+    SearchTemplateRequest templateRequest(ProductSearchDTO dto, int pageSize, String routing) {
+        Map<String, JsonData> params = new HashMap<>();
+        params.put("from", JsonData.of(pageFrom(dto, pageSize)));
+        params.put("size", JsonData.of(pageSize));
+        params.put("track_total_hits", Boolean.TRUE.equals(dto.getExactTotal())
+                ? JsonData.of(true) : JsonData.of(TOTAL_HITS_THRESHOLD));
+        if (StringUtils.isNotBlank(dto.getKeyword())) {
+            params.put("keyword", JsonData.of(dto.getKeyword()));
+        }
+        if (StringUtils.isNotBlank(dto.getCampusLocation())) {
+            params.put("campus", JsonData.of(dto.getCampusLocation()));
+        }
+        if (dto.getCategoryId() != null) {
+            params.put("categoryId", JsonData.of(dto.getCategoryId()));
+        }
+        if (dto.getMinPrice() != null) {
+            params.put("minPrice", JsonData.of(dto.getMinPrice()));
+        }
+        if (dto.getMaxPrice() != null) {
+            params.put("maxPrice", JsonData.of(dto.getMaxPrice()));
+        }
+
+        return SearchTemplateRequest.of(t -> t
+                .index(INDEX_NAME)
+                .routing(routing)
+                .id(dto.isPopularSort() ? POPULAR_TEMPLATE_ID : LATEST_TEMPLATE_ID)
+                .params(params));
+    }
+
+    private static boolean isMissingTemplate(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof ElasticsearchException e
+                && e.getMessage() != null && e.getMessage().contains("unable to find script");
+    }
+
+    /**
+     * 普通搜索的 bool 查询，与 buildBoolQuery 生成的DSL一致（价格上下限拆成两个 range，语义相同）；
+     * {{keyword}} 等变量由ES按JSON转义
+     */
+    private static String templateBoolQuery() {
+        return """
+                {"bool": {
+                  {{#keyword}}"must": [{"multi_match": {"query": "{{keyword}}", "fields": ["name^2", "description"], "analyzer": "ik_smart"}}],{{/keyword}}
+                  "filter": [
+                    {"term": {"status": 1}}
+                    {{#campus}}, {"term": {"campusLocation": "{{campus}}"}}{{/campus}}
+                    {{#categoryId}}, {"term": {"categoryId": {{categoryId}} }}{{/categoryId}}
+                    {{#minPrice}}, {"range": {"price": {"gte": {{minPrice}} }}}{{/minPrice}}
+                    {{#maxPrice}}, {"range": {"price": {"lte": {{maxPrice}} }}}{{/maxPrice}}
+                  ]
+                }}""";
+    }
+
+    private static String pageTemplate(String query, String sort) {
+        String sourceFields = ProductListItemVO.SOURCE_FIELDS.stream()
+                .map(field -> "\"" + field + "\"")
+                .collect(Collectors.joining(", ", "[", "]"));
+        return """
+                {"from": {{from}}, "size": {{size}}, "track_total_hits": {{track_total_hits}},
+                 "_source": {"includes": %s},
+                 "query": %s,
+                 "sort": %s}""".formatted(sourceFields, query, sort);
+    }
+
+    static String latestTemplate() {
+        return pageTemplate(templateBoolQuery(),
+                "[{\"createTime\": {\"order\": \"desc\"}}, {\"id\": {\"order\": \"desc\"}}]");
+    }
+
+    static String popularTemplate() {
+        String query = """
+                {"function_score": {
+                  "query": %s,
+                  "functions": [
+                    {"field_value_factor": {"field": "popularity", "factor": %s, "missing": 0}},
+                    {"field_value_factor": {"field": "searchBoost", "modifier": "log1p", "missing": 1}}
+                  ],
+                  "score_mode": "sum",
+                  "boost_mode": "sum"
+                }}""".formatted(templateBoolQuery(), POPULARITY_WEIGHT);
+        return pageTemplate(query,
+                "[{\"_score\": {\"order\": \"desc\"}}, {\"createTime\": {\"order\": \"desc\"}}, {\"id\": {\"order\": \"desc\"}}]");
+    }
+
+    // ==================== 分面统计 ====================
+
+    /**
+     * 查询结构：主查询 + 可选的 post_filter 与聚合
+     */
+    private record SearchShape(Query query, Query postFilter, Map<String, Aggregation> aggregations) {
+
+        SearchRequest.Builder apply(SearchRequest.Builder builder) {
+            builder.query(query);
+            if (postFilter != null) {
+                builder.postFilter(postFilter);
+            }
+            if (aggregations != null) {
+                builder.aggregations(aggregations);
+            }
+            return builder;
+        }
+    }
+
+    /**
+     * 普通搜索：全部条件放在 bool filter 中
+     */
+    private SearchShape plainShape(ProductSearchDTO dto) {
+        return new SearchShape(buildBoolQuery(dto.getKeyword(), dto.getCampusLocation(), dto.getCategoryId(),
+                dto.getMinPrice(), dto.getMaxPrice()), null, null);
+    }
+
+    /**
+     * 分面搜索：主查询只含关键词与上架状态，分面筛选放到 post_filter（只作用于命中列表）；
+     * 每个分面聚合包一层 filter，应用除自身以外的分面筛选
+     */
+    private SearchShape facetedShape(ProductSearchDTO dto) {
+        Query query = buildBoolQuery(dto.getKeyword(), null, null, null, null);
+
+        Map<String, Query> filters = new LinkedHashMap<>();
+        if (StringUtils.isNotBlank(dto.getCampusLocation())) {
+            filters.put(FACET_CAMPUS, campusFilter(dto.getCampusLocation()));
+        }
+        if (dto.getCategoryId() != null) {
+            filters.put(FACET_CATEGORY, categoryFilter(dto.getCategoryId()));
+        }
+        if (dto.getMinPrice() != null || dto.getMaxPrice() != null) {
+            filters.put(FACET_PRICE, priceFilter(dto.getMinPrice(), dto.getMaxPrice()));
+        }
+
+        Map<String, Aggregation> aggregations = new LinkedHashMap<>();
+        aggregations.put(FACET_CAMPUS, facetAggregation(filters, FACET_CAMPUS, Aggregation.of(a -> a
+                .terms(t -> t.field("campusLocation").size(TERMS_FACET_SIZE)))));
+        aggregations.put(FACET_CATEGORY, facetAggregation(filters, FACET_CATEGORY, Aggregation.of(a -> a
+                .terms(t -> t.field("categoryId").size(TERMS_FACET_SIZE)))));
+        aggregations.put(FACET_PRICE, facetAggregation(filters, FACET_PRICE, Aggregation.of(a -> a
+                .histogram(h -> h.field("price").interval(PRICE_FACET_INTERVAL).minDocCount(1)))));
+
+        Query postFilter = filters.isEmpty() ? null
+                : Query.of(q -> q.bool(b -> b.filter(new ArrayList<>(filters.values()))));
+        return new SearchShape(query, postFilter, aggregations);
+    }
+
+    private Aggregation facetAggregation(Map<String, Query> filters, String facet, Aggregation buckets) {
+        List<Query> others = filters.entrySet().stream()
+                .filter(e -> !e.getKey().equals(facet))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+        return Aggregation.of(a -> a
+                .filter(f -> others.isEmpty() ? f.matchAll(m -> m) : f.bool(b -> b.filter(others)))
+                .aggregations("buckets", buckets));
+    }
+
+    private ProductFacetsVO toFacets(Map<String, Aggregate> aggregations) {
+        List<FacetBucketVO> campus = facetBuckets(aggregations, FACET_CAMPUS).sterms().buckets().array().stream()
+                .map(b -> FacetBucketVO.builder().key(b.key().stringValue()).count(b.docCount()).build())
+                .collect(Collectors.toList());
+        List<FacetBucketVO> category = facetBuckets(aggregations, FACET_CATEGORY).lterms().buckets().array().stream()
+                .map(b -> FacetBucketVO.builder().key(String.valueOf(b.key())).count(b.docCount()).build())
+                .collect(Collectors.toList());
+        List<FacetBucketVO> price = facetBuckets(aggregations, FACET_PRICE).histogram().buckets().array().stream()
+                .map(b -> FacetBucketVO.builder()
+                        .key((long) b.key() + "-" + (long) (b.key() + PRICE_FACET_INTERVAL))
+                        .count(b.docCount())
+                        .from(b.key())
+                        .to(b.key() + PRICE_FACET_INTERVAL)
+                        .build())
+                .collect(Collectors.toList());
+
+        return ProductFacetsVO.builder()
+                .campusLocation(campus)
+                .categoryId(category)
+                .price(price)
+                .build();
+    }
+
+    private Aggregate facetBuckets(Map<String, Aggregate> aggregations, String facet) {
+        return aggregations.get(facet).filter().aggregations().get("buckets");
+    }
+
+    /**
+     * 总数统计：默认最多精确统计到 TOTAL_HITS_THRESHOLD，之后只返回下界
+     */
+    private TrackHits totalHits(ProductSearchDTO dto) {
+        return Boolean.TRUE.equals(dto.getExactTotal())
+                ? TrackHits.of(t -> t.enabled(true))
+                : TrackHits.of(t -> t.count(TOTAL_HITS_THRESHOLD));
+    }
+
+    private void closePit(String pitId) {
+        // 在异步回调中执行，不等待结果；PIT到期后也会自动释放
+        asyncClient.closePointInTime(c -> c.id(pitId)).whenComplete((response, error) -> {
+            if (error != null) {
+                log.warn("关闭PIT失败: {}", error.getMessage());
+            }
+        });
+    }
+
+    // ==================== 游标编解码 ====================
+
+    /**
+     * 游标内容：PIT + 最后一条的排序值 + 查询条件摘要（防止换条件后沿用旧游标）
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class SearchCursor {
+        private String pitId;
+        private Long createTime;
+        private Long id;
+        private String queryHash;
+    }
+
+    private String encodeCursor(SearchCursor cursor) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(cursor));
         } catch (IOException e) {
-            log.error("ES搜索IO异常: {}", e.getMessage());
-            throw new RuntimeException("搜索失败，请稍后重试", e);
+            throw new RuntimeException("生成游标失败", e);
+        }
+    }
+
+    private SearchCursor decodeCursor(String token) {
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(token), SearchCursor.class);
+        } catch (Exception e) {
+            throw new RuntimeException("无效的游标");
         }
     }
 
@@ -320,27 +1582,16 @@ public class ProductESRepository {
 
         // 2. Filter条件（精确筛选，不参与评分，可缓存）
         if (StringUtils.isNotBlank(campusLocation)) {
-            boolBuilder.filter(f -> f.term(t -> t
-                    .field("campusLocation")
-                    .value(campusLocation)
-            ));
+            boolBuilder.filter(campusFilter(campusLocation));
         }
 
         if (categoryId != null) {
-            boolBuilder.filter(f -> f.term(t -> t
-                    .field("categoryId")
-                    .value(categoryId)
-            ));
+            boolBuilder.filter(categoryFilter(categoryId));
         }
 
         // 3. 价格范围（filter）
         if (minPrice != null || maxPrice != null) {
-            boolBuilder.filter(f -> f.range(r -> {
-                r.field("price");
-                if (minPrice != null) r.gte(JsonData.of(minPrice));
-                if (maxPrice != null) r.lte(JsonData.of(maxPrice));
-                return r;
-            }));
+            boolBuilder.filter(priceFilter(minPrice, maxPrice));
         }
 
         // 4. 状态筛选（只搜索上架商品）
@@ -352,11 +1603,55 @@ public class ProductESRepository {
         return boolBuilder.build()._toQuery();
     }
 
+    /**
+     * 热度打分：在原查询得分上累加热度分与搜索权重，只读取两个数值字段的 doc values；
+     * 时间衰减已在离线计算热度分时完成，查询时不再计算
+     */
+    private Query popularityQuery(Query query) {
+        return Query.of(q -> q.functionScore(fs -> fs
+                .query(query)
+                .functions(f -> f.fieldValueFactor(v -> v
+                        .field("popularity")
+                        .factor(POPULARITY_WEIGHT)
+                        .missing(0.0)))
+                .functions(f -> f.fieldValueFactor(v -> v
+                        .field("searchBoost")
+                        .modifier(FieldValueFactorModifier.Log1p)
+                        .missing(1.0)))
+                .scoreMode(FunctionScoreMode.Sum)
+                .boostMode(FunctionBoostMode.Sum)
+        ));
+    }
+
+    private Query campusFilter(String campusLocation) {
+        return Query.of(f -> f.term(t -> t
+                .field("campusLocation")
+                .value(campusLocation)
+        ));
+    }
+
+    private Query categoryFilter(Long categoryId) {
+        return Query.of(f -> f.term(t -> t
+                .field("categoryId")
+                .value(categoryId)
+        ));
+    }
+
+    private Query priceFilter(Double minPrice, Double maxPrice) {
+        return Query.of(f -> f.range(r -> {
+            r.field("price");
+            if (minPrice != null) r.gte(JsonData.of(minPrice));
+            if (maxPrice != null) r.lte(JsonData.of(maxPrice));
+            return r;
+        }));
+    }
+
     // ==================== 自动补全（搜索建议） ====================
 
     /**
      * 自动补全：基于completion suggester
      */
+    @Override
     public List<String> autoComplete(String prefix) {
         if (StringUtils.isBlank(prefix) || prefix.length() < 2) {
             return Collections.emptyList();
@@ -377,7 +1672,9 @@ public class ProductESRepository {
                     )
             );
 
+            long start = System.nanoTime();
             SearchResponse<ProductDocument> response = client.search(request, ProductDocument.class);
+            searchMetrics.record("suggest", "completion", start, response.took(), 0, request);
 
             // 解析建议结果
             if (response.suggest() != null) {
@@ -394,16 +1691,91 @@ public class ProductESRepository {
         }
     }
 
+    // ==================== 相似商品 ====================
+
+    /**
+     * 相似商品：more_like_this（名称、描述、分类名）+ 同校区在售过滤；
+     * 源商品的路由即其校区，查询只落在该校区所在分片，多个商品合并为一次 msearch
+     */
+    @Override
+    public Map<Long, List<ProductListItemVO>> findSimilar(Collection<Long> productIds, int size) {
+        if (productIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        try {
+            Map<String, String> routings = routingOf(INDEX_NAME, productIds);
+            List<String> ids = new ArrayList<>(routings.keySet());
+            if (ids.isEmpty()) {
+                return Collections.emptyMap();
+            }
+
+            MsearchRequest request = MsearchRequest.of(m -> {
+                for (String id : ids) {
+                    String routing = routings.get(id);
+                    m.searches(item -> item
+                            .header(h -> h.index(INDEX_NAME).routing(routing))
+                            .body(b -> b.query(similarQuery(id, routing)).size(size).source(LIST_SOURCE)));
+                }
+                return m;
+            });
+            long start = System.nanoTime();
+            MsearchResponse<ProductListItemVO> response = client.msearch(request, ProductListItemVO.class);
+            searchMetrics.record("msearch", "similar", start, response.took(), ids.size(), request);
+
+            Map<Long, List<ProductListItemVO>> similar = new LinkedHashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                MultiSearchResponseItem<ProductListItemVO> item = response.responses().get(i);
+                if (item.isFailure()) {
+                    log.warn("相似商品查询失败: id={}, reason={}", ids.get(i), item.failure().error().reason());
+                    continue;
+                }
+                similar.put(Long.valueOf(ids.get(i)), item.result().hits().hits().stream()
+                        .map(Hit::source)
+                        .collect(Collectors.toList()));
+            }
+            return similar;
+        } catch (IOException e) {
+            log.error("相似商品查询IO异常: {}", e.getMessage());
+            throw new RuntimeException("查询相似商品失败", e);
+        }
+    }
+
+    /**
+     * 以索引中的源商品为样本（按其路由读取词项），排除源商品自身
+     */
+    private Query similarQuery(String productId, String routing) {
+        BoolQuery.Builder bool = new BoolQuery.Builder()
+                .must(m -> m.moreLikeThis(mlt -> mlt
+                        .fields("name", "description", "categoryName")
+                        .like(l -> l.document(d -> d.index(INDEX_NAME).id(productId).routing(routing)))
+                        .minTermFreq(1)
+                        .minDocFreq(SIMILAR_MIN_DOC_FREQ)
+                        .maxQueryTerms(SIMILAR_MAX_QUERY_TERMS)
+                        .minimumShouldMatch("30%")))
+                .filter(f -> f.term(t -> t.field("status").value(1)))
+                .mustNot(n -> n.term(t -> t.field("soldOut").value(true)));
+        if (!DEFAULT_ROUTING.equals(routing)) {
+            bool.filter(campusFilter(routing));
+        }
+        return bool.build()._toQuery();
+    }
+
     // ==================== 统计与辅助 ====================
 
     /**
      * 获取商品总数
      */
+    @Override
     public long count() {
+        long start = System.nanoTime();
         try {
             CountRequest request = CountRequest.of(c -> c.index(INDEX_NAME));
-            return client.count(request).count();
+            long count = client.count(request).count();
+            searchMetrics.record("count", "all", start, null, count, request);
+            return count;
         } catch (IOException e) {
+            searchMetrics.recordFailure("count", "all", start);
             log.error("ES计数失败: {}", e.getMessage());
             return 0;
         }
@@ -412,20 +1784,21 @@ public class ProductESRepository {
     /**
      * 根据ID查询文档
      */
+    @Override
     public ProductDocument findById(Long productId) {
+        long start = System.nanoTime();
         try {
-            GetRequest request = GetRequest.of(g -> g
+            // 路由未知，按ID查询所有分片
+            SearchRequest request = SearchRequest.of(s -> s
                     .index(INDEX_NAME)
-                    .id(productId.toString())
-            );
-
-            GetResponse<ProductDocument> response = client.get(request, ProductDocument.class);
-
-            if (response.found()) {
-                return response.source();
-            }
-            return null;
+                    .query(q -> q.ids(i -> i.values(productId.toString())))
+                    .size(1));
+            SearchResponse<ProductDocument> response = client.search(request, ProductDocument.class);
+            List<Hit<ProductDocument>> hits = response.hits().hits();
+            searchMetrics.record("search", "id", start, response.took(), hits.size(), request);
+            return hits.isEmpty() ? null : hits.get(0).source();
         } catch (IOException e) {
+            searchMetrics.recordFailure("search", "id", start);
             log.error("ES查询失败: id={}, error={}", productId, e.getMessage());
             return null;
         }
@@ -434,13 +1807,19 @@ public class ProductESRepository {
     /**
      * 判断文档是否存在
      */
+    @Override
     public boolean existsById(Long productId) {
+        long start = System.nanoTime();
         try {
-            return client.exists(e -> e
+            CountRequest request = CountRequest.of(c -> c
                     .index(INDEX_NAME)
-                    .id(productId.toString())
-            ).value();
+                    .query(q -> q.ids(i -> i.values(productId.toString())))
+            );
+            long count = client.count(request).count();
+            searchMetrics.record("count", "id", start, null, count, request);
+            return count > 0;
         } catch (IOException e) {
+            searchMetrics.recordFailure("count", "id", start);
             log.error("ES存在性检查失败: id={}, error={}", productId, e.getMessage());
             return false;
         }
@@ -0,0 +1,873 @@
+package com.xchange.platform.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xchange.platform.config.SearchProperties;
+import com.xchange.platform.document.ProductDocument;
+import com.xchange.platform.dto.ProductSearchDTO;
+import com.xchange.platform.vo.FacetBucketVO;
+import com.xchange.platform.vo.ProductFacetsVO;
+import com.xchange.platform.vo.ProductListItemVO;
+import com.xchange.platform.vo.ProductSearchPageVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 商品搜索仓储（嵌入式 Lucene 实现）
+ * search.backend=lucene 时替代 ProductESRepository：索引存放在本地 MMapDirectory，
+ * 写入后由后台线程近实时刷新（最长 max-stale-ms 不可见），定时提交刷盘；
+ * 中文分词使用 SmartChineseAnalyzer，筛选、排序、分页、分面、搜索建议与ES实现一致
+ */
+@Slf4j
+@Repository
+@Primary
+@ConditionalOnProperty(prefix = "search", name = "backend", havingValue = "lucene")
+@RequiredArgsConstructor
+public class ProductLuceneRepository implements ProductSearchRepository, InitializingBean, DisposableBean {
+
+    private final SearchProperties searchProperties;
+    private final ObjectMapper objectMapper;
+
+    // ===== 字段名 =====
+    private static final String F_ID = "id";
+    private static final String F_NAME = "name";
+    private static final String F_NAME_PREFIX = "namePrefix";
+    private static final String F_DESCRIPTION = "description";
+    private static final String F_PRICE = "price";
+    private static final String F_CAMPUS = "campusLocation";
+    private static final String F_CATEGORY = "categoryId";
+    private static final String F_STATUS = "status";
+    private static final String F_CREATE_TIME = "createTime";
+    private static final String F_INDEXED_AT = "indexedAt";
+    private static final String F_POPULARITY = "popularity";
+    private static final String F_SEARCH_BOOST = "searchBoost";
+    private static final String F_SOURCE = "_source";
+    private static final String F_LIST_SOURCE = "_list";
+
+    // 与ES实现保持一致的分页与分面参数
+    private static final int MAX_FROM_WINDOW = 1000;
+    private static final int TOTAL_HITS_THRESHOLD = 10000;
+    private static final double PRICE_FACET_INTERVAL = 100;
+    private static final int TERMS_FACET_SIZE = 20;
+    private static final int SUGGEST_SIZE = 10;
+
+    // 相似商品最多选取的词项数（与ES的 max_query_terms 一致）
+    private static final int SIMILAR_MAX_QUERY_TERMS = 25;
+
+    // 按发布时间倒序，ID倒序保证排序唯一
+    private static final Sort FEED_SORT = new Sort(
+            new SortField(F_CREATE_TIME, SortField.Type.LONG, true),
+            new SortField(F_ID, SortField.Type.LONG, true));
+
+    // 热度排序：相关度 + 热度分×权重 + log1p(搜索权重)，与ES的 function_score 一致
+    private static final double POPULARITY_WEIGHT = 2.0;
+    private static final Sort RANK_SORT = new Sort(
+            new RankValuesSource().getSortField(true),
+            new SortField(F_CREATE_TIME, SortField.Type.LONG, true),
+            new SortField(F_ID, SortField.Type.LONG, true));
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final Analyzer analyzer = new SmartChineseAnalyzer();
+    private final QueryBuilder queryBuilder = new QueryBuilder(analyzer);
+
+    private MMapDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        Path path = Paths.get(searchProperties.getLucene().getPath());
+        Files.createDirectories(path);
+
+        directory = new MMapDirectory(path);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+
+        double maxStaleSec = searchProperties.getLucene().getMaxStaleMs() / 1000.0;
+        reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager, maxStaleSec, 0.025);
+        reopenThread.setName("lucene-nrt-reopen");
+        reopenThread.setDaemon(true);
+        reopenThread.start();
+
+        log.info("【Lucene】索引已打开: path={}, docs={}", path.toAbsolutePath(), writer.getDocStats().numDocs);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (reopenThread != null) {
+            reopenThread.close();
+        }
+        if (searcherManager != null) {
+            searcherManager.close();
+        }
+        if (writer != null) {
+            writer.commit();
+            writer.close();
+        }
+        if (directory != null) {
+            directory.close();
+        }
+        log.info("【Lucene】索引已关闭");
+    }
+
+    /**
+     * 定时提交（刷盘）；进程崩溃最多丢失一个提交间隔内的写入，可通过重建恢复
+     */
+    @Scheduled(fixedDelayString = "${search.lucene.commit-interval-ms:5000}")
+    public void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            log.error("【Lucene】提交失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 手动刷新，使已写入的文档立即可见
+     */
+    public void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            log.error("【Lucene】刷新失败: {}", e.getMessage());
+        }
+    }
+
+    // ==================== 文档操作 ====================
+
+    @Override
+    public void save(ProductDocument document) {
+        try {
+            writer.updateDocument(idTerm(document.getId()), toLuceneDocument(document, System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.error("Lucene文档保存失败: id={}, error={}", document.getId(), e.getMessage());
+            throw new RuntimeException("保存搜索文档失败", e);
+        }
+    }
+
+    @Override
+    public void saveAll(List<ProductDocument> documents) {
+        if (documents == null || documents.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            for (ProductDocument document : documents) {
+                writer.updateDocument(idTerm(document.getId()), toLuceneDocument(document, now));
+            }
+            log.info("Lucene批量保存成功: count={}", documents.size());
+        } catch (IOException e) {
+            log.error("Lucene批量保存失败: {}", e.getMessage());
+            throw new RuntimeException("批量保存失败", e);
+        }
+    }
+
+    @Override
+    public void deleteById(Long productId) {
+        try {
+            writer.deleteDocuments(idTerm(productId));
+        } catch (IOException e) {
+            log.error("Lucene文档删除失败: id={}, error={}", productId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteAllByIds(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        try {
+            writer.deleteDocuments(productIds.stream().map(this::idTerm).toArray(Term[]::new));
+            log.info("Lucene批量删除成功: count={}", productIds.size());
+        } catch (IOException e) {
+            log.error("Lucene批量删除失败: {}", e.getMessage());
+            throw new RuntimeException("批量删除失败", e);
+        }
+    }
+
+    @Override
+    public void updateSoldOut(Long productId, boolean soldOut) {
+        // 先刷新再读取：近实时searcher可能还看不到刚保存的文档，读到旧版本会把新写入的内容覆盖掉
+        refresh();
+        ProductDocument document = findById(productId);
+        if (document == null) {
+            return;
+        }
+        document.setSoldOut(soldOut);
+        save(document);
+    }
+
+    /**
+     * 批量更新热度分：直接更新 doc values，不重写整个文档；
+     * _source 中的热度分不随之更新，findById 以 doc values 为准，整体重写文档时不会回退
+     */
+    @Override
+    public void updatePopularity(Map<Long, Double> scores) {
+        if (scores == null || scores.isEmpty()) {
+            return;
+        }
+        try {
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                writer.updateNumericDocValue(idTerm(entry.getKey()), F_POPULARITY,
+                        Double.doubleToRawLongBits(entry.getValue()));
+            }
+            log.debug("Lucene热度分更新完成: count={}", scores.size());
+        } catch (IOException e) {
+            log.error("Lucene热度分更新失败: {}", e.getMessage());
+            throw new RuntimeException("热度分更新失败", e);
+        }
+    }
+
+    /**
+     * 批量更新浏览量：浏览量只存在于 _source 中，逐个读出后整体重写（只在落库任务中低频调用）
+     */
+    @Override
+    public void updateViewCounts(Map<Long, Long> viewCounts) {
+        if (viewCounts == null || viewCounts.isEmpty()) {
+            return;
+        }
+        viewCounts.forEach((id, viewCount) -> {
+            ProductDocument document = findById(id);
+            if (document != null) {
+                document.setViewCount(viewCount);
+                save(document);
+            }
+        });
+    }
+
+    /**
+     * 删除早于指定时间写入的文档（全量重建后清理MySQL中已不存在的商品）
+     * @return 删除前后的文档数差
+     */
+    public long deleteIndexedBefore(long epochMillis) {
+        try {
+            long before = writer.getDocStats().numDocs;
+            writer.deleteDocuments(LongPoint.newRangeQuery(F_INDEXED_AT, Long.MIN_VALUE, epochMillis - 1));
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            return before - writer.getDocStats().numDocs;
+        } catch (IOException e) {
+            log.error("Lucene清理旧文档失败: {}", e.getMessage());
+            throw new RuntimeException("清理旧文档失败", e);
+        }
+    }
+
+    private Term idTerm(Long id) {
+        return new Term(F_ID, String.valueOf(id));
+    }
+
+    private Document toLuceneDocument(ProductDocument product, long indexedAt) throws IOException {
+        Document doc = new Document();
+
+        doc.add(new StringField(F_ID, String.valueOf(product.getId()), Field.Store.NO));
+        doc.add(new NumericDocValuesField(F_ID, product.getId()));
+
+        if (product.getName() != null) {
+            doc.add(new TextField(F_NAME, product.getName(), Field.Store.NO));
+            doc.add(new StringField(F_NAME_PREFIX, product.getName().toLowerCase(Locale.ROOT), Field.Store.NO));
+        }
+        if (product.getDescription() != null) {
+            doc.add(new TextField(F_DESCRIPTION, product.getDescription(), Field.Store.NO));
+        }
+        if (product.getPrice() != null) {
+            double price = product.getPrice().doubleValue();
+            doc.add(new DoublePoint(F_PRICE, price));
+            doc.add(new DoubleDocValuesField(F_PRICE, price));
+        }
+        if (product.getCampusLocation() != null) {
+            doc.add(new StringField(F_CAMPUS, product.getCampusLocation(), Field.Store.NO));
+            doc.add(new SortedDocValuesField(F_CAMPUS, new BytesRef(product.getCampusLocation())));
+        }
+        if (product.getCategoryId() != null) {
+            doc.add(new LongPoint(F_CATEGORY, product.getCategoryId()));
+            doc.add(new NumericDocValuesField(F_CATEGORY, product.getCategoryId()));
+        }
+        if (product.getStatus() != null) {
+            doc.add(new IntPoint(F_STATUS, product.getStatus()));
+        }
+        long createTime = product.getCreateTime() == null ? 0
+                : product.getCreateTime().atZone(ZONE).toInstant().toEpochMilli();
+        doc.add(new NumericDocValuesField(F_CREATE_TIME, createTime));
+        doc.add(new LongPoint(F_INDEXED_AT, indexedAt));
+        // 热度分始终写入，后续由 updatePopularity 原地更新
+        doc.add(new DoubleDocValuesField(F_POPULARITY, product.getPopularity() == null ? 0 : product.getPopularity()));
+        if (product.getSearchBoost() != null) {
+            doc.add(new NumericDocValuesField(F_SEARCH_BOOST, product.getSearchBoost()));
+        }
+
+        // 原始文档（等同ES的_source）
+        doc.add(new StoredField(F_SOURCE, objectMapper.writeValueAsBytes(product)));
+        // 列表投影（等同ES的 _source includes），列表查询只读取这一小段
+        doc.add(new StoredField(F_LIST_SOURCE, objectMapper.writeValueAsBytes(ProductListItemVO.from(product))));
+        return doc;
+    }
+
+    // ==================== 搜索查询 ====================
+
+    /**
+     * 复杂搜索：与ES实现相同的条件、排序与分页规则；
+     * cursor模式直接以 (createTime, id) 作为 searchAfter，近实时读取器下无需PIT
+     */
+    @Override
+    public ProductSearchPageVO search(ProductSearchDTO dto, boolean withFacets) {
+        int pageSize = Math.min(Math.max(dto.getPageSize() == null ? 10 : dto.getPageSize(), 1), 50); // 限制最大页大小
+
+        log.info("Lucene搜索: keyword={}, campus={}, categoryId={}, price=[{}, {}], mode={}, page={}/{}, facets={}",
+                dto.getKeyword(), dto.getCampusLocation(), dto.getCategoryId(),
+                dto.getMinPrice(), dto.getMaxPrice(), dto.getMode(), dto.getPageNum(), pageSize, withFacets);
+
+        Map<String, Query> filters = facetFilters(dto);
+        BooleanQuery.Builder builder = baseQuery(dto.getKeyword());
+        filters.values().forEach(filter -> builder.add(filter, BooleanClause.Occur.FILTER));
+        Query query = builder.build();
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+
+            ProductSearchPageVO page = dto.isCursorMode()
+                    ? searchByCursor(searcher, dto, query, pageSize)
+                    : searchByPage(searcher, dto, query, pageSize);
+            if (withFacets) {
+                page.setFacets(facets(searcher, dto.getKeyword(), filters));
+            }
+            return page;
+        } catch (IOException e) {
+            log.error("Lucene搜索IO异常: {}", e.getMessage());
+            throw new RuntimeException("搜索失败，请稍后重试", e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    private ProductSearchPageVO searchByPage(IndexSearcher searcher, ProductSearchDTO dto, Query query,
+                                             int pageSize) throws IOException {
+        int pageNum = Math.max(dto.getPageNum() == null ? 1 : dto.getPageNum(), 1);
+        int from = (pageNum - 1) * pageSize;
+        if (from + pageSize > MAX_FROM_WINDOW) {
+            throw new RuntimeException("页码过深，请使用游标模式（mode=cursor）翻页");
+        }
+
+        Sort sort = dto.isPopularSort() ? RANK_SORT : FEED_SORT;
+        TopFieldDocs topDocs = searcher.search(query,
+                new TopFieldCollectorManager(sort, from + pageSize, null, totalHitsThreshold(dto)));
+        ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+        List<ProductListItemVO> records = loadListItems(searcher,
+                Arrays.copyOfRange(scoreDocs, Math.min(from, scoreDocs.length), scoreDocs.length));
+        return toPage(records, topDocs.totalHits, null);
+    }
+
+    private ProductSearchPageVO searchByCursor(IndexSearcher searcher, ProductSearchDTO dto, Query query,
+                                               int pageSize) throws IOException {
+        String queryHash = dto.conditionHash();
+        FieldDoc after = null;
+        if (StringUtils.isNotBlank(dto.getCursor())) {
+            String[] cursor = decodeCursor(dto.getCursor());
+            if (!queryHash.equals(cursor[2])) {
+                throw new RuntimeException("游标与搜索条件不匹配，请重新搜索");
+            }
+            after = new FieldDoc(Integer.MAX_VALUE, Float.NaN,
+                    new Object[]{Long.parseLong(cursor[0]), Long.parseLong(cursor[1])});
+        }
+
+        // 仅第一页统计总数
+        int threshold = after == null ? totalHitsThreshold(dto) : 0;
+        TopFieldDocs topDocs = searcher.search(query,
+                new TopFieldCollectorManager(FEED_SORT, pageSize, after, threshold));
+        ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+        List<ProductListItemVO> records = loadListItems(searcher, scoreDocs);
+
+        String nextCursor = null;
+        if (scoreDocs.length == pageSize) {
+            Object[] last = ((FieldDoc) scoreDocs[scoreDocs.length - 1]).fields;
+            nextCursor = encodeCursor(last[0] + ":" + last[1] + ":" + queryHash);
+        }
+        return toPage(records, after == null ? topDocs.totalHits : null, nextCursor);
+    }
+
+    private ProductSearchPageVO toPage(List<ProductListItemVO> records, TotalHits totalHits, String nextCursor) {
+        log.info("Lucene搜索完成: 匹配{}{}条, 返回{}条",
+                totalHits != null && totalHits.relation == TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO ? "≥" : "",
+                totalHits != null ? totalHits.value : "-", records.size());
+
+        return ProductSearchPageVO.builder()
+                .records(records)
+                .total(totalHits != null ? totalHits.value : null)
+                .totalExact(totalHits != null ? totalHits.relation == TotalHits.Relation.EQUAL_TO : null)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private int totalHitsThreshold(ProductSearchDTO dto) {
+        return Boolean.TRUE.equals(dto.getExactTotal()) ? Integer.MAX_VALUE : TOTAL_HITS_THRESHOLD;
+    }
+
+    private List<ProductDocument> loadSources(IndexSearcher searcher, ScoreDoc[] scoreDocs) throws IOException {
+        StoredFields storedFields = searcher.storedFields();
+        List<ProductDocument> records = new ArrayList<>(scoreDocs.length);
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            BytesRef source = storedFields.document(scoreDoc.doc, Set.of(F_SOURCE)).getBinaryValue(F_SOURCE);
+            records.add(objectMapper.readValue(source.bytes, source.offset, source.length, ProductDocument.class));
+        }
+        return records;
+    }
+
+    /**
+     * 读取列表投影；升级前写入的文档没有投影字段，从完整文档转换
+     */
+    private List<ProductListItemVO> loadListItems(IndexSearcher searcher, ScoreDoc[] scoreDocs) throws IOException {
+        StoredFields storedFields = searcher.storedFields();
+        List<ProductListItemVO> records = new ArrayList<>(scoreDocs.length);
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            BytesRef source = storedFields.document(scoreDoc.doc, Set.of(F_LIST_SOURCE)).getBinaryValue(F_LIST_SOURCE);
+            if (source != null) {
+                records.add(objectMapper.readValue(source.bytes, source.offset, source.length, ProductListItemVO.class));
+                continue;
+            }
+            source = storedFields.document(scoreDoc.doc, Set.of(F_SOURCE)).getBinaryValue(F_SOURCE);
+            records.add(ProductListItemVO.from(
+                    objectMapper.readValue(source.bytes, source.offset, source.length, ProductDocument.class)));
+        }
+        return records;
+    }
+
+    /**
+     * 关键词 + 上架状态（name权重2，与ES的 multi_match 一致）
+     */
+    private BooleanQuery.Builder baseQuery(String keyword) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+
+        if (StringUtils.isNotBlank(keyword)) {
+            BooleanQuery.Builder text = new BooleanQuery.Builder();
+            Query name = queryBuilder.createBooleanQuery(F_NAME, keyword);
+            Query description = queryBuilder.createBooleanQuery(F_DESCRIPTION, keyword);
+            if (name != null) {
+                text.add(new BoostQuery(name, 2f), BooleanClause.Occur.SHOULD);
+            }
+            if (description != null) {
+                text.add(description, BooleanClause.Occur.SHOULD);
+            }
+            // 分词后没有有效词项时不匹配任何商品
+            builder.add(name == null && description == null ? new MatchNoDocsQuery() : text.build(),
+                    BooleanClause.Occur.MUST);
+        } else {
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+
+        builder.add(IntPoint.newExactQuery(F_STATUS, 1), BooleanClause.Occur.FILTER);
+        return builder;
+    }
+
+    private Map<String, Query> facetFilters(ProductSearchDTO dto) {
+        Map<String, Query> filters = new LinkedHashMap<>();
+        if (StringUtils.isNotBlank(dto.getCampusLocation())) {
+            filters.put(F_CAMPUS, new TermQuery(new Term(F_CAMPUS, dto.getCampusLocation())));
+        }
+        if (dto.getCategoryId() != null) {
+            filters.put(F_CATEGORY, LongPoint.newExactQuery(F_CATEGORY, dto.getCategoryId()));
+        }
+        if (dto.getMinPrice() != null || dto.getMaxPrice() != null) {
+            filters.put(F_PRICE, DoublePoint.newRangeQuery(F_PRICE,
+                    dto.getMinPrice() != null ? dto.getMinPrice() : Double.NEGATIVE_INFINITY,
+                    dto.getMaxPrice() != null ? dto.getMaxPrice() : Double.POSITIVE_INFINITY));
+        }
+        return filters;
+    }
+
+    // ==================== 分面统计 ====================
+
+    /**
+     * 每个分面单独统计一遍：只应用其他分面的筛选，选中值不会压缩自身的计数
+     */
+    private ProductFacetsVO facets(IndexSearcher searcher, String keyword, Map<String, Query> filters) throws IOException {
+        Map<String, Long> campus = countFacet(searcher, keyword, filters, F_CAMPUS);
+        Map<String, Long> category = countFacet(searcher, keyword, filters, F_CATEGORY);
+        Map<String, Long> price = countFacet(searcher, keyword, filters, F_PRICE);
+
+        return ProductFacetsVO.builder()
+                .campusLocation(topBuckets(campus))
+                .categoryId(topBuckets(category))
+                .price(price.entrySet().stream()
+                        .map(e -> {
+                            double from = Double.parseDouble(e.getKey());
+                            return FacetBucketVO.builder()
+                                    .key((long) from + "-" + (long) (from + PRICE_FACET_INTERVAL))
+                                    .count(e.getValue())
+                                    .from(from)
+                                    .to(from + PRICE_FACET_INTERVAL)
+                                    .build();
+                        })
+                        .sorted(Comparator.comparing(FacetBucketVO::getFrom))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private Map<String, Long> countFacet(IndexSearcher searcher, String keyword, Map<String, Query> filters,
+                                         String facet) throws IOException {
+        BooleanQuery.Builder builder = baseQuery(keyword);
+        filters.forEach((name, filter) -> {
+            if (!name.equals(facet)) {
+                builder.add(filter, BooleanClause.Occur.FILTER);
+            }
+        });
+
+        return searcher.search(builder.build(), new FacetCounterManager(facet));
+    }
+
+    private List<FacetBucketVO> topBuckets(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TERMS_FACET_SIZE)
+                .map(e -> FacetBucketVO.builder().key(e.getKey()).count(e.getValue()).build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 按 DocValues 统计分面取值（价格按区间下限归桶）
+     */
+    private static class FacetCounter extends SimpleCollector {
+
+        private final String facet;
+        private final Map<String, Long> counts = new HashMap<>();
+        private SortedDocValues sortedValues;
+        private NumericDocValues numericValues;
+
+        FacetCounter(String facet) {
+            this.facet = facet;
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            if (F_CAMPUS.equals(facet)) {
+                sortedValues = DocValues.getSorted(context.reader(), facet);
+            } else {
+                numericValues = DocValues.getNumeric(context.reader(), facet);
+            }
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            String key;
+            if (F_CAMPUS.equals(facet)) {
+                if (!sortedValues.advanceExact(doc)) {
+                    return;
+                }
+                key = sortedValues.lookupOrd(sortedValues.ordValue()).utf8ToString();
+            } else {
+                if (!numericValues.advanceExact(doc)) {
+                    return;
+                }
+                long value = numericValues.longValue();
+                key = F_PRICE.equals(facet)
+                        ? String.valueOf(Math.floor(NumericUtils.sortableLongToDouble(value) / PRICE_FACET_INTERVAL)
+                        * PRICE_FACET_INTERVAL)
+                        : String.valueOf(value);
+            }
+            counts.merge(key, 1L, Long::sum);
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+
+    /**
+     * 每个分片一个 FacetCounter，结束后合并计数
+     */
+    private static class FacetCounterManager implements CollectorManager<FacetCounter, Map<String, Long>> {
+
+        private final String facet;
+
+        FacetCounterManager(String facet) {
+            this.facet = facet;
+        }
+
+        @Override
+        public FacetCounter newCollector() {
+            return new FacetCounter(facet);
+        }
+
+        @Override
+        public Map<String, Long> reduce(Collection<FacetCounter> collectors) {
+            Map<String, Long> counts = new HashMap<>();
+            collectors.forEach(counter -> counter.counts.forEach((key, count) -> counts.merge(key, count, Long::sum)));
+            return counts;
+        }
+    }
+
+    // ==================== 自动补全（搜索建议） ====================
+
+    /**
+     * 商品名前缀匹配（上架商品，按发布时间倒序去重）
+     */
+    @Override
+    public List<String> autoComplete(String prefix) {
+        if (StringUtils.isBlank(prefix) || prefix.length() < 2) {
+            return Collections.emptyList();
+        }
+
+        Query query = new BooleanQuery.Builder()
+                .add(new PrefixQuery(new Term(F_NAME_PREFIX, prefix.toLowerCase(Locale.ROOT))), BooleanClause.Occur.FILTER)
+                .add(IntPoint.newExactQuery(F_STATUS, 1), BooleanClause.Occur.FILTER)
+                .build();
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopFieldDocs topDocs = searcher.search(query, SUGGEST_SIZE * 5, FEED_SORT);
+            return loadListItems(searcher, topDocs.scoreDocs).stream()
+                    .map(ProductListItemVO::getName)
+                    .distinct()
+                    .limit(SUGGEST_SIZE)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.error("自动补全失败: {}", e.getMessage());
+            return Collections.emptyList();
+        } finally {
+            release(searcher);
+        }
+    }
+
+    // ==================== 相似商品 ====================
+
+    @Override
+    public Map<Long, List<ProductListItemVO>> findSimilar(Collection<Long> productIds, int size) {
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            Map<Long, List<ProductListItemVO>> similar = new LinkedHashMap<>();
+            for (Long productId : productIds) {
+                TopDocs source = searcher.search(new TermQuery(idTerm(productId)), 1);
+                if (source.scoreDocs.length == 0) {
+                    continue;
+                }
+                ProductDocument product = loadSources(searcher, source.scoreDocs).get(0);
+                // 售罄标记不单独建索引，多取一些再过滤
+                TopDocs topDocs = searcher.search(similarQuery(product), size * 2);
+                similar.put(productId, loadListItems(searcher, topDocs.scoreDocs).stream()
+                        .filter(item -> !Boolean.TRUE.equals(item.getSoldOut()))
+                        .limit(size)
+                        .collect(Collectors.toList()));
+            }
+            return similar;
+        } catch (IOException e) {
+            log.error("Lucene相似商品查询失败: {}", e.getMessage());
+            throw new RuntimeException("查询相似商品失败", e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    /**
+     * 相似查询（等同ES的 more_like_this）：源商品名称、描述分词后按词频取前若干词项，名称词项权重2，同分类加分；
+     * 只查同校区上架商品并排除自身
+     */
+    private Query similarQuery(ProductDocument product) throws IOException {
+        Map<Term, Float> weights = new HashMap<>();
+        collectTerms(F_NAME, product.getName(), 2f, weights);
+        collectTerms(F_DESCRIPTION, product.getDescription(), 1f, weights);
+
+        BooleanQuery.Builder likeness = new BooleanQuery.Builder();
+        weights.entrySet().stream()
+                .sorted(Map.Entry.<Term, Float>comparingByValue().reversed())
+                .limit(SIMILAR_MAX_QUERY_TERMS)
+                .forEach(entry -> likeness.add(
+                        new BoostQuery(new TermQuery(entry.getKey()), entry.getValue()), BooleanClause.Occur.SHOULD));
+        if (product.getCategoryId() != null) {
+            likeness.add(LongPoint.newExactQuery(F_CATEGORY, product.getCategoryId()), BooleanClause.Occur.SHOULD);
+        }
+
+        BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                .add(likeness.build(), BooleanClause.Occur.MUST)
+                .add(IntPoint.newExactQuery(F_STATUS, 1), BooleanClause.Occur.FILTER)
+                .add(new TermQuery(idTerm(product.getId())), BooleanClause.Occur.MUST_NOT);
+        if (product.getCampusLocation() != null) {
+            builder.add(new TermQuery(new Term(F_CAMPUS, product.getCampusLocation())), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    private void collectTerms(String field, String text, float boost, Map<Term, Float> weights) throws IOException {
+        if (StringUtils.isBlank(text)) {
+            return;
+        }
+        try (TokenStream stream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                weights.merge(new Term(field, term.toString()), boost, Float::sum);
+            }
+            stream.end();
+        }
+    }
+
+    // ==================== 统计与辅助 ====================
+
+    @Override
+    public long count() {
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            return searcher.getIndexReader().numDocs();
+        } catch (IOException e) {
+            log.error("Lucene计数失败: {}", e.getMessage());
+            return 0;
+        } finally {
+            release(searcher);
+        }
+    }
+
+    @Override
+    public ProductDocument findById(Long productId) {
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopDocs topDocs = searcher.search(new TermQuery(idTerm(productId)), 1);
+            if (topDocs.scoreDocs.length == 0) {
+                return null;
+            }
+            ProductDocument document = loadSources(searcher, topDocs.scoreDocs).get(0);
+            document.setPopularity(popularity(searcher, topDocs.scoreDocs[0].doc, document.getPopularity()));
+            return document;
+        } catch (IOException e) {
+            log.error("Lucene查询失败: id={}, error={}", productId, e.getMessage());
+            return null;
+        } finally {
+            release(searcher);
+        }
+    }
+
+    /**
+     * 读取热度分 doc values（updatePopularity 原地更新，比 _source 中的值新）
+     */
+    private Double popularity(IndexSearcher searcher, int doc, Double fallback) throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+        NumericDocValues values = DocValues.getNumeric(leaf.reader(), F_POPULARITY);
+        return values.advanceExact(doc - leaf.docBase) ? Double.longBitsToDouble(values.longValue()) : fallback;
+    }
+
+    @Override
+    public boolean existsById(Long productId) {
+        return findById(productId) != null;
+    }
+
+    /**
+     * 热度排序得分：查询得分 + 热度分×权重 + log1p(搜索权重)；缺失时热度按0、搜索权重按1计
+     */
+    private static final class RankValuesSource extends DoubleValuesSource {
+
+        @Override
+        public DoubleValues getValues(LeafReaderContext ctx, DoubleValues scores) throws IOException {
+            NumericDocValues popularity = DocValues.getNumeric(ctx.reader(), F_POPULARITY);
+            NumericDocValues searchBoost = DocValues.getNumeric(ctx.reader(), F_SEARCH_BOOST);
+            return new DoubleValues() {
+                private double value;
+
+                @Override
+                public double doubleValue() {
+                    return value;
+                }
+
+                @Override
+                public boolean advanceExact(int doc) throws IOException {
+                    double score = scores != null && scores.advanceExact(doc) ? scores.doubleValue() : 0;
+                    double hot = popularity.advanceExact(doc) ? Double.longBitsToDouble(popularity.longValue()) : 0;
+                    long boost = searchBoost.advanceExact(doc) ? searchBoost.longValue() : 1;
+                    value = score + hot * POPULARITY_WEIGHT + Math.log1p(boost);
+                    return true;
+                }
+            };
+        }
+
+        @Override
+        public boolean needsScores() {
+            return true;
+        }
+
+        @Override
+        public DoubleValuesSource rewrite(IndexSearcher searcher) {
+            return this;
+        }
+
+        @Override
+        public boolean isCacheable(LeafReaderContext ctx) {
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return RankValuesSource.class.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof RankValuesSource;
+        }
+
+        @Override
+        public String toString() {
+            return "rank(score, popularity, searchBoost)";
+        }
+    }
+
+    private void release(IndexSearcher searcher) {
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            log.warn("释放IndexSearcher失败: {}", e.getMessage());
+        }
+    }
+
+    private String encodeCursor(String cursor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException();
+            }
+            return parts;
+        } catch (Exception e) {
+            throw new RuntimeException("无效的游标");
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.xchange.platform.repository;
+
+import com.xchange.platform.document.ProductDocument;
+import com.xchange.platform.dto.ProductSearchDTO;
+import com.xchange.platform.vo.ProductListItemVO;
+import com.xchange.platform.vo.ProductSearchPageVO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 商品搜索后端
+ * 实现：ProductESRepository（Elasticsearch，默认）、ProductLuceneRepository（嵌入式Lucene，search.backend=lucene）
+ */
+public interface ProductSearchRepository {
+
+    /**
+     * 保存单个文档（索引或更新）
+     */
+    void save(ProductDocument document);
+
+    /**
+     * 保存单个文档，校区变更时同时删除旧校区下的文档（按校区路由的后端需要覆盖）
+     * @param previousCampus 变更前的校区，未变更时为null
+     */
+    default void save(ProductDocument document, String previousCampus) {
+        save(document);
+    }
+
+    /**
+     * 批量保存文档
+     */
+    void saveAll(List<ProductDocument> documents);
+
+    /**
+     * 根据ID删除文档
+     */
+    void deleteById(Long productId);
+
+    /**
+     * 根据ID批量删除
+     */
+    void deleteAllByIds(List<Long> productIds);
+
+    /**
+     * 更新售罄标记（库存过零时调用；文档不存在时忽略）
+     */
+    void updateSoldOut(Long productId, boolean soldOut);
+
+    /**
+     * 批量更新热度分（离线任务调用；文档不存在时忽略）
+     */
+    void updatePopularity(Map<Long, Double> scores);
+
+    /**
+     * 批量更新浏览量（浏览量落库任务调用；文档不存在时忽略）
+     */
+    void updateViewCounts(Map<Long, Long> viewCounts);
+
+    /**
+     * 复杂搜索：关键词 + 多条件筛选 + 分页（page/cursor）+ 按发布时间或热度排序
+     */
+    default ProductSearchPageVO search(ProductSearchDTO dto) {
+        return search(dto, dto.needFacets());
+    }
+
+    /**
+     * @param withFacets 是否同时返回校区、分类、价格分面统计
+     */
+    ProductSearchPageVO search(ProductSearchDTO dto, boolean withFacets);
+
+    /**
+     * 异步搜索：远程后端不占用调用线程等待响应，返回的 Future 被取消或超时结束时中断在途请求。
+     * 默认实现同步执行（嵌入式后端没有网络等待）
+     */
+    default CompletableFuture<ProductSearchPageVO> searchAsync(ProductSearchDTO dto, boolean withFacets) {
+        try {
+            return CompletableFuture.completedFuture(search(dto, withFacets));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 搜索建议（商品名前缀）
+     */
+    List<String> autoComplete(String prefix);
+
+    /**
+     * 相似商品：按名称、描述、分类与源商品的相似度排序，只返回同校区在售商品（不含源商品）；
+     * 源商品不在索引中时结果不含该键
+     */
+    Map<Long, List<ProductListItemVO>> findSimilar(Collection<Long> productIds, int size);
+
+    /**
+     * 获取商品总数
+     */
+    long count();
+
+    /**
+     * 根据ID查询文档
+     */
+    ProductDocument findById(Long productId);
+
+    /**
+     * 判断文档是否存在
+     */
+    boolean existsById(Long productId);
+}
@@ -5,8 +5,11 @@ import com.xchange.platform.dto.CreateOrderDTO;
 import com.xchange.platform.dto.OrderQueryDTO;
 import com.xchange.platform.orderstate.OrderStates;
 import com.xchange.platform.vo.OrderListVO;
+import com.xchange.platform.vo.OrderTimelineVO;
 import com.xchange.platform.vo.OrderVO;
 
+import java.util.List;
+
 public interface OrderService {
 
     /**
@@ -35,9 +38,14 @@ public interface OrderService {
     void cancelOrder(Long userId, Long orderId);
 
     /**
-     * 获取订单当前状态
+     * 获取订单当前状态（走状态缓存，仅买卖双方可查）
+     */
+    OrderStates getCurrentState(Long userId, Long orderId);
+
+    /**
+     * 获取订单时间线（读取订单事件日志，仅买家或卖家可查）
      */
-    OrderStates getCurrentState(Long orderId);
+    List<OrderTimelineVO> getOrderTimeline(Long userId, Long orderId);
 
     /**
      * 创建订单
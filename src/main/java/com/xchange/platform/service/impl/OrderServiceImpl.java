@@ -2,24 +2,38 @@ package com.xchange.platform.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xchange.platform.component.OrderPartitionJob;
+import com.xchange.platform.component.OrderStatusCache;
+import com.xchange.platform.config.OrderPartitionProperties;
 import com.xchange.platform.dto.CreateOrderDTO;
 import com.xchange.platform.dto.OrderQueryDTO;
 import com.xchange.platform.entity.Order;
+import com.xchange.platform.entity.OrderEvent;
 import com.xchange.platform.entity.Product;
 import com.xchange.platform.entity.User;
+import com.xchange.platform.event.OrderStatusChangedEvent;
 import com.xchange.platform.event.StockUpdatedEvent;
+import com.xchange.platform.mapper.OrderEventMapper;
 import com.xchange.platform.mapper.OrderMapper;
 import com.xchange.platform.mapper.ProductMapper;
 import com.xchange.platform.mapper.UserMapper;
 import com.xchange.platform.orderstate.OrderEvents;
+import com.xchange.platform.orderstate.OrderStateConverter;
 import com.xchange.platform.orderstate.OrderStates;
+import com.xchange.platform.orderstate.OrderTransition;
+import com.xchange.platform.orderstate.OrderTransitionEngine;
+import com.xchange.platform.orderstate.OrderTransitionResult;
 import com.xchange.platform.service.OrderService;
 import com.xchange.platform.service.StockService;
 import com.xchange.platform.utils.RedisUtil;
 import com.xchange.platform.vo.OrderListVO;
+import com.xchange.platform.vo.OrderTimelineVO;
 import com.xchange.platform.vo.OrderVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -27,10 +41,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
@@ -38,7 +50,7 @@ import static java.lang.Math.min;
 
 /**
  * 订单服务实现（枚举+乐观锁）
- * 移除状态机，显式控制状态流转
+ * 状态流转统一交给 OrderTransitionEngine，单语句条件更新
  */
 @Slf4j
 @Service
@@ -51,19 +63,12 @@ public class OrderServiceImpl implements OrderService {
     private final RedisUtil redisUtil;
     private final ApplicationEventPublisher eventPublisher;
     private final StockService stockService;
-
-    // ==================== 状态流转规则定义 ====================
-    // 定义：当前状态 -> 允许的事件
-    private static final Map<OrderStates, Set<OrderEvents>> VALID_TRANSITIONS = new EnumMap<>(OrderStates.class);
-
-    static {
-        VALID_TRANSITIONS.put(OrderStates.PENDING_PAYMENT, Set.of(OrderEvents.PAY, OrderEvents.CANCEL));
-        VALID_TRANSITIONS.put(OrderStates.PAID, Set.of(OrderEvents.CONFIRM, OrderEvents.CANCEL));
-        VALID_TRANSITIONS.put(OrderStates.CONFIRMED, Set.of(OrderEvents.SHIP, OrderEvents.CANCEL));
-        VALID_TRANSITIONS.put(OrderStates.SHIPPED, Set.of(OrderEvents.RECEIVE, OrderEvents.CANCEL));
-        VALID_TRANSITIONS.put(OrderStates.COMPLETED, Set.of()); // 终态
-        VALID_TRANSITIONS.put(OrderStates.CANCELLED, Set.of()); // 终态
-    }
+    private final OrderTransitionEngine transitionEngine;
+    private final OrderEventMapper orderEventMapper;
+    private final ObjectMapper objectMapper;
+    private final OrderStatusCache orderStatusCache;
+    private final OrderPartitionProperties partitionProperties;
+    private final OrderPartitionJob orderPartitionJob;
 
     // ==================== 核心接口：下单 ====================
 
@@ -112,6 +117,15 @@ public class OrderServiceImpl implements OrderService {
             // 4. 创建订单（数据库操作）
             Order order = buildOrder(buyerId, product, createOrderDTO);
             orderMapper.insert(order);
+            eventPublisher.publishEvent(OrderStatusChangedEvent.builder()
+                    .orderId(order.getId())
+                    .event(OrderEvents.CREATE)
+                    .toState(OrderStates.PENDING_PAYMENT)
+                    .actorId(buyerId)
+                    .sellerId(order.getSellerId())
+                    .metadata(Map.of("productId", productId, "quantity", quantity))
+                    .occurredAt(LocalDateTime.now())
+                    .build());
 
             // 5. 异步同步库存到MySQL（最终一致性）
             // 发送消息到MQ或@Async异步更新MySQL库存
@@ -151,40 +165,30 @@ public class OrderServiceImpl implements OrderService {
         log.info("【支付回调】orderId={}, paymentId={}", orderId, paymentId);
 
         try {
-            // 1. 查询订单（获取当前状态和版本号）
-            Order order = orderMapper.selectById(orderId);
-            if (order == null) {
-                throw new RuntimeException("订单不存在");
-            }
+            // 1. 单语句流转：PENDING_PAYMENT -> PAID
+            OrderTransitionResult result = transitionEngine.fire(OrderTransition.builder()
+                    .orderId(orderId)
+                    .event(OrderEvents.PAY)
+                    .metadata(Map.of("paymentId", paymentId))
+                    .build());
 
-            // 订单已取消 → 触发自动退款
-            if (order.getStatus() == OrderStates.CANCELLED.ordinal()) {
-                log.error("【支付-订单冲突】orderId={}, 发起自动退款", orderId);
+            if (!result.isApplied()) {
+                // 订单已取消 → 触发自动退款
+                if (result.getCurrentState() == OrderStates.CANCELLED) {
+                    log.error("【支付-订单冲突】orderId={}, 发起自动退款", orderId);
 
-                // 调用支付宝/微信退款接口
+                    // 调用支付宝/微信退款接口
 
-                return; // 正常返回，避免支付宝重试
-            }
+                    return; // 正常返回，避免支付宝重试
+                }
 
-            // 2. 幂等检查：只有待付款状态才处理
-            OrderStates currentState = OrderStates.values()[order.getStatus()];
-            if (currentState != OrderStates.PENDING_PAYMENT) {
+                // 2. 幂等：只有待付款状态才处理
                 log.warn("【支付幂等】订单状态不是待付款，跳过处理: orderId={}, status={}",
-                        orderId, currentState);
+                        orderId, result.getCurrentState());
                 return;
             }
 
-            // 3. 状态前置校验
-            validateStatusTransition(currentState, OrderEvents.PAY);
-
-            // 4. 乐观锁更新状态
-            boolean updated = updateOrderStatus(orderId, currentState, OrderStates.PAID, order.getVersion());
-            if (!updated) {
-                log.warn("【乐观锁冲突】支付更新失败: orderId={}, version={}", orderId, order.getVersion());
-                throw new RuntimeException("支付处理失败，请重试");
-            }
-
-            // 5. 清理支付超时Key
+            // 3. 清理支付超时Key
             redisUtil.delete("order:payment:timeout:" + orderId);
 
             log.info("【支付成功】orderId={}, paymentId={}, newStatus={}",
@@ -206,22 +210,16 @@ public class OrderServiceImpl implements OrderService {
     public void confirmOrder(Long sellerId, Long orderId) {
         log.info("【卖家确认订单】sellerId={}, orderId={}", sellerId, orderId);
 
-        // 1. 校验订单归属权
-        Order order = validateOrderOwnership(sellerId, orderId);
+        // 单语句流转（归属 + 状态校验）：PAID -> CONFIRMED
+        OrderTransitionResult result = transitionEngine.fire(OrderTransition.builder()
+                .orderId(orderId)
+                .event(OrderEvents.CONFIRM)
+                .actorId(sellerId)
+                .ownership(OrderTransition.Ownership.SELLER)
+                .build());
 
-        // 2. 获取当前状态
-        OrderStates currentState = OrderStates.values()[order.getStatus()];
-        if (currentState != OrderStates.PAID) {
-            throw new RuntimeException("只有已付款订单才能确认，当前状态: " + currentState);
-        }
-
-        // 3. 状态校验
-        validateStatusTransition(currentState, OrderEvents.CONFIRM);
-
-        // 4. 乐观锁更新
-        boolean updated = updateOrderStatus(orderId, currentState, OrderStates.CONFIRMED, order.getVersion());
-        if (!updated) {
-            throw new RuntimeException("订单确认失败，请重试");
+        if (!result.isApplied()) {
+            throw new RuntimeException("只有已付款订单才能确认，当前状态: " + result.getCurrentState());
         }
 
         log.info("【订单确认成功】orderId={}, sellerId={}", orderId, sellerId);
@@ -232,28 +230,18 @@ public class OrderServiceImpl implements OrderService {
     public void shipOrder(Long sellerId, Long orderId, String trackingNumber) {
         log.info("【卖家发货】sellerId={}, orderId={}, tracking={}", sellerId, orderId, trackingNumber);
 
-        // 1. 校验
-        Order order = validateOrderOwnership(sellerId, orderId);
-        OrderStates currentState = OrderStates.values()[order.getStatus()];
-        if (currentState != OrderStates.CONFIRMED) {
-            throw new RuntimeException("只有已确认订单才能发货，当前状态: " + currentState);
-        }
-
-        // 2. 状态校验
-        validateStatusTransition(currentState, OrderEvents.SHIP);
-
-        // 3. 更新物流信息（如果提供）
-        if (trackingNumber != null && !trackingNumber.isBlank()) {
-            LambdaUpdateWrapper<Order> wrapper = new LambdaUpdateWrapper<>();
-            wrapper.eq(Order::getId, orderId)
-                    .set(Order::getTrackingNumber, trackingNumber);
-            orderMapper.update(null, wrapper);
-        }
-
-        // 4. 乐观锁更新状态
-        boolean updated = updateOrderStatus(orderId, currentState, OrderStates.SHIPPED, order.getVersion());
-        if (!updated) {
-            throw new RuntimeException("发货失败，请重试");
+        // 单语句流转：CONFIRMED -> SHIPPED，物流单号随状态一起写入
+        OrderTransitionResult result = transitionEngine.fire(OrderTransition.builder()
+                .orderId(orderId)
+                .event(OrderEvents.SHIP)
+                .actorId(sellerId)
+                .ownership(OrderTransition.Ownership.SELLER)
+                .trackingNumber(StringUtils.isNotBlank(trackingNumber) ? trackingNumber : null)
+                .metadata(StringUtils.isNotBlank(trackingNumber) ? Map.of("trackingNumber", trackingNumber) : null)
+                .build());
+
+        if (!result.isApplied()) {
+            throw new RuntimeException("只有已确认订单才能发货，当前状态: " + result.getCurrentState());
         }
 
         log.info("【发货成功】orderId={}, sellerId={}, tracking={}", orderId, sellerId, trackingNumber);
@@ -264,25 +252,16 @@ public class OrderServiceImpl implements OrderService {
     public void receiveOrder(Long buyerId, Long orderId) {
         log.info("【买家确认收货】buyerId={}, orderId={}", buyerId, orderId);
 
-        // 1. 校验买家身份
-        Order order = orderMapper.selectById(orderId);
-        if (order == null || !order.getBuyerId().equals(buyerId)) {
-            throw new RuntimeException("无权操作该订单");
-        }
-
-        // 2. 检查状态
-        OrderStates currentState = OrderStates.values()[order.getStatus()];
-        if (currentState != OrderStates.SHIPPED) {
-            throw new RuntimeException("只有已发货订单才能确认收货，当前状态: " + currentState);
-        }
-
-        // 3. 状态校验
-        validateStatusTransition(currentState, OrderEvents.RECEIVE);
+        // 单语句流转：SHIPPED -> COMPLETED
+        OrderTransitionResult result = transitionEngine.fire(OrderTransition.builder()
+                .orderId(orderId)
+                .event(OrderEvents.RECEIVE)
+                .actorId(buyerId)
+                .ownership(OrderTransition.Ownership.BUYER)
+                .build());
 
-        // 4. 乐观锁更新
-        boolean updated = updateOrderStatus(orderId, currentState, OrderStates.COMPLETED, order.getVersion());
-        if (!updated) {
-            throw new RuntimeException("确认收货失败，请重试");
+        if (!result.isApplied()) {
+            throw new RuntimeException("只有已发货订单才能确认收货，当前状态: " + result.getCurrentState());
         }
 
         log.info("【交易完成】orderId={}, buyerId={}", orderId, buyerId);
@@ -293,94 +272,79 @@ public class OrderServiceImpl implements OrderService {
     public void cancelOrder(Long userId, Long orderId) {
         log.info("【取消订单】userId={}, orderId={}", userId, orderId);
 
-        // 1. 校验身份（卖家或买家）
-        Order order = orderMapper.selectById(orderId);
-        if (order == null) {
-            throw new RuntimeException("订单不存在");
-        }
-        if (!order.getSellerId().equals(userId) && !order.getBuyerId().equals(userId)) {
-            throw new RuntimeException("无权取消该订单");
-        }
-
-        // 2. 检查状态（已完成/已取消不能再次取消）
-        OrderStates currentState = OrderStates.values()[order.getStatus()];
-        if (currentState == OrderStates.COMPLETED || currentState == OrderStates.CANCELLED) {
+        // 1. 流转（买家或卖家）：需要订单快照用于回滚库存，走状态+版本CAS
+        OrderTransitionResult result = transitionEngine.fire(OrderTransition.builder()
+                .orderId(orderId)
+                .event(OrderEvents.CANCEL)
+                .actorId(userId)
+                .ownership(OrderTransition.Ownership.PARTICIPANT)
+                .loadSnapshot(true)
+                .build());
+
+        // 2. 已完成/已取消不能再次取消
+        if (!result.isApplied()) {
             throw new RuntimeException("已完成或已取消的订单无法再次取消");
         }
 
-        // 3. 状态校验
-        validateStatusTransition(currentState, OrderEvents.CANCEL);
-
-        // 4. 乐观锁更新
-        boolean updated = updateOrderStatus(orderId, currentState, OrderStates.CANCELLED, order.getVersion());
-        if (!updated) {
-            throw new RuntimeException("取消订单失败，请重试");
-        }
-
-        // 5. 回滚库存
+        // 3. 回滚库存
+        Order order = result.getOrder();
         rollbackStock(order.getProductId(), order.getQuantity());
 
-        // 6. 清理支付超时Key（如果存在）
+        // 4. 清理支付超时Key（如果存在）
         redisUtil.delete("order:payment:timeout:" + orderId);
 
-        log.info("【订单已取消】orderId={}, userId={}, oldStatus={}", orderId, userId, currentState);
+        log.info("【订单已取消】orderId={}, userId={}, oldStatus={}", orderId, userId, result.getFromState());
     }
 
     @Override
-    public OrderStates getCurrentState(Long orderId) {
-        Order order = orderMapper.selectById(orderId);
-        if (order == null) {
+    public OrderStates getCurrentState(Long userId, Long orderId) {
+        OrderStatusCache.Entry entry = orderStatusCache.get(orderId);
+        if (entry == null) {
             throw new RuntimeException("订单不存在");
         }
-        return OrderStates.values()[order.getStatus()];
-    }
-
-    // ==================== 通用方法抽取 ====================
-
-    /**
-     * 状态前置校验：检查当前状态是否允许执行该事件
-     * @param currentState 当前状态
-     * @param event 触发事件
-     */
-    private void validateStatusTransition(OrderStates currentState, OrderEvents event) {
-        Set<OrderEvents> allowedEvents = VALID_TRANSITIONS.get(currentState);
-        if (allowedEvents == null || !allowedEvents.contains(event)) {
-            throw new RuntimeException(String.format(
-                    "非法状态流转: 当前状态[%s]不允许执行[%s]", currentState, event));
+        if (!entry.isParticipant(userId)) {
+            throw new RuntimeException("无权查看该订单");
         }
+        return entry.getStatus();
     }
 
-    /**
-     * 强制乐观锁更新订单状态
-     * @param orderId 订单ID
-     * @param currentState 当前状态（预期值）
-     * @param nextState 目标状态
-     * @param currentVersion 当前版本号
-     * @return 是否更新成功
-     */
-    private boolean updateOrderStatus(Long orderId, OrderStates currentState,
-                                      OrderStates nextState, Integer currentVersion) {
-        LambdaUpdateWrapper<Order> wrapper = new LambdaUpdateWrapper<>();
-        wrapper.eq(Order::getId, orderId)
-                .eq(Order::getStatus, currentState.ordinal()) // 状态一致性校验
-                .eq(Order::getVersion, currentVersion)        // 乐观锁
-                .set(Order::getStatus, nextState.ordinal())   // 更新状态
-                .set(Order::getVersion, currentVersion + 1);  // 版本号+1
-
-        int updated = orderMapper.update(null, wrapper);
-
-        if (updated > 0) {
-            log.info("【状态更新成功】orderId={}, {} -> {}, version={}+{}",
-                    orderId, currentState, nextState, currentVersion, currentVersion + 1);
-        } else {
-            log.warn("【乐观锁冲突】orderId={}, currentVersion={}", orderId, currentVersion);
+    @Override
+    public List<OrderTimelineVO> getOrderTimeline(Long userId, Long orderId) {
+        Order order = orderMapper.selectById(orderId);
+        if (order == null) {
+            throw new RuntimeException("订单不存在");
+        }
+        if (!order.getSellerId().equals(userId) && !order.getBuyerId().equals(userId)) {
+            throw new RuntimeException("无权查看该订单");
         }
 
-        return updated > 0;
+        List<OrderEvent> events = orderEventMapper.selectTimeline(orderId);
+        return events.stream().map(this::convertToTimelineVO).toList();
     }
 
     // ==================== 辅助方法 ====================
 
+    private OrderTimelineVO convertToTimelineVO(OrderEvent event) {
+        Map<String, Object> metadata = null;
+        if (StringUtils.isNotBlank(event.getMetadata())) {
+            try {
+                metadata = objectMapper.readValue(event.getMetadata(), new TypeReference<>() {});
+            } catch (Exception e) {
+                log.warn("订单事件metadata解析失败: eventId={}, error={}", event.getId(), e.getMessage());
+            }
+        }
+
+        return OrderTimelineVO.builder()
+                .event(event.getEvent())
+                .fromStatus(event.getFromStatus() != null
+                        ? OrderStateConverter.toStateMachineState(event.getFromStatus()).name() : null)
+                .toStatus(OrderStateConverter.toStateMachineState(event.getToStatus()).name())
+                .actorId(event.getActorId())
+                .metadata(metadata)
+                .time(event.getCreateTime())
+                .build();
+    }
+
     private void validateCreateOrderDTO(CreateOrderDTO dto) {
         if (dto.getQuantity() == null || dto.getQuantity() <= 0) {
             throw new RuntimeException("购买数量必须大于0");
@@ -434,17 +398,6 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
-    private Order validateOrderOwnership(Long sellerId, Long orderId) {
-        Order order = orderMapper.selectById(orderId);
-        if (order == null) {
-            throw new RuntimeException("订单不存在");
-        }
-        if (!order.getSellerId().equals(sellerId)) {
-            throw new RuntimeException("无权操作该订单");
-        }
-        return order;
-    }
-
     private OrderVO convertToVO(Order order, Product product, Long buyerId) {
         User seller = userMapper.selectById(product.getSellerId());
         String sellerNickname = seller != null ? seller.getNickname() : "未知";
@@ -484,7 +437,7 @@ public class OrderServiceImpl implements OrderService {
             int updateCount = productMapper.update(null, wrapper);
             if (updateCount > 0) {
                 Integer newStock = product.getStock() + quantity;
-                eventPublisher.publishEvent(new StockUpdatedEvent(productId, newStock));
+                eventPublisher.publishEvent(new StockUpdatedEvent(productId, product.getStock(), newStock));
                 log.info("【库存回滚成功】productId={}, quantity={}", productId, quantity);
             }
         } catch (Exception e) {
@@ -494,6 +447,16 @@ public class OrderServiceImpl implements OrderService {
 
     // ==================== 查询方法（保持不变） ====================
 
+    /**
+     * 分区表上填充缺省的时间下界，列表查询按 create_time 裁剪分区
+     * 下界为在线保留期起点（更早的分区已归档）；未分区时不限制，上界不填（避免应用与数据库时钟偏差漏掉刚创建的订单）
+     */
+    private void applyPartitionBounds(OrderQueryDTO queryDTO) {
+        if (queryDTO.getStartTime() == null && orderPartitionJob.isPartitioned()) {
+            queryDTO.setStartTime(OrderPartitionJob.retentionFloor(partitionProperties.getRetentionMonths()));
+        }
+    }
+
     @Override
     public IPage<OrderListVO> getBuyerOrders(Long buyerId, OrderQueryDTO queryDTO) {
         log.info("【查询我买到的订单】buyerId={}, pageNum={}, pageSize={}, status={}",
@@ -501,6 +464,7 @@ public class OrderServiceImpl implements OrderService {
 
         try {
             Integer offset = (queryDTO.getPageNum() - 1) * queryDTO.getPageSize();
+            applyPartitionBounds(queryDTO);
 
             Integer status = null;
             if (queryDTO.getStatus() != null && !queryDTO.getStatus().isEmpty()) {
@@ -548,6 +512,7 @@ public class OrderServiceImpl implements OrderService {
 
         try {
             Integer offset = (queryDTO.getPageNum() - 1) * queryDTO.getPageSize();
+            applyPartitionBounds(queryDTO);
 
             Integer status = null;
             if (queryDTO.getStatus() != null && !queryDTO.getStatus().isEmpty()) {
@@ -2,23 +2,27 @@ package com.xchange.platform.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.xchange.platform.component.ProductPopularityJob;
 import com.xchange.platform.document.ProductDocument;
 import com.xchange.platform.dto.ProductDTO;
 import com.xchange.platform.dto.ProductQueryDTO;
 import com.xchange.platform.dto.UpdateProductDTO;
 import com.xchange.platform.entity.Product;
+import com.xchange.platform.event.ProductChangedEvent;
 import com.xchange.platform.mapper.ProductMapper;
-import com.xchange.platform.repository.ProductESRepository;
+import com.xchange.platform.repository.ProductSearchRepository;
 import com.xchange.platform.service.ProductImageService;
 import com.xchange.platform.service.ProductService;
 import com.xchange.platform.vo.ProductVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.commons.lang3.StringUtils;
 
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Slf4j
@@ -29,7 +33,8 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductMapper productMapper;
     private final ProductImageService productImageService;
-    private final ProductESRepository productESRepository;
+    private final ProductSearchRepository productSearchRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 实体转换为VO（抽取公共方法）
@@ -44,6 +49,7 @@ public class ProductServiceImpl implements ProductService {
                 .campusLocation(product.getCampusLocation())
                 .status(product.getStatus())
                 .sellerId(product.getSellerId())
+                .viewCount(product.getViewCount())
                 .createTime(product.getCreateTime())
                 .build();
     }
@@ -121,7 +127,10 @@ public class ProductServiceImpl implements ProductService {
         if (StringUtils.isNotBlank(updateDTO.getCoverImage())) {
             product.setCoverImage(updateDTO.getCoverImage());
         }
-        if (StringUtils.isNotBlank(updateDTO.getCampusLocation())) {
+        String previousCampus = null;
+        if (StringUtils.isNotBlank(updateDTO.getCampusLocation())
+                && !updateDTO.getCampusLocation().equals(product.getCampusLocation())) {
+            previousCampus = StringUtils.defaultString(product.getCampusLocation());
             product.setCampusLocation(updateDTO.getCampusLocation());
         }
         if (updateDTO.getStatus() != null) {
@@ -136,6 +145,8 @@ public class ProductServiceImpl implements ProductService {
         }
 
         log.info("商品更新成功: productId={}, sellerId={}", productId, sellerId);
+        eventPublisher.publishEvent(new ProductChangedEvent(
+                productId, product.getName(), product.getStatus(), ProductChangedEvent.Action.UPDATE, previousCampus));
 
         // 4. 返回更新后的数据
         return convertToVO(product);
@@ -165,7 +176,7 @@ public class ProductServiceImpl implements ProductService {
 
             // 从Elasticsearch删除
             try {
-                productESRepository.deleteById(productId);
+                productSearchRepository.deleteById(productId);
                 log.info("ES文档删除成功: productId={}", productId);
             } catch (Exception e) {
                 log.error("ES文档删除失败: productId={}, error={}", productId, e.getMessage());
@@ -181,6 +192,8 @@ public class ProductServiceImpl implements ProductService {
 
             log.info("商品删除成功: productId={}, sellerId={}, deletedImages={}",
                     productId, sellerId, deletedFiles);
+            eventPublisher.publishEvent(new ProductChangedEvent(
+                    productId, null, null, ProductChangedEvent.Action.REMOVE));
 
         } catch (RuntimeException e) {
             log.error("商品删除失败: productId={}, error={}", productId, e.getMessage());
@@ -275,13 +288,17 @@ public class ProductServiceImpl implements ProductService {
         // 4. 同步到Elasticsearch（异步执行，不影响主流程）
         try {
             ProductDocument document = convertToDocument(productVO);
-            productESRepository.save(document);
+            document.setUpdateTime(product.getUpdateTime());
+            productSearchRepository.save(document);
             log.info("商品已同步到ES: productId={}", product.getId());
         } catch (Exception e) {
             log.error("同步到ES失败: productId={}, error={}", product.getId(), e.getMessage());
             // 不抛出异常，避免影响主流程（可后续补偿）
         }
 
+        eventPublisher.publishEvent(new ProductChangedEvent(
+                product.getId(), product.getName(), product.getStatus(), ProductChangedEvent.Action.PUBLISH));
+
         return productVO;
     }
 
@@ -295,12 +312,15 @@ public class ProductServiceImpl implements ProductService {
                 .description(productVO.getDescription())
                 .price(productVO.getPrice())
                 .stock(productVO.getStock())
+                .soldOut(productVO.getStock() != null && productVO.getStock() <= 0)
                 .campusLocation(productVO.getCampusLocation())
                 .status(productVO.getStatus())
                 .sellerId(productVO.getSellerId())
                 .coverImageUrl(productVO.getCoverImageUrl())
                 .detailImageUrls(productVO.getDetailImageUrls())
                 .createTime(productVO.getCreateTime())
+                .viewCount(productVO.getViewCount())
+                .popularity(ProductPopularityJob.score(0, 0, productVO.getCreateTime(), LocalDateTime.now()))
                 .searchBoost(1)  // 默认权重
                 .build();
     }
@@ -47,7 +47,11 @@ public class StockServiceImpl implements StockService {
 
             log.debug("扣库存结果：productId={}, quantity={}, result={}",
                     productId, quantity, result);
-            eventPublisher.publishEvent(new StockUpdatedEvent(productId, Math.toIntExact(result)));
+            // 负数为未初始化/库存不足，库存未变化
+            if (result != null && result >= 0) {
+                eventPublisher.publishEvent(new StockUpdatedEvent(
+                        productId, Math.toIntExact(result) + quantity, Math.toIntExact(result)));
+            }
             return result;
 
         } catch (Exception e) {
@@ -63,6 +67,11 @@ public class StockServiceImpl implements StockService {
             Long currentStock = stringRedisTemplate.opsForValue().increment(key, quantity);
             log.info("库存回滚成功: productId={}, quantity={}, currentStock={}",
                     productId, quantity, currentStock);
+            // 从售罄恢复有货时需要清除索引中的售罄标记（未过零的事件由监听器忽略）
+            if (currentStock != null) {
+                eventPublisher.publishEvent(new StockUpdatedEvent(
+                        productId, Math.toIntExact(currentStock) - quantity, Math.toIntExact(currentStock)));
+            }
 
             return true;
         } catch (Exception e) {
@@ -1,7 +1,6 @@
 package com.xchange.platform.utils;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
-import co.elastic.clients.elasticsearch._types.Refresh;
 import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
@@ -10,6 +9,7 @@ import co.elastic.clients.elasticsearch.core.*;
 import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.indices.*;
+import com.xchange.platform.repository.ProductESRepository;
 import com.xchange.platform.vo.ProductVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,15 +17,14 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
  * Elasticsearch 工具类
  * 封装常用操作：索引管理、文档CRUD、搜索
+ * 商品索引的映射只在 ProductESRepository 中定义，由其负责创建
  */
 @Slf4j
 @Component
@@ -35,38 +34,6 @@ public class ElasticsearchUtil {
     private final ElasticsearchClient client;
     private static final String PRODUCT_INDEX = "xchange_products";
 
-    /**
-     * 更新商品库存（即时同步 - 安全版）
-     * @param productId 商品ID
-     * @param newStock 新库存
-     */
-    public void updateProductStock(Long productId, Integer newStock) {
-        try {
-            log.info("【ES库存同步开始】productId={}, newStock={}", productId, newStock);
-
-            // 1. 构建更新Map（只包含需要更新的字段）
-            Map<String, Object> updateDoc = new HashMap<>();
-            updateDoc.put("stock", newStock);
-            updateDoc.put("updateTime", java.time.LocalDateTime.now());
-
-            // 2. 执行更新（使用Refresh.WaitFor确保可见性）
-            UpdateResponse<Map> response = client.update(u -> u
-                            .index(PRODUCT_INDEX)
-                            .id(productId.toString())
-                            .doc(updateDoc)
-                            .retryOnConflict(5) // 增加到5次重试
-                            .refresh(Refresh.WaitFor),
-                    Map.class // 使用Map.class避免反序列化问题
-            );
-
-            log.info("【ES库存同步成功】productId={}, newStock={}, result={}, version={}",
-                    productId, newStock, response.result().jsonValue(), response.version());
-
-        } catch (Exception e) {
-            log.error("【ES库存同步异常】productId={}, error={}", productId, e.getMessage(), e);
-        }
-    }
-
     /**
      * 检查索引是否存在
      */
@@ -79,45 +46,6 @@ public class ElasticsearchUtil {
         }
     }
 
-    /**
-     * 创建商品索引（带映射）
-     */
-    public void createProductIndex() {
-        try {
-            if (indexExists(PRODUCT_INDEX)) {
-                log.info("索引已存在: {}", PRODUCT_INDEX);
-                return;
-            }
-
-            CreateIndexRequest request = CreateIndexRequest.of(b -> b
-                    .index(PRODUCT_INDEX)
-                    .mappings(m -> m
-                            .properties("id", p -> p.long_(l -> l))
-                            .properties("name", p -> p.text(t -> t.analyzer("ik_max_word").searchAnalyzer("ik_smart")))
-                            .properties("description", p -> p.text(t -> t.analyzer("ik_max_word").searchAnalyzer("ik_smart")))
-                            .properties("price", p -> p.double_(d -> d))
-                            .properties("stock", p -> p.integer(i -> i))
-                            .properties("status", p -> p.integer(i -> i))
-                            .properties("campusLocation", p -> p.keyword(k -> k))
-                            .properties("sellerId", p -> p.long_(l -> l))
-                            .properties("coverImageUrl", p -> p.keyword(k -> k))
-                            .properties("detailImageUrls", p -> p.keyword(k -> k))
-                            .properties("createTime", p -> p.date(d -> d))
-                    )
-                    .settings(s -> s
-                            .numberOfShards("1")
-                            .numberOfReplicas("0")
-                    )
-            );
-
-            CreateIndexResponse response = client.indices().create(request);
-            log.info("创建索引成功: {}, acknowledged={}", PRODUCT_INDEX, response.acknowledged());
-        } catch (IOException e) {
-            log.error("创建索引失败: {}", e.getMessage());
-            throw new RuntimeException("创建索引失败", e);
-        }
-    }
-
     /**
      * 删除索引
      */
@@ -139,6 +67,7 @@ public class ElasticsearchUtil {
             IndexRequest<ProductVO> request = IndexRequest.of(i -> i
                     .index(PRODUCT_INDEX)
                     .id(product.getId().toString())
+                    .routing(ProductESRepository.routing(product.getCampusLocation()))
                     .document(product)
             );
 
@@ -164,6 +93,7 @@ public class ElasticsearchUtil {
                             .index(i -> i
                                     .index(PRODUCT_INDEX)
                                     .id(product.getId().toString())
+                                    .routing(ProductESRepository.routing(product.getCampusLocation()))
                                     .document(product)
                             )
                     ))
@@ -193,13 +123,12 @@ public class ElasticsearchUtil {
      */
     public void deleteProductDocument(Long productId) {
         try {
-            DeleteRequest request = DeleteRequest.of(d -> d
+            // 文档按校区路由，路由未知时按ID删除
+            DeleteByQueryResponse response = client.deleteByQuery(d -> d
                     .index(PRODUCT_INDEX)
-                    .id(productId.toString())
+                    .query(q -> q.ids(i -> i.values(productId.toString())))
             );
-
-            DeleteResponse response = client.delete(request);
-            log.debug("删除商品文档成功: id={}, result={}", productId, response.result().jsonValue());
+            log.debug("删除商品文档成功: id={}, deleted={}", productId, response.deleted());
         } catch (IOException e) {
             log.error("删除商品文档失败: id={}, error={}", productId, e.getMessage());
             // 不抛出异常，因为可能是文档不存在
@@ -0,0 +1,58 @@
+package com.xchange.platform.vo;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * MySQL 与搜索索引一致性巡检报告
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "MySQL与搜索索引一致性巡检报告")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConsistencyReportVO {
+
+    @Schema(description = "状态：IDLE, RUNNING, COMPLETED, FAILED, SKIPPED")
+    private String status;
+
+    @Schema(description = "已比对的商品数")
+    private Long scanned;
+
+    @Schema(description = "索引中缺失的商品数")
+    private Long missing;
+
+    @Schema(description = "索引文档过期（更新时间或校区路由不一致）的商品数")
+    private Long stale;
+
+    @Schema(description = "索引中多余的文档数（商品已删除，或更换校区后残留的旧路由文档）")
+    private Long orphaned;
+
+    @Schema(description = "最近更新、推迟到下一轮比对的商品数")
+    private Long deferred;
+
+    @Schema(description = "已修复的文档数")
+    private Long repaired;
+
+    @Schema(description = "修复失败的文档数")
+    private Long failed;
+
+    @Schema(description = "开始时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime startTime;
+
+    @Schema(description = "结束时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime endTime;
+
+    @Schema(description = "说明")
+    private String message;
+}
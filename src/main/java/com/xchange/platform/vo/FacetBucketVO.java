@@ -0,0 +1,32 @@
+package com.xchange.platform.vo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 分面统计桶
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "分面统计桶")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FacetBucketVO {
+
+    @Schema(description = "取值（校区名、分类ID或价格区间）")
+    private String key;
+
+    @Schema(description = "商品数")
+    private Long count;
+
+    @Schema(description = "价格区间下限（含，仅价格分面）")
+    private Double from;
+
+    @Schema(description = "价格区间上限（不含，仅价格分面）")
+    private Double to;
+}
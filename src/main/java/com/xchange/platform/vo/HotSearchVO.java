@@ -0,0 +1,24 @@
+package com.xchange.platform.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 热门搜索词
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "热门搜索词")
+public class HotSearchVO {
+
+    @Schema(description = "关键词（已归一化）")
+    private String keyword;
+
+    @Schema(description = "热度（近一小时搜索次数按时间衰减加权）")
+    private Double heat;
+}
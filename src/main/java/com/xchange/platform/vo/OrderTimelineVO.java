@@ -0,0 +1,43 @@
+package com.xchange.platform.vo;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 订单时间线节点
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "订单时间线节点")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderTimelineVO {
+
+    @Schema(description = "事件：CREATE, PAY, CONFIRM, SHIP, RECEIVE, CANCEL")
+    private String event;
+
+    @Schema(description = "流转前状态（下单时为空）")
+    private String fromStatus;
+
+    @Schema(description = "流转后状态")
+    private String toStatus;
+
+    @Schema(description = "操作人ID（系统操作为空）")
+    private Long actorId;
+
+    @Schema(description = "附加信息（物流单号、支付单号等）")
+    private Map<String, Object> metadata;
+
+    @Schema(description = "发生时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime time;
+}
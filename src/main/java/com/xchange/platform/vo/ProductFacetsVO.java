@@ -0,0 +1,30 @@
+package com.xchange.platform.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 商品搜索分面统计
+ * 每个分面的计数不受该分面自身选中值的影响（选中某校区后，其他校区的计数仍然可见）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "商品搜索分面统计")
+public class ProductFacetsVO {
+
+    @Schema(description = "校区分布")
+    private List<FacetBucketVO> campusLocation;
+
+    @Schema(description = "分类分布")
+    private List<FacetBucketVO> categoryId;
+
+    @Schema(description = "价格区间分布")
+    private List<FacetBucketVO> price;
+}
@@ -0,0 +1,73 @@
+package com.xchange.platform.vo;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.xchange.platform.document.ProductDocument;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 商品列表项（列表投影）
+ * 搜索、分页等列表接口只返回卡片展示所需字段，描述、详情图、标签等完整字段仅在详情接口返回
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "商品列表项")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductListItemVO {
+
+    /**
+     * 列表投影字段（ES查询的 _source includes），与下方属性保持一致
+     */
+    public static final List<String> SOURCE_FIELDS = List.of(
+            "id", "name", "price", "stock", "soldOut", "campusLocation", "coverImageUrl", "createTime");
+
+    @Schema(description = "商品ID")
+    private Long id;
+
+    @Schema(description = "商品名称")
+    private String name;
+
+    @Schema(description = "价格")
+    private BigDecimal price;
+
+    @Schema(description = "库存（返回前以Redis实时库存覆盖）")
+    private Integer stock;
+
+    @Schema(description = "是否售罄")
+    private Boolean soldOut;
+
+    @Schema(description = "校区位置")
+    private String campusLocation;
+
+    @Schema(description = "封面图URL")
+    private String coverImageUrl;
+
+    @Schema(description = "发布时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+
+    public static ProductListItemVO from(ProductDocument document) {
+        return ProductListItemVO.builder()
+                .id(document.getId())
+                .name(document.getName())
+                .price(document.getPrice())
+                .stock(document.getStock())
+                .soldOut(document.getSoldOut())
+                .campusLocation(document.getCampusLocation())
+                .coverImageUrl(document.getCoverImageUrl())
+                .createTime(document.getCreateTime())
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.xchange.platform.vo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 商品搜索分页结果
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "商品搜索分页结果")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductSearchPageVO {
+
+    @Schema(description = "商品列表（列表投影，完整字段见详情接口）")
+    private List<ProductListItemVO> records;
+
+    @Schema(description = "命中总数（cursor模式仅第一页返回）")
+    private Long total;
+
+    @Schema(description = "总数是否精确（false表示实际命中数不少于total）")
+    private Boolean totalExact;
+
+    @Schema(description = "下一页游标（cursor模式，为空表示没有更多）")
+    private String nextCursor;
+
+    @Schema(description = "分面统计（facets=true 时返回；cursor模式仅第一页返回）")
+    private ProductFacetsVO facets;
+}
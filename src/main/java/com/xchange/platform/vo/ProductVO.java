@@ -51,6 +51,12 @@ public class ProductVO {
     @Schema(description = "详情图URL列表")
     private List<String> detailImageUrls;
 
+    @Schema(description = "浏览量（批量落库，有1分钟左右延迟）")
+    private Long viewCount;
+
+    @Schema(description = "独立访客数（HyperLogLog估算，仅详情接口返回）")
+    private Long uniqueViewers;
+
     @Schema(description = "创建时间")
     @JsonProperty("createTime")
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
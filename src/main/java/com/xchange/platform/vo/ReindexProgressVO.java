@@ -0,0 +1,58 @@
+package com.xchange.platform.vo;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 全量重建索引进度
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "全量重建索引进度")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReindexProgressVO {
+
+    @Schema(description = "状态：IDLE, RUNNING, COMPLETED, FAILED, INTERRUPTED（进程退出后可续跑）")
+    private String status;
+
+    @Schema(description = "写入的目标物理索引（完成校验后别名切换到该索引）")
+    private String targetIndex;
+
+    @Schema(description = "别名当前指向的物理索引")
+    private String liveIndex;
+
+    @Schema(description = "检查点：该ID及之前的商品均已确认写入ES")
+    private Long checkpointId;
+
+    @Schema(description = "商品总数（启动时估算）")
+    private Long total;
+
+    @Schema(description = "已读取商品数")
+    private Long read;
+
+    @Schema(description = "已写入ES文档数")
+    private Long indexed;
+
+    @Schema(description = "写入失败文档数")
+    private Long failed;
+
+    @Schema(description = "开始时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime startTime;
+
+    @Schema(description = "结束时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime endTime;
+
+    @Schema(description = "说明")
+    private String message;
+}
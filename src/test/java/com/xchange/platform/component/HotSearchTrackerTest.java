@@ -0,0 +1,84 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.vo.HotSearchVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HotSearchTrackerTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @InjectMocks
+    private HotSearchTracker hotSearchTracker;
+
+    @Test
+    void testSpaceSaving_KeepsHeavyHittersWithinCapacity() {
+        HotSearchTracker.SpaceSaving sketch = new HotSearchTracker.SpaceSaving(10);
+        for (int i = 0; i < 50; i++) {
+            sketch.offer("手机", 1);
+            if (i % 2 == 0) {
+                sketch.offer("耳机", 1);
+            }
+            // 长尾关键词互相替换，不会挤掉高频关键词
+            sketch.offer("长尾" + i, 1);
+        }
+
+        Map<String, Long> counts = sketch.counts();
+        assertEquals(10, counts.size());
+        assertEquals(50L, counts.get("手机"));
+        assertEquals(25L, counts.get("耳机"));
+    }
+
+    @Test
+    void testSpaceSaving_ReplacesMinimumAndInheritsCount() {
+        HotSearchTracker.SpaceSaving sketch = new HotSearchTracker.SpaceSaving(2);
+        sketch.offer("手机", 3);
+        sketch.offer("耳机", 1);
+        sketch.offer("耳机", 1);
+        sketch.offer("键盘", 1);
+
+        // 计数最小的“耳机”(2)被替换，“键盘”继承其计数
+        assertEquals(Map.of("手机", 3L, "键盘", 3L), sketch.counts());
+    }
+
+    @Test
+    void testNormalize() {
+        assertEquals("iphone 13", HotSearchTracker.normalize("  iPhone   13 "));
+        assertNull(HotSearchTracker.normalize("   "));
+        assertNull(HotSearchTracker.normalize("很".repeat(33)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRefresh_DecaysOlderBuckets() {
+        List<Object> buckets = new ArrayList<>();
+        // 当前分钟：耳机 10 次；30分钟前：手机 30 次（衰减为 7.5）
+        buckets.add(Map.of("耳机", "10"));
+        for (int age = 1; age < 60; age++) {
+            buckets.add(age == 30 ? Map.of("手机", "30") : Map.of());
+        }
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(buckets);
+
+        hotSearchTracker.refresh(1000L);
+
+        List<HotSearchVO> top = hotSearchTracker.top(10);
+        assertEquals(List.of("耳机", "手机"), top.stream().map(HotSearchVO::getKeyword).toList());
+        assertEquals(7.5, top.get(1).getHeat(), 0.001);
+        assertEquals(1, hotSearchTracker.top(1).size());
+    }
+}
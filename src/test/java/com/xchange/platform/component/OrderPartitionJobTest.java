@@ -0,0 +1,105 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.config.OrderPartitionProperties;
+import com.xchange.platform.mapper.OrderPartitionMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderPartitionJobTest {
+
+    @Mock
+    private OrderPartitionMapper partitionMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private OrderPartitionProperties properties;
+    private OrderPartitionJob partitionJob;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OrderPartitionProperties();
+        partitionJob = new OrderPartitionJob(partitionMapper, properties, stringRedisTemplate);
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(valueOperations.setIfAbsent(eq(OrderPartitionJob.LOCK_KEY), anyString(), anyLong(), any()))
+                .thenReturn(true);
+    }
+
+    @Test
+    void testMaintain_CreatesFutureAndArchivesExpired() {
+        YearMonth now = YearMonth.now();
+        YearMonth expired = now.minusMonths(properties.getRetentionMonths() + 1);
+        when(partitionMapper.selectPartitionNames("tb_order")).thenReturn(List.of(
+                OrderPartitionJob.partitionName(expired),
+                OrderPartitionJob.partitionName(now),
+                "p_max"));
+        when(partitionMapper.countTable(anyString())).thenReturn(0);
+
+        partitionJob.maintainPartitions();
+
+        ArgumentCaptor<String> ddl = ArgumentCaptor.forClass(String.class);
+        verify(partitionMapper, atLeastOnce()).executeDdl(ddl.capture());
+        List<String> statements = ddl.getAllValues();
+
+        // 未来3个月各拆出一个分区
+        assertEquals((long) properties.getFutureMonths(),
+                statements.stream().filter(s -> s.contains("REORGANIZE PARTITION p_max")).count());
+        assertTrue(statements.stream().anyMatch(s ->
+                s.contains(OrderPartitionJob.partitionName(now.plusMonths(properties.getFutureMonths())))));
+        // 过期分区先交换到归档表再删除，当月分区不受影响
+        String expiredName = OrderPartitionJob.partitionName(expired);
+        assertTrue(statements.stream().anyMatch(s -> s.contains("EXCHANGE PARTITION " + expiredName)));
+        assertTrue(statements.stream().anyMatch(s -> s.endsWith("DROP PARTITION " + expiredName)));
+        assertFalse(statements.stream().anyMatch(s -> s.endsWith("DROP PARTITION " + OrderPartitionJob.partitionName(now))));
+    }
+
+    @Test
+    void testMaintain_NotPartitioned_Skip() {
+        when(partitionMapper.selectPartitionNames("tb_order")).thenReturn(List.of());
+
+        partitionJob.maintainPartitions();
+
+        verify(partitionMapper, never()).executeDdl(anyString());
+    }
+
+    @Test
+    void testMaintain_LockHeldByOtherNode_Skip() {
+        when(valueOperations.setIfAbsent(eq(OrderPartitionJob.LOCK_KEY), anyString(), anyLong(), any()))
+                .thenReturn(false);
+
+        partitionJob.maintainPartitions();
+
+        verify(partitionMapper, never()).selectPartitionNames(anyString());
+        verify(partitionMapper, never()).executeDdl(anyString());
+    }
+
+    @Test
+    void testIsPartitioned_OnlyWhenEnabledAndMigrated() {
+        // 未迁移：列表查询不默认按保留期裁剪
+        when(partitionMapper.selectPartitionNames("tb_order")).thenReturn(List.of());
+        assertFalse(partitionJob.isPartitioned());
+
+        OrderPartitionJob migrated = new OrderPartitionJob(partitionMapper, properties, stringRedisTemplate);
+        when(partitionMapper.selectPartitionNames("tb_order")).thenReturn(List.of("p202601", "p_max"));
+        assertTrue(migrated.isPartitioned());
+
+        properties.setEnabled(false);
+        assertFalse(migrated.isPartitioned());
+    }
+}
@@ -0,0 +1,116 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.entity.Order;
+import com.xchange.platform.event.OrderStatusChangedEvent;
+import com.xchange.platform.mapper.OrderMapper;
+import com.xchange.platform.orderstate.OrderEvents;
+import com.xchange.platform.orderstate.OrderStates;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatusCacheTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @InjectMocks
+    private OrderStatusCache orderStatusCache;
+
+    @Test
+    void testGet_RedisHit_NoDatabase() {
+        when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("order:status:1")).thenReturn(Map.of(
+                "status", "1", "version", "2", "buyerId", "20", "sellerId", "10"));
+
+        OrderStatusCache.Entry entry = orderStatusCache.get(1L);
+
+        assertEquals(OrderStates.PAID, entry.getStatus());
+        assertTrue(entry.isParticipant(20L));
+        assertFalse(entry.isParticipant(99L));
+        verify(orderMapper, never()).selectById(any());
+
+        // 第二次读取命中本地近缓存
+        orderStatusCache.get(1L);
+        verify(hashOperations, times(1)).entries(any());
+    }
+
+    @Test
+    void testGet_Miss_LoadFromDatabase() {
+        when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("order:status:1")).thenReturn(Map.of());
+        Order order = new Order();
+        order.setId(1L);
+        order.setBuyerId(20L);
+        order.setSellerId(10L);
+        order.setStatus(OrderStates.SHIPPED.ordinal());
+        order.setVersion(3);
+        when(orderMapper.selectById(1L)).thenReturn(order);
+
+        OrderStatusCache.Entry entry = orderStatusCache.get(1L);
+
+        assertEquals(OrderStates.SHIPPED, entry.getStatus());
+        assertEquals(3, entry.getVersion());
+        verify(stringRedisTemplate).execute(any(), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void testOnCreate_AfterCommit_FillFromEvent() {
+        orderStatusCache.onOrderStatusChanged(OrderStatusChangedEvent.builder()
+                .orderId(1L)
+                .event(OrderEvents.CREATE)
+                .toState(OrderStates.PENDING_PAYMENT)
+                .actorId(20L)
+                .sellerId(10L)
+                .build());
+
+        verify(stringRedisTemplate).execute(any(), anyList(), any(Object[].class));
+        verify(orderMapper, never()).selectById(any());
+        // 已写入本地近缓存，后续读取不再访问Redis
+        OrderStatusCache.Entry entry = orderStatusCache.get(1L);
+        assertEquals(OrderStates.PENDING_PAYMENT, entry.getStatus());
+        assertEquals(0, entry.getVersion());
+        assertTrue(entry.isParticipant(10L));
+        verify(stringRedisTemplate, never()).opsForHash();
+    }
+
+    @Test
+    void testGet_MissingOrder_NegativelyCached() {
+        when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("order:status:404")).thenReturn(Map.of());
+
+        assertNull(orderStatusCache.get(404L));
+        assertNull(orderStatusCache.get(404L));
+
+        // 只回源一次，并在Redis写入负缓存
+        verify(orderMapper, times(1)).selectById(404L);
+        verify(stringRedisTemplate).execute(any(), eq(List.of("order:status:404")), any(Object[].class));
+    }
+
+    @Test
+    void testGet_RedisMissingMarker_NoDatabase() {
+        when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("order:status:404")).thenReturn(Map.of("missing", "1"));
+
+        assertNull(orderStatusCache.get(404L));
+        verify(orderMapper, never()).selectById(any());
+    }
+}
@@ -0,0 +1,62 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.entity.Product;
+import com.xchange.platform.repository.ProductESRepository.IndexedDoc;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductConsistencyScannerTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Test
+    void testDiff_ClassifiesDrift() {
+        LocalDateTime updated = CUTOFF.minusHours(1).withNano(123_000_000);
+        Long version = ProductConsistencyScanner.versionOf(updated);
+
+        List<Product> products = List.of(
+                product(1L, "东校区", updated),               // 一致
+                product(2L, "东校区", updated),               // 索引缺失
+                product(3L, "东校区", updated),               // 索引中是旧版本
+                product(4L, "西校区", updated),               // 换校区后旧路由文档未删除、新路由文档缺失
+                product(5L, null, updated),                   // 未填校区，按默认路由一致
+                product(6L, "东校区", CUTOFF.plusSeconds(30)) // 最近更新，推迟
+        );
+        List<IndexedDoc> docs = List.of(
+                new IndexedDoc(1L, "东校区", version),
+                new IndexedDoc(3L, "东校区", version - 60_000),
+                new IndexedDoc(4L, "东校区", version),
+                new IndexedDoc(5L, "_", version),
+                new IndexedDoc(6L, "东校区", 0L),
+                new IndexedDoc(7L, "东校区", version)          // MySQL中已删除
+        );
+
+        ProductConsistencyScanner.Drift drift = ProductConsistencyScanner.diff(products, docs, CUTOFF);
+
+        assertEquals(5, drift.scanned);
+        assertEquals(1, drift.deferred);
+        assertEquals(1, drift.missing);
+        assertEquals(2, drift.stale);
+        assertEquals(2, drift.orphaned);
+        assertEquals(List.of(2L, 3L, 4L), drift.reindex);
+        assertEquals(List.of(4L, 7L), drift.deletes.stream().map(IndexedDoc::id).sorted().toList());
+    }
+
+    @Test
+    void testVersionOf_MatchesSecondPrecisionUtcEpoch() {
+        assertEquals(1714564800000L, ProductConsistencyScanner.versionOf(LocalDateTime.of(2024, 5, 1, 12, 0, 0, 999_000_000)));
+        assertNull(ProductConsistencyScanner.versionOf(null));
+    }
+
+    private static Product product(Long id, String campus, LocalDateTime updateTime) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCampusLocation(campus);
+        product.setUpdateTime(updateTime);
+        return product;
+    }
+}
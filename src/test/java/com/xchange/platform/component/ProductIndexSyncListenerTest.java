@@ -0,0 +1,63 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.document.ProductDocument;
+import com.xchange.platform.entity.Product;
+import com.xchange.platform.event.ProductChangedEvent;
+import com.xchange.platform.mapper.ProductMapper;
+import com.xchange.platform.repository.ProductSearchRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductIndexSyncListenerTest {
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @Mock
+    private ProductReindexJob productReindexJob;
+
+    @Mock
+    private ProductSearchRepository productSearchRepository;
+
+    @InjectMocks
+    private ProductIndexSyncListener listener;
+
+    @Test
+    void testUpdate_SaveWithIndexedScores() {
+        Product product = new Product();
+        product.setId(1L);
+        when(productMapper.selectById(1L)).thenReturn(product);
+        when(productReindexJob.toDocuments(List.of(product))).thenReturn(List.of(ProductDocument.builder()
+                .id(1L).name("新名称").popularity(0.1).searchBoost(1).build()));
+        when(productSearchRepository.findById(1L)).thenReturn(ProductDocument.builder()
+                .id(1L).name("旧名称").popularity(5.0).searchBoost(3).build());
+
+        listener.onProductChanged(new ProductChangedEvent(1L, "新名称", 1, ProductChangedEvent.Action.UPDATE, "东校区"));
+
+        // 校区变更：旧校区随同一次写入传给搜索后端清理
+        ArgumentCaptor<ProductDocument> saved = ArgumentCaptor.forClass(ProductDocument.class);
+        verify(productSearchRepository).save(saved.capture(), eq("东校区"));
+        assertEquals("新名称", saved.getValue().getName());
+        assertEquals(5.0, saved.getValue().getPopularity());
+        assertEquals(3, saved.getValue().getSearchBoost());
+    }
+
+    @Test
+    void testPublishAndRemove_Ignored() {
+        listener.onProductChanged(new ProductChangedEvent(1L, "名称", 1, ProductChangedEvent.Action.PUBLISH));
+        listener.onProductChanged(new ProductChangedEvent(1L, null, null, ProductChangedEvent.Action.REMOVE));
+
+        verifyNoInteractions(productMapper, productSearchRepository);
+    }
+}
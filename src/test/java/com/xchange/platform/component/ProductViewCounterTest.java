@@ -0,0 +1,107 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.mapper.ProductMapper;
+import com.xchange.platform.repository.ProductSearchRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisHyperLogLogCommands;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductViewCounterTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @Mock
+    private ProductSearchRepository productSearchRepository;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisHashCommands hashCommands;
+
+    @Mock
+    private RedisHyperLogLogCommands hyperLogLogCommands;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @InjectMocks
+    private ProductViewCounter productViewCounter;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_AggregatesViewsIntoOnePipeline() {
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(connection.hyperLogLogCommands()).thenReturn(hyperLogLogCommands);
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            ((RedisCallback<Object>) invocation.getArgument(0)).doInRedis(connection);
+            return null;
+        });
+
+        productViewCounter.record(1L, "100");
+        productViewCounter.record(1L, "100");
+        productViewCounter.record(1L, "200");
+        productViewCounter.record(2L, null);
+
+        productViewCounter.flush();
+
+        verify(stringRedisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(hashCommands).hIncrBy(bytes(ProductViewCounter.DELTA_KEY), bytes("1"), 3L);
+        verify(hashCommands).hIncrBy(bytes(ProductViewCounter.DELTA_KEY), bytes("2"), 1L);
+        // 同一访客在周期内只写入一次
+        verify(hyperLogLogCommands).pfAdd(eq(bytes(ProductViewCounter.UV_KEY_PREFIX + "1")),
+                any(byte[].class), any(byte[].class));
+        verify(hyperLogLogCommands, never()).pfAdd(eq(bytes(ProductViewCounter.UV_KEY_PREFIX + "2")), any());
+
+        // 已刷新的窗口不会重复发送
+        productViewCounter.flush();
+        verify(stringRedisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void testPersist_BatchUpdateThenAcknowledge() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), any())).thenReturn(true);
+        when(stringRedisTemplate.hasKey(ProductViewCounter.PERSISTING_KEY)).thenReturn(false);
+        when(stringRedisTemplate.hasKey(ProductViewCounter.DELTA_KEY)).thenReturn(true);
+        when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        Map<Object, Object> pending = new LinkedHashMap<>();
+        pending.put("1", "3");
+        pending.put("2", "1");
+        when(hashOperations.entries(ProductViewCounter.PERSISTING_KEY)).thenReturn(pending);
+
+        productViewCounter.persist();
+
+        verify(stringRedisTemplate).rename(ProductViewCounter.DELTA_KEY, ProductViewCounter.PERSISTING_KEY);
+        verify(productMapper, times(1)).incrementViewCounts(Map.of(1L, 3L, 2L, 1L));
+        verify(hashOperations).delete(ProductViewCounter.PERSISTING_KEY, "1", "2");
+    }
+}
@@ -0,0 +1,50 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.config.SearchProperties;
+import com.xchange.platform.dto.ProductSearchDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchMetricsTest {
+
+    @Test
+    void testHistogram_PercentilesUseBucketUpperBounds() {
+        SearchMetrics.Histogram histogram = new SearchMetrics.Histogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(3_000_000);      // 3ms -> le_5
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(150_000_000);    // 150ms -> le_200
+        }
+
+        assertEquals(100, histogram.count());
+        assertEquals(5.0, histogram.percentile(0.50));
+        assertEquals(200.0, histogram.percentile(0.95));
+        assertEquals(150.0, (double) histogram.snapshot().get("max"), 0.001);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecord_SplitsTookAndOverheadAndCountsSlowQueries() {
+        SearchProperties properties = new SearchProperties();
+        properties.getSlowLog().setThresholdMs(0L);
+        properties.getSlowLog().setSampleRate(0.0);
+        SearchMetrics metrics = new SearchMetrics(properties);
+
+        String shape = SearchMetrics.shape(ProductSearchDTO.builder().keyword("手机").campusLocation("主校区").build(), true);
+        assertEquals("page,keyword,campus,facets", shape);
+
+        metrics.record("search", shape, System.nanoTime() - 25_000_000, 10L, 42, "{}");
+
+        Map<String, Object> entry = (Map<String, Object>) metrics.stats().get("search|" + shape);
+        assertEquals(1L, entry.get("count"));
+        assertEquals(1L, entry.get("slow"));
+        assertEquals(42.0, entry.get("avgHits"));
+        assertEquals(10.0, ((Map<String, Object>) entry.get("took")).get("p50"));
+        // 往返约25ms，其中ES执行10ms，其余约15ms为网络与反序列化（le_20桶）
+        assertEquals(20.0, ((Map<String, Object>) entry.get("overhead")).get("p50"));
+    }
+}
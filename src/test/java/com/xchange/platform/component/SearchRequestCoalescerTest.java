@@ -0,0 +1,118 @@
+package com.xchange.platform.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchRequestCoalescerTest {
+
+    private final SearchRequestCoalescer coalescer = new SearchRequestCoalescer();
+
+    @Test
+    void testExecute_ConcurrentIdenticalQueriesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Future<String> leader = pool.submit(() -> coalescer.execute("search:k=手机", () -> {
+                loads.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                return "result";
+            }));
+            assertTrue(leaderStarted.await(1, TimeUnit.SECONDS));
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                followers.add(pool.submit(() -> coalescer.execute("search:k=手机", () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            // 等待跟随者进入等待状态后放行
+            while ((long) coalescer.stats().get("coalesced") < 5) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals("result", leader.get(1, TimeUnit.SECONDS));
+            for (Future<String> follower : followers) {
+                assertEquals("result", follower.get(1, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(1L, coalescer.stats().get("executed"));
+        assertEquals(0, coalescer.stats().get("inFlight"));
+    }
+
+    @Test
+    void testExecute_FailureIsNotCached() {
+        assertThrows(RuntimeException.class, () -> coalescer.execute("suggest:苹果", () -> {
+            throw new RuntimeException("搜索失败");
+        }));
+
+        assertEquals("ok", coalescer.execute("suggest:苹果", () -> "ok"));
+    }
+
+    @Test
+    void testExecuteAsync_WaitersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> source = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = coalescer.executeAsync("search:k=手机", () -> {
+            loads.incrementAndGet();
+            return source;
+        }, Runnable::run);
+        CompletableFuture<String> follower = coalescer.executeAsync("search:k=手机", () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        }, Runnable::run);
+
+        source.complete("result");
+
+        assertEquals("result", leader.get(1, TimeUnit.SECONDS));
+        assertEquals("result", follower.get(1, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(0, coalescer.stats().get("inFlight"));
+    }
+
+    @Test
+    void testExecuteAsync_CancelsSourceOnlyWhenAllWaitersGiveUp() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = coalescer.executeAsync("search:k=耳机", () -> source, Runnable::run);
+        CompletableFuture<String> follower = coalescer.executeAsync("search:k=耳机", () -> source, Runnable::run);
+
+        // 一个等待者超时不影响其他等待者
+        leader.cancel(true);
+        assertFalse(source.isCancelled());
+
+        follower.cancel(true);
+        assertTrue(source.isCancelled());
+        assertEquals(1L, coalescer.stats().get("cancelled"));
+        assertEquals(0, coalescer.stats().get("inFlight"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.xchange.platform.component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xchange.platform.dto.ProductSearchDTO;
+import com.xchange.platform.vo.ProductFacetsVO;
+import com.xchange.platform.vo.ProductSearchPageVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchResultCacheTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private SearchResultCache searchResultCache;
+
+    @BeforeEach
+    void setUp() {
+        searchResultCache = new SearchResultCache(stringRedisTemplate, new ObjectMapper());
+    }
+
+    @Test
+    void testNormalize_EquivalentQueriesShareKey() {
+        ProductSearchDTO a = ProductSearchDTO.builder().keyword("  iPhone   手机 ").campusLocation("主校区")
+                .minPrice(100.0).maxPrice(200.5).build();
+        ProductSearchDTO b = ProductSearchDTO.builder().keyword("iphone 手机").campusLocation(" 主校区")
+                .minPrice(100.00).maxPrice(200.50).build();
+
+        assertEquals(SearchResultCache.normalize(a), SearchResultCache.normalize(b));
+        assertNotEquals(SearchResultCache.normalize(a),
+                SearchResultCache.normalize(ProductSearchDTO.builder().keyword("iphone 手机").pageNum(2).build()));
+    }
+
+    @Test
+    void testGet_LocalHitSkipsLoader() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenReturn(null);
+
+        AtomicInteger loads = new AtomicInteger();
+        ProductSearchDTO dto = ProductSearchDTO.builder().keyword("耳机").build();
+
+        for (int i = 0; i < 3; i++) {
+            searchResultCache.get(dto, () -> {
+                loads.incrementAndGet();
+                return ProductSearchPageVO.builder().records(List.of()).total(0L).build();
+            });
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(2L, searchResultCache.stats().get("localHits"));
+    }
+
+    @Test
+    void testFacets_SharedAcrossPages() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenReturn(null);
+
+        ProductSearchDTO page1 = ProductSearchDTO.builder().keyword("耳机").campusLocation("主校区").facets(true).build();
+        ProductSearchDTO page2 = ProductSearchDTO.builder().keyword("耳机 ").campusLocation("主校区").facets(true)
+                .pageNum(2).build();
+        ProductFacetsVO facets = ProductFacetsVO.builder().campusLocation(List.of()).build();
+
+        assertNull(searchResultCache.getFacets(page1));
+        searchResultCache.putFacets(page1, facets);
+
+        assertSame(facets, searchResultCache.getFacets(page2));
+        assertNotEquals(SearchResultCache.normalize(page1), SearchResultCache.normalize(page2));
+        assertNull(searchResultCache.getFacets(ProductSearchDTO.builder().keyword("耳机").facets(true).build()));
+    }
+
+    @Test
+    void testGet_CursorModeNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        ProductSearchDTO dto = ProductSearchDTO.builder().keyword("耳机").mode("cursor").build();
+
+        searchResultCache.get(dto, () -> {
+            loads.incrementAndGet();
+            return ProductSearchPageVO.builder().records(List.of()).build();
+        });
+        searchResultCache.get(dto, () -> {
+            loads.incrementAndGet();
+            return ProductSearchPageVO.builder().records(List.of()).build();
+        });
+
+        assertEquals(2, loads.get());
+        verifyNoInteractions(stringRedisTemplate);
+    }
+}
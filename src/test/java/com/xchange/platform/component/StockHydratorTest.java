@@ -0,0 +1,68 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.vo.ProductListItemVO;
+import com.xchange.platform.vo.ProductSearchPageVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockHydratorTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private StockHydrator stockHydrator;
+
+    private ProductListItemVO item(Long id, int stock) {
+        return ProductListItemVO.builder().id(id).name("商品" + id).stock(stock).soldOut(false).build();
+    }
+
+    @Test
+    void testHydrate_OverwritesWithLiveStockInOneMget() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of("stock:product:1", "stock:product:2", "stock:product:3")))
+                .thenReturn(Arrays.asList("0", null, "8"));
+
+        ProductSearchPageVO cached = ProductSearchPageVO.builder()
+                .records(List.of(item(1L, 5), item(2L, 5), item(3L, 5)))
+                .total(3L)
+                .build();
+
+        ProductSearchPageVO page = stockHydrator.hydrate(cached);
+
+        assertEquals(0, page.getRecords().get(0).getStock());
+        assertTrue(page.getRecords().get(0).getSoldOut());
+        assertEquals(5, page.getRecords().get(1).getStock());   // Redis未预热，保留索引值
+        assertEquals(8, page.getRecords().get(2).getStock());
+        assertEquals(3L, page.getTotal());
+        // 缓存中的对象不被修改
+        assertEquals(5, cached.getRecords().get(0).getStock());
+        verify(valueOperations, times(1)).multiGet(anyCollection());
+    }
+
+    @Test
+    void testHydrate_RedisDownFallsBackToIndexedStock() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(anyCollection())).thenThrow(new RuntimeException("connection refused"));
+
+        List<ProductListItemVO> items = List.of(item(1L, 5));
+
+        assertSame(items, stockHydrator.hydrate(items));
+    }
+}
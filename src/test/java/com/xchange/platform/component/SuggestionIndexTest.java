@@ -0,0 +1,86 @@
+package com.xchange.platform.component;
+
+import com.xchange.platform.event.ProductChangedEvent;
+import com.xchange.platform.mapper.ProductMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SuggestionIndexTest {
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @InjectMocks
+    private SuggestionIndex suggestionIndex;
+
+    private static Map<String, Object> row(long id, String name, long weight) {
+        return Map.of("id", id, "name", name, "weight", weight);
+    }
+
+    @Test
+    void testSuggest_RankedByWeight() {
+        when(productMapper.selectSuggestSource()).thenReturn(List.of(
+                row(1, "iPhone 13", 5),
+                row(2, "iPhone 14 Pro", 20),
+                row(3, "iPad Air", 50),
+                row(4, "小米手机", 8)));
+        suggestionIndex.reload();
+
+        assertEquals(List.of("iPad Air", "iPhone 14 Pro", "iPhone 13"), suggestionIndex.suggest("ip", 10));
+        assertEquals(List.of("iPhone 14 Pro", "iPhone 13"), suggestionIndex.suggest("IPH", 10));
+        assertEquals(List.of("小米手机"), suggestionIndex.suggest("小米", 10));
+        assertTrue(suggestionIndex.suggest("华为", 10).isEmpty());
+    }
+
+    @Test
+    void testSuggest_HotPrefixUsesPrecomputedTopK() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < SuggestionIndex.SCAN_LIMIT * 2; i++) {
+            rows.add(row(i, "耳机" + i, i));
+        }
+        when(productMapper.selectSuggestSource()).thenReturn(rows);
+        suggestionIndex.reload();
+
+        List<String> result = suggestionIndex.suggest("耳", 10);
+        assertEquals(10, result.size());
+        assertEquals("耳机" + (SuggestionIndex.SCAN_LIMIT * 2 - 1), result.get(0));
+    }
+
+    @Test
+    void testIncrementalUpdate_AppliedOnRefresh() {
+        when(productMapper.selectSuggestSource()).thenReturn(List.of(row(1, "台灯", 3)));
+        suggestionIndex.reload();
+
+        suggestionIndex.onProductChanged(new ProductChangedEvent(2L, "台式电脑", 1, ProductChangedEvent.Action.PUBLISH));
+        suggestionIndex.onProductChanged(new ProductChangedEvent(1L, null, null, ProductChangedEvent.Action.REMOVE));
+        suggestionIndex.refreshIfDirty();
+
+        assertEquals(List.of("台式电脑"), suggestionIndex.suggest("台", 10));
+    }
+
+    @Test
+    void testReloadFailure_KeepsSources() {
+        when(productMapper.selectSuggestSource())
+                .thenReturn(List.of(row(1, "iPhone 13", 5)))
+                .thenThrow(new RuntimeException("MySQL连接超时"));
+        suggestionIndex.reload();
+
+        assertThrows(RuntimeException.class, () -> suggestionIndex.reload());
+        // 失败后的增量变更基于原数据源重建，不会清空已有建议
+        suggestionIndex.onProductChanged(new ProductChangedEvent(2L, "iPad Air", 1, ProductChangedEvent.Action.PUBLISH));
+        suggestionIndex.refreshIfDirty();
+
+        assertEquals(List.of("iPhone 13", "iPad Air"), suggestionIndex.suggest("ip", 10));
+    }
+}
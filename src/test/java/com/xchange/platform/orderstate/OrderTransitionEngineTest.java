@@ -0,0 +1,163 @@
+package com.xchange.platform.orderstate;
+
+import com.xchange.platform.entity.Order;
+import com.xchange.platform.event.OrderStatusChangedEvent;
+import com.xchange.platform.mapper.OrderMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderTransitionEngineTest {
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private OrderTransitionEngine transitionEngine;
+
+    private Order order(OrderStates state, int version) {
+        Order order = new Order();
+        order.setId(1L);
+        order.setSellerId(10L);
+        order.setBuyerId(20L);
+        order.setProductId(100L);
+        order.setQuantity(2);
+        order.setStatus(state.ordinal());
+        order.setVersion(version);
+        return order;
+    }
+
+    @Test
+    void testShip_SingleStatement() {
+        when(orderMapper.transitStatus(eq(1L), eq(List.of(OrderStates.CONFIRMED.ordinal())),
+                eq(OrderStates.SHIPPED.ordinal()), isNull(), eq(10L), isNull(), isNull(), eq("SF123")))
+                .thenReturn(1);
+
+        OrderTransitionResult result = transitionEngine.fire(OrderTransition.builder()
+                .orderId(1L)
+                .event(OrderEvents.SHIP)
+                .actorId(10L)
+                .ownership(OrderTransition.Ownership.SELLER)
+                .trackingNumber("SF123")
+                .build());
+
+        assertTrue(result.isApplied());
+        assertEquals(OrderStates.CONFIRMED, result.getFromState());
+        assertEquals(OrderStates.SHIPPED, result.getToState());
+        verify(eventPublisher).publishEvent(any(OrderStatusChangedEvent.class));
+        // 快速路径不读取订单
+        verify(orderMapper, never()).selectById(any());
+        verify(orderMapper, never()).selectByIdForUpdate(any());
+    }
+
+    @Test
+    void testConfirm_IllegalState_Rejected() {
+        when(orderMapper.transitStatus(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(0);
+        when(orderMapper.selectByIdForUpdate(1L)).thenReturn(order(OrderStates.SHIPPED, 3));
+
+        OrderTransitionResult result = transitionEngine.fire(OrderTransition.builder()
+                .orderId(1L)
+                .event(OrderEvents.CONFIRM)
+                .actorId(10L)
+                .ownership(OrderTransition.Ownership.SELLER)
+                .build());
+
+        assertFalse(result.isApplied());
+        assertEquals(OrderStates.SHIPPED, result.getCurrentState());
+        verify(eventPublisher, never()).publishEvent(any());
+        verify(orderMapper, times(1)).transitStatus(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testConfirm_NotOwner() {
+        when(orderMapper.transitStatus(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(0);
+        when(orderMapper.selectByIdForUpdate(1L)).thenReturn(order(OrderStates.PAID, 1));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> transitionEngine.fire(OrderTransition.builder()
+                .orderId(1L)
+                .event(OrderEvents.CONFIRM)
+                .actorId(99L)
+                .ownership(OrderTransition.Ownership.SELLER)
+                .build()));
+
+        assertEquals("无权操作该订单", e.getMessage());
+    }
+
+    @Test
+    void testCancel_RetryOnConflict() {
+        when(orderMapper.selectById(1L)).thenReturn(order(OrderStates.PAID, 1));
+        // 第一次CAS被并发确认抢先，第二次基于最新快照成功
+        when(orderMapper.transitStatus(eq(1L), eq(List.of(OrderStates.PAID.ordinal())),
+                eq(OrderStates.CANCELLED.ordinal()), eq(1), isNull(), isNull(), eq(20L), isNull()))
+                .thenReturn(0);
+        when(orderMapper.selectByIdForUpdate(1L)).thenReturn(order(OrderStates.CONFIRMED, 2));
+        when(orderMapper.transitStatus(eq(1L), eq(List.of(OrderStates.CONFIRMED.ordinal())),
+                eq(OrderStates.CANCELLED.ordinal()), eq(2), isNull(), isNull(), eq(20L), isNull()))
+                .thenReturn(1);
+
+        OrderTransitionResult result = transitionEngine.fire(OrderTransition.builder()
+                .orderId(1L)
+                .event(OrderEvents.CANCEL)
+                .actorId(20L)
+                .ownership(OrderTransition.Ownership.PARTICIPANT)
+                .loadSnapshot(true)
+                .build());
+
+        assertTrue(result.isApplied());
+        assertEquals(OrderStates.CONFIRMED, result.getFromState());
+        assertEquals(100L, result.getOrder().getProductId());
+    }
+
+    @Test
+    void testShip_ConflictRetriesWithLockedRow() {
+        // 快速路径未命中但状态仍允许：以加锁读到的行（含版本）为快照重试
+        when(orderMapper.transitStatus(eq(1L), eq(List.of(OrderStates.CONFIRMED.ordinal())),
+                eq(OrderStates.SHIPPED.ordinal()), isNull(), eq(10L), isNull(), isNull(), eq("SF123")))
+                .thenReturn(0);
+        when(orderMapper.selectByIdForUpdate(1L)).thenReturn(order(OrderStates.CONFIRMED, 3));
+        when(orderMapper.transitStatus(eq(1L), eq(List.of(OrderStates.CONFIRMED.ordinal())),
+                eq(OrderStates.SHIPPED.ordinal()), eq(3), eq(10L), isNull(), isNull(), eq("SF123")))
+                .thenReturn(1);
+
+        OrderTransitionResult result = transitionEngine.fire(OrderTransition.builder()
+                .orderId(1L)
+                .event(OrderEvents.SHIP)
+                .actorId(10L)
+                .ownership(OrderTransition.Ownership.SELLER)
+                .trackingNumber("SF123")
+                .build());
+
+        assertTrue(result.isApplied());
+        assertEquals(3, result.getOrder().getVersion());
+        verify(orderMapper, times(1)).selectByIdForUpdate(1L);
+    }
+
+    @Test
+    void testCancel_CompletedOrder_NoRetry() {
+        when(orderMapper.selectById(1L)).thenReturn(order(OrderStates.COMPLETED, 4));
+
+        OrderTransitionResult result = transitionEngine.fire(OrderTransition.builder()
+                .orderId(1L)
+                .event(OrderEvents.CANCEL)
+                .actorId(20L)
+                .ownership(OrderTransition.Ownership.PARTICIPANT)
+                .loadSnapshot(true)
+                .build());
+
+        assertFalse(result.isApplied());
+        verify(orderMapper, never()).transitStatus(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+}
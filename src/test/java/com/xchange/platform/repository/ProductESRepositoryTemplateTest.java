@@ -0,0 +1,93 @@
+package com.xchange.platform.repository;
+
+import co.elastic.clients.elasticsearch.core.SearchTemplateRequest;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpUtils;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xchange.platform.dto.ProductSearchDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductESRepositoryTemplateTest {
+
+    private static final Pattern SECTION = Pattern.compile("\\{\\{#(\\w+)}}(.*?)\\{\\{/\\1}}", Pattern.DOTALL);
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{(\\w+)}}");
+
+    private static final JacksonJsonpMapper JSONP_MAPPER = new JacksonJsonpMapper();
+
+    private final ProductESRepository repository = new ProductESRepository(null, null, null, null, null, null);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testTemplateRequest_SendsOnlyIdAndUsedParams() {
+        ProductSearchDTO dto = new ProductSearchDTO();
+        dto.setKeyword("耳机");
+        dto.setCampusLocation("东校区");
+        dto.setPageNum(2);
+
+        SearchTemplateRequest request = repository.templateRequest(dto, 20, "东校区");
+
+        assertEquals(ProductESRepository.LATEST_TEMPLATE_ID, request.id());
+        assertNull(request.source());
+        assertEquals(Map.of("from", 20, "size", 20, "track_total_hits", 10000, "keyword", "耳机", "campus", "东校区"),
+                toPlain(request.params()));
+        String body = JsonpUtils.toJsonString(request, JSONP_MAPPER);
+        assertFalse(body.contains("multi_match"));
+    }
+
+    @Test
+    void testTemplates_RenderToValidQueries() throws Exception {
+        Map<String, Object> all = Map.of("from", 0, "size", 10, "track_total_hits", true,
+                "keyword", "耳机", "campus", "东校区", "categoryId", 3, "minPrice", 10.5, "maxPrice", 99.0);
+        JsonNode full = objectMapper.readTree(render(ProductESRepository.latestTemplate(), all));
+        assertEquals(5, full.at("/query/bool/filter").size());
+        assertEquals("耳机", full.at("/query/bool/must/0/multi_match/query").asText());
+        assertEquals("createTime", full.at("/sort/0").fieldNames().next());
+
+        // 未传的条件整段省略
+        Map<String, Object> bare = Map.of("from", 0, "size", 10, "track_total_hits", 10000);
+        JsonNode popular = objectMapper.readTree(render(ProductESRepository.popularTemplate(), bare));
+        JsonNode bool = popular.at("/query/function_score/query/bool");
+        assertTrue(bool.path("must").isMissingNode());
+        assertEquals(1, bool.path("filter").size());
+        assertEquals("_score", popular.at("/sort/0").fieldNames().next());
+    }
+
+    private static Map<String, Object> toPlain(Map<String, JsonData> params) {
+        Map<String, Object> plain = new HashMap<>();
+        params.forEach((key, value) -> plain.put(key, value.to(Object.class, JSONP_MAPPER)));
+        return plain;
+    }
+
+    /**
+     * 只支持模板用到的语法：{{#name}}...{{/name}} 条件段与 {{name}} 变量（字符串按JSON转义）
+     */
+    private String render(String template, Map<String, Object> params) throws Exception {
+        Matcher sections = SECTION.matcher(template);
+        StringBuilder withSections = new StringBuilder();
+        while (sections.find()) {
+            sections.appendReplacement(withSections,
+                    Matcher.quoteReplacement(params.containsKey(sections.group(1)) ? sections.group(2) : ""));
+        }
+        sections.appendTail(withSections);
+
+        Matcher variables = VARIABLE.matcher(withSections);
+        StringBuilder rendered = new StringBuilder();
+        while (variables.find()) {
+            Object value = params.get(variables.group(1));
+            String text = value instanceof String s ? objectMapper.writeValueAsString(s).replaceAll("^\"|\"$", "")
+                    : String.valueOf(value);
+            variables.appendReplacement(rendered, Matcher.quoteReplacement(text));
+        }
+        variables.appendTail(rendered);
+        return rendered.toString();
+    }
+}
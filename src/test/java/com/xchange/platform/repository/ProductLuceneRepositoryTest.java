@@ -0,0 +1,163 @@
+package com.xchange.platform.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.xchange.platform.config.SearchProperties;
+import com.xchange.platform.document.ProductDocument;
+import com.xchange.platform.dto.ProductSearchDTO;
+import com.xchange.platform.vo.FacetBucketVO;
+import com.xchange.platform.vo.ProductListItemVO;
+import com.xchange.platform.vo.ProductSearchPageVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductLuceneRepositoryTest {
+
+    @TempDir
+    Path indexDir;
+
+    private ProductLuceneRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SearchProperties properties = new SearchProperties();
+        properties.getLucene().setPath(indexDir.toString());
+        repository = new ProductLuceneRepository(properties, new ObjectMapper().registerModule(new JavaTimeModule()));
+        repository.afterPropertiesSet();
+
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 12, 0);
+        repository.saveAll(List.of(
+                product(1L, "苹果手机 iPhone 13", "主校区", 10L, "3999", 1, base.plusMinutes(1)),
+                product(2L, "华为手机 Mate", "主校区", 10L, "2999", 1, base.plusMinutes(2)),
+                product(3L, "小米手机", "东校区", 10L, "1299", 1, base.plusMinutes(3)),
+                product(4L, "蓝牙耳机", "东校区", 20L, "199", 1, base.plusMinutes(4)),
+                product(5L, "二手手机 已下架", "主校区", 10L, "99", 0, base.plusMinutes(5))));
+        repository.refresh();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        repository.destroy();
+    }
+
+    @Test
+    void testSearch_KeywordFilterAndFeedSort() {
+        ProductSearchPageVO page = repository.search(ProductSearchDTO.builder().keyword("手机").build());
+
+        // 下架商品不返回，按发布时间倒序
+        assertEquals(List.of(3L, 2L, 1L), ids(page));
+        assertEquals(3L, page.getTotal());
+        assertTrue(page.getTotalExact());
+
+        ProductSearchPageVO filtered = repository.search(ProductSearchDTO.builder()
+                .keyword("手机").campusLocation("主校区").maxPrice(3000.0).build());
+        assertEquals(List.of(2L), ids(filtered));
+    }
+
+    @Test
+    void testSearch_CursorPaging() {
+        ProductSearchDTO first = ProductSearchDTO.builder().mode("cursor").pageSize(2).build();
+        ProductSearchPageVO page1 = repository.search(first);
+        assertEquals(List.of(4L, 3L), ids(page1));
+        assertNotNull(page1.getNextCursor());
+
+        ProductSearchPageVO page2 = repository.search(ProductSearchDTO.builder()
+                .mode("cursor").pageSize(2).cursor(page1.getNextCursor()).build());
+        assertEquals(List.of(2L, 1L), ids(page2));
+        assertNull(page2.getTotal());
+    }
+
+    @Test
+    void testSearch_FacetsIgnoreOwnSelection() {
+        ProductSearchPageVO page = repository.search(ProductSearchDTO.builder()
+                .campusLocation("主校区").facets(true).build());
+
+        assertEquals(List.of(2L, 1L), ids(page));
+        // 选中主校区后，东校区的计数仍然可见
+        List<FacetBucketVO> campus = page.getFacets().getCampusLocation();
+        assertEquals(2, campus.size());
+        assertEquals(2L, campus.stream().filter(b -> "东校区".equals(b.getKey())).findFirst().orElseThrow().getCount());
+        // 分类分面受校区筛选约束
+        assertEquals(1, page.getFacets().getCategoryId().size());
+        assertEquals("2900-3000", page.getFacets().getPrice().get(0).getKey());
+    }
+
+    @Test
+    void testSearch_PopularSortReadsUpdatedScores() {
+        repository.updatePopularity(Map.of(1L, 5.0, 3L, 1.0));
+        repository.refresh();
+
+        // 无关键词时相关度相同，按热度分排序，热度相同按发布时间倒序
+        ProductSearchPageVO page = repository.search(ProductSearchDTO.builder().sort("popular").build());
+        assertEquals(List.of(1L, 3L, 4L, 2L), ids(page));
+
+        // 热度分原地更新，不影响最新发布排序
+        assertEquals(List.of(4L, 3L, 2L, 1L), ids(repository.search(ProductSearchDTO.builder().build())));
+    }
+
+    @Test
+    void testUpdateSoldOutAndSuggest() {
+        repository.updateSoldOut(4L, true);
+        repository.refresh();
+
+        assertTrue(repository.findById(4L).getSoldOut());
+        assertEquals(List.of("华为手机 Mate"), repository.autoComplete("华为"));
+        assertTrue(repository.autoComplete("二手").isEmpty());
+
+        repository.deleteById(4L);
+        repository.refresh();
+        assertFalse(repository.existsById(4L));
+        assertEquals(4, repository.count());
+    }
+
+    @Test
+    void testUpdateSoldOut_RightAfterSave_KeepsNewContent() {
+        // 保存后未刷新即流转售罄：不能读到旧版本覆盖刚保存的名称
+        repository.save(product(4L, "降噪蓝牙耳机", "东校区", 20L, "199", 1, LocalDateTime.of(2026, 1, 1, 12, 4)));
+        repository.updateSoldOut(4L, true);
+        repository.refresh();
+
+        ProductDocument document = repository.findById(4L);
+        assertEquals("降噪蓝牙耳机", document.getName());
+        assertTrue(document.getSoldOut());
+    }
+
+    @Test
+    void testFindSimilar_SameCampusOnSaleOnly() {
+        Map<Long, List<ProductListItemVO>> similar = repository.findSimilar(List.of(1L, 99L), 5);
+
+        // 同校区上架商品，不含自身、东校区及已下架商品；不存在的商品不返回
+        assertEquals(List.of(1L), List.copyOf(similar.keySet()));
+        assertEquals(List.of(2L), similar.get(1L).stream().map(ProductListItemVO::getId).collect(Collectors.toList()));
+    }
+
+    private ProductDocument product(Long id, String name, String campus, Long categoryId, String price,
+                                    int status, LocalDateTime createTime) {
+        return ProductDocument.builder()
+                .id(id)
+                .name(name)
+                .description(name)
+                .campusLocation(campus)
+                .categoryId(categoryId)
+                .price(new BigDecimal(price))
+                .stock(1)
+                .status(status)
+                .createTime(createTime)
+                .build();
+    }
+
+    private List<Long> ids(ProductSearchPageVO page) {
+        return page.getRecords().stream().map(ProductListItemVO::getId).collect(Collectors.toList());
+    }
+}